@@ -1,13 +1,11 @@
 package com.universaldiff.app;
 
-import com.github.difflib.DiffUtils;
-import com.github.difflib.patch.AbstractDelta;
-import com.github.difflib.patch.Patch;
 import com.universaldiff.core.model.ComparisonSession;
 import com.universaldiff.core.model.DiffHunk;
 import com.universaldiff.core.model.FormatType;
 import com.universaldiff.core.model.MergeChoice;
 import com.universaldiff.core.model.MergeDecision;
+import com.universaldiff.core.model.RowAlignment;
 import com.universaldiff.ui.viewmodel.DiffViewModel;
 import com.universaldiff.core.detect.DefaultFileTypeDetector;
 import com.universaldiff.core.detect.FileTypeDetector;
@@ -460,10 +458,13 @@ public class UniversalDiffApp extends Application {
         showMessage(leftTextArea, "Preparing diff...", STYLE_TEXT_INFO);
         showMessage(rightTextArea, "Preparing diff...", STYLE_TEXT_INFO);
 
-        currentRenderTask = new DiffStreamTask(session);
-        currentRenderTask.setOnFailed(e -> {
-            Throwable failure = currentRenderTask.getException();
-            if (!(failure instanceof CancellationException)) {
+        DiffStreamTask task = new DiffStreamTask(session);
+        currentRenderTask = task;
+        task.setOnFailed(e -> {
+            Throwable failure = task.getException();
+            // a replaced session is closed by the view model, so a render still reading it may fail
+            boolean replaced = viewModel.getCurrentSession().filter(current -> current == session).isEmpty();
+            if (!(failure instanceof CancellationException) && !replaced) {
                 log.error("Failed to render diff columns", failure);
                 Platform.runLater(() -> showError("Render error", toException(failure)));
             }
@@ -517,30 +518,26 @@ public class UniversalDiffApp extends Application {
             return null;
         }
 
-        private void streamText() throws IOException {
+        private void streamText() {
             clearForStreaming();
-            String leftText = String.join("\n", session.getLeftContent().getLogicalRecords());
-            String rightText = String.join("\n", session.getRightContent().getLogicalRecords());
-
-            boolean leftTruncated = leftText.length() > TEXT_RENDER_LIMIT;
-            boolean rightTruncated = rightText.length() > TEXT_RENDER_LIMIT;
-            String leftShown = leftTruncated ? leftText.substring(0, TEXT_RENDER_LIMIT) : leftText;
-            String rightShown = rightTruncated ? rightText.substring(0, TEXT_RENDER_LIMIT) : rightText;
-
-            List<String> leftLines = splitLines(leftShown);
-            List<String> rightLines = splitLines(rightShown);
-            Patch<String> patch = DiffUtils.diff(leftLines, rightLines);
+            List<String> leftLines = session.getLeftContent().getLogicalRecords();
+            List<String> rightLines = session.getRightContent().getLogicalRecords();
+            // Adapters align their records while diffing; records of one without an alignment are shown as changed.
+            RowAlignment alignment = session.getDiffResult().getRowAlignment()
+                    .orElseGet(() -> RowAlignment.builder().changed(leftLines.size(), rightLines.size()).build());
 
             TextChunkAppender leftAppender = new TextChunkAppender(leftTextArea, DiffSide.LEFT, TEXT_STREAM_LINES);
-            emitLinesForSide(leftLines, rightLines, patch, leftAppender, DiffSide.LEFT, true);
-            leftAppender.finish(leftTruncated, leftText.length(), leftShown.length());
+            int leftShown = emitRowsForSide(alignment, leftLines, rightLines, leftAppender, DiffSide.LEFT);
+            boolean leftTruncated = leftShown < alignment.getRowCount();
+            leftAppender.finish(leftTruncated, alignment.getRowCount(), leftShown);
             if (!leftAppender.hasProducedContent() && !leftTruncated) {
                 showMessage(leftTextArea, "File is empty.", STYLE_TEXT_MUTED);
             }
 
             TextChunkAppender rightAppender = new TextChunkAppender(rightTextArea, DiffSide.RIGHT, TEXT_STREAM_LINES);
-            emitLinesForSide(rightLines, leftLines, patch, rightAppender, DiffSide.RIGHT, false);
-            rightAppender.finish(rightTruncated, rightText.length(), rightShown.length());
+            int rightShown = emitRowsForSide(alignment, rightLines, leftLines, rightAppender, DiffSide.RIGHT);
+            boolean rightTruncated = rightShown < alignment.getRowCount();
+            rightAppender.finish(rightTruncated, alignment.getRowCount(), rightShown);
             if (!rightAppender.hasProducedContent() && !rightTruncated) {
                 showMessage(rightTextArea, "File is empty.", STYLE_TEXT_MUTED);
             }
@@ -580,96 +577,29 @@ public class UniversalDiffApp extends Application {
         }
     }
 
-    private List<String> splitLines(String text) {
-        List<String> lines = new ArrayList<>();
-        if (text == null || text.isEmpty()) {
-            lines.add("");
-            return lines;
-        }
-        int start = 0;
-        for (int i = 0; i < text.length(); i++) {
-            char ch = text.charAt(i);
-            if (ch == '\r') {
-                addLineSegment(lines, text, start, i);
-                if (i + 1 < text.length() && text.charAt(i + 1) == '\n') {
-                    start = i + 2;
-                    i++;
-                } else {
-                    start = i + 1;
-                }
-            } else if (ch == '\n') {
-                addLineSegment(lines, text, start, i);
-                start = i + 1;
-            }
-        }
-        if (start <= text.length()) {
-            lines.add(text.substring(start));
-        }
-        if (lines.isEmpty()) {
-            lines.add("");
-        }
-        return lines;
-    }
-
-    private void addLineSegment(List<String> lines, String text, int start, int end) {
-        if (start > text.length()) {
-            lines.add("");
-        } else {
-            lines.add(text.substring(Math.min(start, text.length()), Math.min(end, text.length())));
+    /**
+     * Streams aligned rows for one side until {@link #TEXT_RENDER_LIMIT} characters of that side have been shown.
+     *
+     * @return the number of rows emitted
+     */
+    private int emitRowsForSide(RowAlignment alignment,
+                                List<String> baseLines,
+                                List<String> otherLines,
+                                TextChunkAppender appender,
+                                DiffSide side) {
+        boolean isLeft = side == DiffSide.LEFT;
+        long shownCharacters = 0;
+        int row = 0;
+        while (row < alignment.getRowCount() && shownCharacters < TEXT_RENDER_LIMIT) {
+            int baseIndex = isLeft ? alignment.leftIndex(row) : alignment.rightIndex(row);
+            int otherIndex = isLeft ? alignment.rightIndex(row) : alignment.leftIndex(row);
+            String text = baseIndex == RowAlignment.NO_RECORD ? "" : baseLines.get(baseIndex);
+            String counterpart = otherIndex == RowAlignment.NO_RECORD ? "" : otherLines.get(otherIndex);
+            appender.appendLine(new TextLine(row + 1, buildSegmentsForLine(text, counterpart)));
+            shownCharacters += text.length() + 1;
+            row++;
         }
-    }
-
-    private void emitLinesForSide(List<String> baseLines,
-                                  List<String> otherLines,
-                                  Patch<String> patch,
-                                  TextChunkAppender appender,
-                                  DiffSide side,
-                                  boolean treatPatchAsSource) {
-        int baseIndex = 0;
-        int otherIndex = 0;
-        int lineNumber = 1;
-
-        for (AbstractDelta<String> delta : patch.getDeltas()) {
-            int basePos = treatPatchAsSource ? delta.getSource().getPosition() : delta.getTarget().getPosition();
-            int otherPos = treatPatchAsSource ? delta.getTarget().getPosition() : delta.getSource().getPosition();
-
-            while (baseIndex < basePos && baseIndex < baseLines.size()) {
-                String text = baseLines.get(baseIndex++);
-                String counterpart = otherIndex < otherLines.size() ? otherLines.get(otherIndex++) : "";
-                appender.appendLine(new TextLine(lineNumber++, buildSegmentsForLine(text, counterpart)));
-            }
-
-            if (otherIndex < otherPos) {
-                otherIndex = otherPos;
-            }
-
-            List<String> baseDelta = treatPatchAsSource ? delta.getSource().getLines() : delta.getTarget().getLines();
-            List<String> otherDelta = treatPatchAsSource ? delta.getTarget().getLines() : delta.getSource().getLines();
-            lineNumber = emitDeltaLines(baseDelta, otherDelta, appender, side, lineNumber);
-
-            baseIndex = basePos + baseDelta.size();
-            otherIndex = otherPos + otherDelta.size();
-        }
-
-        while (baseIndex < baseLines.size()) {
-            String text = baseLines.get(baseIndex++);
-            String counterpart = otherIndex < otherLines.size() ? otherLines.get(otherIndex++) : "";
-            appender.appendLine(new TextLine(lineNumber++, buildSegmentsForLine(text, counterpart)));
-        }
-    }
-
-    private int emitDeltaLines(List<String> baseDelta,
-                               List<String> otherDelta,
-                               TextChunkAppender appender,
-                               DiffSide side,
-                               int lineNumber) {
-        int max = Math.max(baseDelta.size(), otherDelta.size());
-        for (int i = 0; i < max; i++) {
-            String text = i < baseDelta.size() ? baseDelta.get(i) : "";
-            String counterpart = i < otherDelta.size() ? otherDelta.get(i) : "";
-            appender.appendLine(new TextLine(lineNumber++, buildSegmentsForLine(text, counterpart)));
-        }
-        return lineNumber;
+        return row;
     }
 
     private List<Segment> buildSegmentsForLine(String text, String counterpart) {
@@ -871,10 +801,10 @@ public class UniversalDiffApp extends Application {
             }
         }
 
-        void finish(boolean truncated, long totalLength, long shownLength) {
+        void finish(boolean truncated, long totalLines, long shownLines) {
             flush();
             if (truncated) {
-                appendInfoChunk(String.format("... Showing first %,d of %,d characters for performance.", shownLength, totalLength));
+                appendInfoChunk(String.format("... Showing first %,d of %,d lines for performance.", shownLines, totalLines));
             }
         }
 
@@ -56,7 +56,7 @@ final class DefaultComparisonService implements ComparisonService {
         FormatAdapter adapter = registry.getAdapter(format);
         NormalizedContent leftContent = adapter.normalize(leftDescriptor);
         NormalizedContent rightContent = adapter.normalize(rightDescriptor);
-        DiffResult diffResult = adapter.diff(leftContent, rightContent);
+        DiffResult diffResult = adapter.diff(leftContent, rightContent, options);
         return new ComparisonSession(leftDescriptor, rightDescriptor, leftContent, rightContent, diffResult, adapter);
     }
 
@@ -4,12 +4,12 @@ package com.universaldiff.core.detect;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.universaldiff.core.model.FormatType;
+import com.universaldiff.format.xml.XmlProcessors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -76,10 +76,7 @@ public class DefaultFileTypeDetector implements FileTypeDetector {
 
     private boolean looksLikeXml(byte[] sample) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            Document document = factory.newDocumentBuilder().parse(new java.io.ByteArrayInputStream(sample));
+            Document document = XmlProcessors.documentBuilder().parse(new java.io.ByteArrayInputStream(sample));
             return document != null && document.getDocumentElement() != null;
         } catch (ParserConfigurationException | SAXException ex) {
             log.debug("XML sniff failed due to parser configuration or malformed XML: {}", ex.getMessage());
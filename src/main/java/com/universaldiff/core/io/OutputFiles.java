@@ -0,0 +1,90 @@
+package com.universaldiff.core.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+
+/**
+ * Writes merge output without truncating the file it replaces.
+ * <p>
+ * Merges read their inputs while writing, and the output may be one of them, as when merging into the left file;
+ * the inputs may even be mapped. Output therefore goes to a temporary file next to the target, which is moved over
+ * the target once complete. The replaced file is unlinked rather than truncated, so existing mappings of it stay
+ * valid.
+ */
+public final class OutputFiles {
+
+    private static final Logger log = LoggerFactory.getLogger(OutputFiles.class);
+
+    private OutputFiles() {
+    }
+
+    /**
+     * Writes content to a file on disk; it receives the temporary file, which already exists and is empty.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(Path file) throws IOException;
+    }
+
+    /**
+     * Writes {@code content} to a temporary file and moves it over {@code outputPath}. An existing target keeps
+     * its permissions and, where the process may set them, its owner, group and ACL; a symbolic link is followed
+     * and the file it points to is replaced.
+     */
+    public static void writeReplacing(Path outputPath, Content content) throws IOException {
+        Path target = outputPath.toAbsolutePath();
+        if (Files.exists(target)) {
+            target = target.toRealPath();
+        }
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            content.writeTo(temp);
+            if (Files.exists(target)) {
+                copyAttributes(target, temp);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Gives {@code temp} the access attributes of {@code target}. Permissions are always copied; changing the
+     * owner or group needs privileges the process may lack, in which case the temporary file keeps its own.
+     */
+    private static void copyAttributes(Path target, Path temp) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        if (posix != null) {
+            PosixFileAttributes attributes = Files.readAttributes(target, PosixFileAttributes.class);
+            posix.setPermissions(attributes.permissions());
+            try {
+                posix.setGroup(attributes.group());
+                posix.setOwner(attributes.owner());
+            } catch (IOException ex) {
+                log.debug("Keeping the owner of {} as its replacement: {}", target, ex.getMessage());
+            }
+        }
+        AclFileAttributeView acl = Files.getFileAttributeView(temp, AclFileAttributeView.class);
+        if (acl != null) {
+            try {
+                acl.setAcl(Files.getFileAttributeView(target, AclFileAttributeView.class).getAcl());
+                acl.setOwner(Files.getOwner(target));
+            } catch (IOException ex) {
+                log.debug("Keeping the ACL of {} as its replacement: {}", target, ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.universaldiff.core.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Cleanup of the temporary directories that out-of-core differs spill their runs and partitions into.
+ */
+public final class WorkDirectories {
+
+    private WorkDirectories() {
+    }
+
+    /**
+     * Deletes {@code directory} and everything below it, children before their parents.
+     */
+    public static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.universaldiff.core.model;
+
+/**
+ * How BIN and HEX comparisons line up the bytes of both sides.
+ */
+public enum BinaryDiffMode {
+    /**
+     * Compares byte N with byte N; an inserted byte makes every later offset differ.
+     */
+    POSITIONAL,
+    /**
+     * Finds blocks of the left side anywhere in the right side with rolling checksums, so insertions and deletions
+     * are reported where they happen and shifted content still matches.
+     */
+    CONTENT_DEFINED;
+}
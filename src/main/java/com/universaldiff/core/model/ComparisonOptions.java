@@ -1,17 +1,40 @@
 package com.universaldiff.core.model;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 public final class ComparisonOptions {
     private final FormatType forcedFormat;
     private final Charset leftEncodingOverride;
     private final Charset rightEncodingOverride;
+    private final DiffAlgorithm diffAlgorithm;
+    private final BinaryDiffMode binaryDiffMode;
+    private final int parallelism;
+    private final Integer sortedKeyColumn;
+    private final List<Integer> keyColumns;
+    private final RowDiffGranularity rowDiffGranularity;
 
-    private ComparisonOptions(FormatType forcedFormat, Charset leftEncodingOverride, Charset rightEncodingOverride) {
+    private ComparisonOptions(FormatType forcedFormat,
+                              Charset leftEncodingOverride,
+                              Charset rightEncodingOverride,
+                              DiffAlgorithm diffAlgorithm,
+                              BinaryDiffMode binaryDiffMode,
+                              int parallelism,
+                              Integer sortedKeyColumn,
+                              List<Integer> keyColumns,
+                              RowDiffGranularity rowDiffGranularity) {
         this.forcedFormat = forcedFormat;
         this.leftEncodingOverride = leftEncodingOverride;
         this.rightEncodingOverride = rightEncodingOverride;
+        this.diffAlgorithm = diffAlgorithm == null ? DiffAlgorithm.MYERS : diffAlgorithm;
+        this.binaryDiffMode = binaryDiffMode == null ? BinaryDiffMode.POSITIONAL : binaryDiffMode;
+        this.parallelism = parallelism;
+        this.sortedKeyColumn = sortedKeyColumn;
+        this.keyColumns = List.copyOf(keyColumns);
+        this.rowDiffGranularity = rowDiffGranularity == null ? RowDiffGranularity.ROW : rowDiffGranularity;
     }
 
     public Optional<FormatType> forcedFormat() {
@@ -26,6 +49,40 @@ public final class ComparisonOptions {
         return Optional.ofNullable(rightEncodingOverride);
     }
 
+    public DiffAlgorithm diffAlgorithm() {
+        return diffAlgorithm;
+    }
+
+    public BinaryDiffMode binaryDiffMode() {
+        return binaryDiffMode;
+    }
+
+    /**
+     * Number of worker threads adapters may use for one comparison; {@code 1} keeps everything on the caller thread.
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Zero-based key column both inputs are already sorted by, if the caller declared one; keyed adapters
+     * then merge-join the inputs in a single pass instead of indexing them.
+     */
+    public OptionalInt sortedKeyColumn() {
+        return sortedKeyColumn == null ? OptionalInt.empty() : OptionalInt.of(sortedKeyColumn);
+    }
+
+    /**
+     * Zero-based columns that together identify a row in keyed formats; empty lets the adapter pick a key.
+     */
+    public List<Integer> keyColumns() {
+        return keyColumns;
+    }
+
+    public RowDiffGranularity rowDiffGranularity() {
+        return rowDiffGranularity;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -34,6 +91,12 @@ public final class ComparisonOptions {
         private FormatType forcedFormat;
         private Charset leftEncodingOverride;
         private Charset rightEncodingOverride;
+        private DiffAlgorithm diffAlgorithm;
+        private BinaryDiffMode binaryDiffMode;
+        private int parallelism = 1;
+        private Integer sortedKeyColumn;
+        private final List<Integer> keyColumns = new ArrayList<>();
+        private RowDiffGranularity rowDiffGranularity;
 
         private Builder() {
         }
@@ -53,8 +116,51 @@ public final class ComparisonOptions {
             return this;
         }
 
+        public Builder diffAlgorithm(DiffAlgorithm diffAlgorithm) {
+            this.diffAlgorithm = diffAlgorithm;
+            return this;
+        }
+
+        public Builder binaryDiffMode(BinaryDiffMode binaryDiffMode) {
+            this.binaryDiffMode = binaryDiffMode;
+            return this;
+        }
+
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder sortedByKeyColumn(int column) {
+            if (column < 0) {
+                throw new IllegalArgumentException("sorted key column must not be negative");
+            }
+            this.sortedKeyColumn = column;
+            return this;
+        }
+
+        public Builder keyColumns(int... columns) {
+            keyColumns.clear();
+            for (int column : columns) {
+                if (column < 0) {
+                    throw new IllegalArgumentException("key columns must not be negative");
+                }
+                keyColumns.add(column);
+            }
+            return this;
+        }
+
+        public Builder rowDiffGranularity(RowDiffGranularity rowDiffGranularity) {
+            this.rowDiffGranularity = rowDiffGranularity;
+            return this;
+        }
+
         public ComparisonOptions build() {
-            return new ComparisonOptions(forcedFormat, leftEncodingOverride, rightEncodingOverride);
+            return new ComparisonOptions(forcedFormat, leftEncodingOverride, rightEncodingOverride,
+                    diffAlgorithm, binaryDiffMode, parallelism, sortedKeyColumn, keyColumns, rowDiffGranularity);
         }
     }
 }
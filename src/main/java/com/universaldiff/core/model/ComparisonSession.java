@@ -2,12 +2,20 @@ package com.universaldiff.core.model;
 
 import com.universaldiff.format.spi.FormatAdapter;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 
-public final class ComparisonSession {
+/**
+ * The two normalized files of one comparison, their diff and the adapter that produced them.
+ * <p>
+ * Adapters may keep files mapped into memory as native models. Closing the session closes every native model
+ * that is {@link Closeable}, so those mappings can be released once the session is no longer shown; the session
+ * cannot be read or merged afterwards.
+ */
+public final class ComparisonSession implements Closeable {
     private final FileDescriptor left;
     private final FileDescriptor right;
     private final NormalizedContent leftContent;
@@ -50,6 +58,17 @@ public final class ComparisonSession {
     }
 
     public MergeResult merge(List<MergeDecision> decisions, Path outputPath) throws IOException {
-        return adapter.merge(leftContent, rightContent, decisions, outputPath);
+        return adapter.merge(leftContent, rightContent, diffResult, decisions, outputPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Closeable leftModel = closeable(leftContent); Closeable rightModel = closeable(rightContent)) {
+            // both models are closed on leaving the block, even when one of them fails
+        }
+    }
+
+    private static Closeable closeable(NormalizedContent content) {
+        return content.getNativeModel() instanceof Closeable model ? model : null;
     }
 }
@@ -0,0 +1,23 @@
+package com.universaldiff.core.model;
+
+/**
+ * Line diff algorithms available to text comparisons.
+ */
+public enum DiffAlgorithm {
+    /**
+     * Classic greedy Myers; minimal output, memory grows with the square of the edit distance.
+     */
+    MYERS,
+    /**
+     * Divide-and-conquer Myers; minimal output in memory linear to the input size.
+     */
+    MYERS_LINEAR_SPACE,
+    /**
+     * Recursively anchors on the least frequent common lines; fast and readable on source and config files.
+     */
+    HISTOGRAM,
+    /**
+     * Recursively anchors on lines that are unique on both sides.
+     */
+    PATIENCE;
+}
@@ -1,6 +1,7 @@
 package com.universaldiff.core.model;
 
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Represents a fragment of content participating in a diff hunk.
@@ -10,12 +11,29 @@ public final class DiffFragment {
     private final int start;
     private final int end;
     private final String content;
+    private final Supplier<String> contentRenderer;
 
     public DiffFragment(DiffSide side, int start, int end, String content) {
         this.side = Objects.requireNonNull(side, "side");
         this.start = start;
         this.end = end;
         this.content = content == null ? "" : content;
+        this.contentRenderer = null;
+    }
+
+    private DiffFragment(DiffSide side, int start, int end, Supplier<String> contentRenderer) {
+        this.side = Objects.requireNonNull(side, "side");
+        this.start = start;
+        this.end = end;
+        this.content = null;
+        this.contentRenderer = Objects.requireNonNull(contentRenderer, "contentRenderer");
+    }
+
+    /**
+     * Creates a fragment whose content is rendered each time it is requested instead of being held in memory.
+     */
+    public static DiffFragment lazy(DiffSide side, int start, int end, Supplier<String> contentRenderer) {
+        return new DiffFragment(side, start, end, contentRenderer);
     }
 
     public DiffSide getSide() {
@@ -31,6 +49,10 @@ public final class DiffFragment {
     }
 
     public String getContent() {
-        return content;
+        if (contentRenderer == null) {
+            return content;
+        }
+        String rendered = contentRenderer.get();
+        return rendered == null ? "" : rendered;
     }
 }
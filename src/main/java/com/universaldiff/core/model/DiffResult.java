@@ -5,16 +5,65 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 public final class DiffResult {
     private final FormatType formatType;
     private final List<DiffHunk> hunks;
     private final Duration executionTime;
+    private final Object nativeModel;
+    private final Supplier<RowAlignment> alignmentSupplier;
+    private volatile RowAlignment rowAlignment;
 
     public DiffResult(FormatType formatType, List<DiffHunk> hunks, Duration executionTime) {
+        this(formatType, hunks, executionTime, null, null);
+    }
+
+    /**
+     * @param nativeModel adapter-specific delta model kept so that a later merge can reuse it instead of
+     *                    diffing again; opaque to everything but the adapter that produced it
+     */
+    public DiffResult(FormatType formatType, List<DiffHunk> hunks, Duration executionTime, Object nativeModel) {
+        this(formatType, hunks, executionTime, nativeModel, null);
+    }
+
+    /**
+     * @param rowAlignment side-by-side alignment of the normalized records, for adapters whose records are lines
+     */
+    public DiffResult(FormatType formatType,
+                      List<DiffHunk> hunks,
+                      Duration executionTime,
+                      Object nativeModel,
+                      RowAlignment rowAlignment) {
+        this(formatType, hunks, executionTime, nativeModel, rowAlignment, null);
+    }
+
+    private DiffResult(FormatType formatType,
+                       List<DiffHunk> hunks,
+                       Duration executionTime,
+                       Object nativeModel,
+                       RowAlignment rowAlignment,
+                       Supplier<RowAlignment> alignmentSupplier) {
         this.formatType = Objects.requireNonNull(formatType, "formatType");
         this.hunks = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(hunks, "hunks")));
         this.executionTime = executionTime == null ? Duration.ZERO : executionTime;
+        this.nativeModel = nativeModel;
+        this.rowAlignment = rowAlignment;
+        this.alignmentSupplier = alignmentSupplier;
+    }
+
+    /**
+     * Creates a result whose row alignment is built on first request and then kept, for adapters that align
+     * records the diff itself did not need to read.
+     */
+    public static DiffResult lazyAlignment(FormatType formatType,
+                                           List<DiffHunk> hunks,
+                                           Duration executionTime,
+                                           Object nativeModel,
+                                           Supplier<RowAlignment> alignmentSupplier) {
+        return new DiffResult(formatType, hunks, executionTime, nativeModel, null,
+                Objects.requireNonNull(alignmentSupplier, "alignmentSupplier"));
     }
 
     public FormatType getFormatType() {
@@ -29,6 +78,24 @@ public final class DiffResult {
         return executionTime;
     }
 
+    public Object getNativeModel() {
+        return nativeModel;
+    }
+
+    public Optional<RowAlignment> getRowAlignment() {
+        RowAlignment alignment = rowAlignment;
+        if (alignment == null && alignmentSupplier != null) {
+            synchronized (this) {
+                alignment = rowAlignment;
+                if (alignment == null) {
+                    alignment = Objects.requireNonNull(alignmentSupplier.get(), "rowAlignment");
+                    rowAlignment = alignment;
+                }
+            }
+        }
+        return Optional.ofNullable(alignment);
+    }
+
     public boolean isEmpty() {
         return hunks.isEmpty();
     }
@@ -6,13 +6,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Canonical, normalized representation of content ready for diffing/merging.
  */
 public final class NormalizedContent {
     private final FormatType formatType;
-    private final List<String> logicalRecords;
+    private final Supplier<List<String>> recordSupplier;
+    private volatile List<String> logicalRecords;
+    private final Supplier<PathValueRecords> pathValueSupplier;
+    private volatile PathValueRecords pathValueRecords;
     private final byte[] binary;
     private final Object nativeModel;
     private final Charset encoding;
@@ -21,11 +25,21 @@ public final class NormalizedContent {
                               List<String> logicalRecords,
                               byte[] binary,
                               Object nativeModel,
-                              Charset encoding) {
+                              Charset encoding,
+                              boolean recordsAreView,
+                              Supplier<PathValueRecords> pathValueSupplier) {
         this.formatType = Objects.requireNonNull(formatType, "formatType");
-        this.logicalRecords = logicalRecords == null
-                ? List.of()
-                : Collections.unmodifiableList(new ArrayList<>(logicalRecords));
+        this.pathValueSupplier = pathValueSupplier;
+        this.recordSupplier = pathValueSupplier != null ? () -> getPathValueRecords().asLines() : null;
+        if (this.recordSupplier != null) {
+            this.logicalRecords = null;
+        } else if (logicalRecords == null) {
+            this.logicalRecords = List.of();
+        } else if (recordsAreView) {
+            this.logicalRecords = Collections.unmodifiableList(logicalRecords);
+        } else {
+            this.logicalRecords = Collections.unmodifiableList(new ArrayList<>(logicalRecords));
+        }
         this.binary = binary;
         this.nativeModel = nativeModel;
         this.encoding = encoding == null ? StandardCharsets.UTF_8 : encoding;
@@ -36,7 +50,40 @@ public final class NormalizedContent {
     }
 
     public List<String> getLogicalRecords() {
-        return logicalRecords;
+        List<String> records = logicalRecords;
+        if (records == null) {
+            synchronized (this) {
+                records = logicalRecords;
+                if (records == null) {
+                    List<String> supplied = recordSupplier.get();
+                    records = supplied == null ? List.of() : Collections.unmodifiableList(supplied);
+                    logicalRecords = records;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Returns the typed path/value records of structured formats, or {@code null} when the content only carries
+     * logical records. The logical records of such content are these records rendered as {@code "path = value"}.
+     */
+    public PathValueRecords getPathValueRecords() {
+        if (pathValueSupplier == null) {
+            return null;
+        }
+        PathValueRecords records = pathValueRecords;
+        if (records == null) {
+            synchronized (this) {
+                records = pathValueRecords;
+                if (records == null) {
+                    PathValueRecords supplied = pathValueSupplier.get();
+                    records = supplied == null ? PathValueRecords.empty() : supplied;
+                    pathValueRecords = records;
+                }
+            }
+        }
+        return records;
     }
 
     public byte[] getBinary() {
@@ -61,6 +108,8 @@ public final class NormalizedContent {
         private byte[] binary;
         private Object nativeModel;
         private Charset encoding;
+        private boolean recordsAreView;
+        private Supplier<PathValueRecords> pathValueSupplier;
 
         private Builder(FormatType formatType) {
             this.formatType = Objects.requireNonNull(formatType, "formatType");
@@ -68,6 +117,38 @@ public final class NormalizedContent {
 
         public Builder logicalRecords(List<String> logicalRecords) {
             this.logicalRecords = logicalRecords;
+            this.pathValueSupplier = null;
+            this.recordsAreView = false;
+            return this;
+        }
+
+        /**
+         * Uses the supplied list as-is instead of copying it, so lazily backed views stay lazy.
+         * The caller must not modify the list afterwards.
+         */
+        public Builder logicalRecordsView(List<String> logicalRecords) {
+            this.logicalRecords = logicalRecords;
+            this.pathValueSupplier = null;
+            this.recordsAreView = true;
+            return this;
+        }
+
+        /**
+         * Uses typed path/value records; the logical records become their {@code "path = value"} rendering.
+         */
+        public Builder pathValueRecords(PathValueRecords records) {
+            Objects.requireNonNull(records, "records");
+            return lazyPathValueRecords(() -> records);
+        }
+
+        /**
+         * Computes the typed path/value records on first access and keeps them, for formats whose diff works on
+         * the native model and only needs records when something displays them.
+         */
+        public Builder lazyPathValueRecords(Supplier<PathValueRecords> recordSupplier) {
+            this.logicalRecords = null;
+            this.recordsAreView = false;
+            this.pathValueSupplier = Objects.requireNonNull(recordSupplier, "recordSupplier");
             return this;
         }
 
@@ -87,7 +168,8 @@ public final class NormalizedContent {
         }
 
         public NormalizedContent build() {
-            return new NormalizedContent(formatType, logicalRecords, binary, nativeModel, encoding);
+            return new NormalizedContent(formatType, logicalRecords, binary, nativeModel, encoding, recordsAreView,
+                    pathValueSupplier);
         }
     }
 }
@@ -0,0 +1,230 @@
+package com.universaldiff.core.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Typed path/value records of a structured document, kept in parallel primitive arrays.
+ * <p>
+ * Each path is stored once and its id is the index of its record, found through an open-addressing table;
+ * values are interned into a pool and referenced by index, and every record carries a {@link ValueType} tag.
+ * Differs look paths up and compare values directly, without splitting {@code "path = value"} strings, so
+ * paths and values may contain {@code " = "}.
+ */
+public final class PathValueRecords {
+
+    /**
+     * What a record's value is. Tags describe the value; comparisons use the rendered values, as the
+     * {@code "path = value"} records did.
+     */
+    public enum ValueType {
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        /**
+         * Trimmed text content of a leaf element.
+         */
+        TEXT,
+        /**
+         * Value of an attribute or namespace declaration.
+         */
+        ATTRIBUTE
+    }
+
+    private static final ValueType[] TYPES = ValueType.values();
+    private static final PathValueRecords EMPTY = builder().build();
+
+    private final String[] paths;
+    private final int[] valueRefs;
+    private final byte[] types;
+    private final String[] values;
+    private final int[] table;
+
+    private PathValueRecords(String[] paths, int[] valueRefs, byte[] types, String[] values, int[] table) {
+        this.paths = paths;
+        this.valueRefs = valueRefs;
+        this.types = types;
+        this.values = values;
+        this.table = table;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static PathValueRecords empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Reads {@code "path = value"} lines split at the first separator, for contents that only carry string
+     * records. Such records cannot express paths containing the separator; lines without one are skipped.
+     */
+    public static PathValueRecords parse(List<String> lines) {
+        Builder builder = builder();
+        for (String line : lines) {
+            int sep = line.indexOf(" = ");
+            if (sep > 0) {
+                builder.add(line.substring(0, sep), ValueType.STRING, line.substring(sep + 3));
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return paths.length;
+    }
+
+    public String path(int id) {
+        return paths[id];
+    }
+
+    public String value(int id) {
+        return values[valueRefs[id]];
+    }
+
+    public ValueType type(int id) {
+        return TYPES[types[id]];
+    }
+
+    /**
+     * Returns the id of the record with the given path, or {@code -1} when there is none.
+     */
+    public int indexOf(String path) {
+        int mask = table.length - 1;
+        for (int slot = spread(path.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (paths[entry - 1].equals(path)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Aligns these records with another document's records by path, showing records whose values differ as
+     * changed rows; see {@link RowAlignment#fromMatches}.
+     */
+    public RowAlignment alignWith(PathValueRecords right) {
+        int[] matches = new int[paths.length];
+        for (int id = 0; id < paths.length; id++) {
+            matches[id] = right.indexOf(paths[id]);
+        }
+        return RowAlignment.fromMatches(paths.length, right.size(), id -> matches[id],
+                id -> !value(id).equals(right.value(matches[id])));
+    }
+
+    /**
+     * Renders the records as {@code "path = value"} lines on access, for display.
+     */
+    public List<String> asLines() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return paths[index] + " = " + value(index);
+            }
+
+            @Override
+            public int size() {
+                return paths.length;
+            }
+        };
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Collects records in order. Adding a path again replaces its value and type but keeps its position, as
+     * putting into a {@link java.util.LinkedHashMap} does.
+     */
+    public static final class Builder {
+        private String[] paths = new String[16];
+        private int[] valueRefs = new int[16];
+        private byte[] types = new byte[16];
+        private int[] table = new int[32];
+        private int size;
+        private final Map<String, Integer> valueIds = new HashMap<>();
+        private String[] values = new String[16];
+
+        private Builder() {
+        }
+
+        public Builder add(String path, ValueType type, String value) {
+            Objects.requireNonNull(path, "path");
+            Objects.requireNonNull(type, "type");
+            Objects.requireNonNull(value, "value");
+            int slot = slot(path);
+            int id = table[slot] - 1;
+            if (id < 0) {
+                if (size == paths.length) {
+                    int capacity = size * 2;
+                    paths = Arrays.copyOf(paths, capacity);
+                    valueRefs = Arrays.copyOf(valueRefs, capacity);
+                    types = Arrays.copyOf(types, capacity);
+                }
+                id = size++;
+                paths[id] = path;
+                table[slot] = id + 1;
+                if (size * 2 > table.length) {
+                    rehash(table.length * 2);
+                }
+            }
+            valueRefs[id] = intern(value);
+            types[id] = (byte) type.ordinal();
+            return this;
+        }
+
+        public PathValueRecords build() {
+            return new PathValueRecords(Arrays.copyOf(paths, size), Arrays.copyOf(valueRefs, size),
+                    Arrays.copyOf(types, size), Arrays.copyOf(values, valueIds.size()), table.clone());
+        }
+
+        private int intern(String value) {
+            Integer ref = valueIds.get(value);
+            if (ref != null) {
+                return ref;
+            }
+            int next = valueIds.size();
+            if (next == values.length) {
+                values = Arrays.copyOf(values, next * 2);
+            }
+            values[next] = value;
+            valueIds.put(value, next);
+            return next;
+        }
+
+        /**
+         * Returns the slot holding the path, or the empty slot where it belongs.
+         */
+        private int slot(String path) {
+            int mask = table.length - 1;
+            for (int slot = spread(path.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0 || paths[entry - 1].equals(path)) {
+                    return slot;
+                }
+            }
+        }
+
+        private void rehash(int capacity) {
+            table = new int[capacity];
+            int mask = capacity - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = spread(paths[id].hashCode()) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id + 1;
+            }
+        }
+    }
+}
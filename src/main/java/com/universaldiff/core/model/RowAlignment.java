@@ -0,0 +1,181 @@
+package com.universaldiff.core.model;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Side-by-side alignment of two record lists, produced once by the diff so renderers do not diff again.
+ * <p>
+ * Rows are stored as runs: an equal run pairs records one to one, a changed run pairs the left and right
+ * records of a delta and pads the shorter side with empty rows. Row lookups only touch the primitive run tables.
+ */
+public final class RowAlignment {
+
+    /**
+     * Record index reported for the padding side of a changed row.
+     */
+    public static final int NO_RECORD = -1;
+
+    private final int runCount;
+    private final boolean[] changed;
+    private final int[] leftStarts;
+    private final int[] rightStarts;
+    private final int[] leftLengths;
+    private final int[] rightLengths;
+    private final int[] rowStarts;
+    private final int rowCount;
+
+    private RowAlignment(Builder builder) {
+        this.runCount = builder.runCount;
+        this.changed = Arrays.copyOf(builder.changed, runCount);
+        this.leftStarts = Arrays.copyOf(builder.leftStarts, runCount);
+        this.rightStarts = Arrays.copyOf(builder.rightStarts, runCount);
+        this.leftLengths = Arrays.copyOf(builder.leftLengths, runCount);
+        this.rightLengths = Arrays.copyOf(builder.rightLengths, runCount);
+        this.rowStarts = Arrays.copyOf(builder.rowStarts, runCount);
+        this.rowCount = builder.rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the left record shown on the given row, or {@link #NO_RECORD} when the row pads the left side.
+     */
+    public int leftIndex(int row) {
+        int run = runOf(row);
+        int offset = row - rowStarts[run];
+        return offset < leftLengths[run] ? leftStarts[run] + offset : NO_RECORD;
+    }
+
+    /**
+     * Returns the right record shown on the given row, or {@link #NO_RECORD} when the row pads the right side.
+     */
+    public int rightIndex(int row) {
+        int run = runOf(row);
+        int offset = row - rowStarts[run];
+        return offset < rightLengths[run] ? rightStarts[run] + offset : NO_RECORD;
+    }
+
+    public boolean isChanged(int row) {
+        return changed[runOf(row)];
+    }
+
+    private int runOf(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + rowCount + " rows");
+        }
+        int run = Arrays.binarySearch(rowStarts, 0, runCount, row);
+        return run >= 0 ? run : -run - 2;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Aligns records that a keyed or path-based diff already paired, in one pass and without diffing again.
+     * <p>
+     * Left record {@code i} is shown next to right record {@code rightMatch(i)}, or as deleted when that is
+     * {@link #NO_RECORD}. Rows keep both sides in record order, so a pair that would cross an earlier pair is
+     * shown as a deleted and an inserted record instead; right records that are never paired are inserted.
+     *
+     * @param changed whether paired left record {@code i} differs from its right record
+     */
+    public static RowAlignment fromMatches(int leftSize, int rightSize, IntUnaryOperator rightMatch,
+                                           IntPredicate changed) {
+        Builder builder = builder();
+        int nextRight = 0;
+        int unpairedLeft = 0;
+        for (int left = 0; left < leftSize; left++) {
+            int right = rightMatch.applyAsInt(left);
+            if (right < nextRight || right >= rightSize) {
+                unpairedLeft++;
+                continue;
+            }
+            builder.changed(unpairedLeft, right - nextRight);
+            unpairedLeft = 0;
+            if (changed.test(left)) {
+                builder.changed(1, 1);
+            } else {
+                builder.equal(1);
+            }
+            nextRight = right + 1;
+        }
+        return builder.changed(unpairedLeft, rightSize - nextRight).build();
+    }
+
+    /**
+     * Appends runs in order; each run starts where the previous one ended on both sides. A run that pairs its
+     * records one to one, like the run before it, extends that run.
+     */
+    public static final class Builder {
+        private boolean[] changed = new boolean[16];
+        private int[] leftStarts = new int[16];
+        private int[] rightStarts = new int[16];
+        private int[] leftLengths = new int[16];
+        private int[] rightLengths = new int[16];
+        private int[] rowStarts = new int[16];
+        private int runCount;
+        private int rowCount;
+        private int leftCursor;
+        private int rightCursor;
+
+        private Builder() {
+        }
+
+        public Builder equal(int length) {
+            return append(false, length, length);
+        }
+
+        public Builder changed(int leftLength, int rightLength) {
+            return append(true, leftLength, rightLength);
+        }
+
+        private Builder append(boolean isChanged, int leftLength, int rightLength) {
+            if (leftLength < 0 || rightLength < 0) {
+                throw new IllegalArgumentException("Run lengths must be non-negative");
+            }
+            int rows = Math.max(leftLength, rightLength);
+            if (rows == 0) {
+                return this;
+            }
+            int last = runCount - 1;
+            if (last >= 0 && changed[last] == isChanged && leftLength == rightLength
+                    && leftLengths[last] == rightLengths[last]) {
+                leftLengths[last] += leftLength;
+                rightLengths[last] += rightLength;
+                rowCount = Math.addExact(rowCount, rows);
+                leftCursor += leftLength;
+                rightCursor += rightLength;
+                return this;
+            }
+            if (runCount == rowStarts.length) {
+                int capacity = runCount * 2;
+                changed = Arrays.copyOf(changed, capacity);
+                leftStarts = Arrays.copyOf(leftStarts, capacity);
+                rightStarts = Arrays.copyOf(rightStarts, capacity);
+                leftLengths = Arrays.copyOf(leftLengths, capacity);
+                rightLengths = Arrays.copyOf(rightLengths, capacity);
+                rowStarts = Arrays.copyOf(rowStarts, capacity);
+            }
+            changed[runCount] = isChanged;
+            leftStarts[runCount] = leftCursor;
+            rightStarts[runCount] = rightCursor;
+            leftLengths[runCount] = leftLength;
+            rightLengths[runCount] = rightLength;
+            rowStarts[runCount] = rowCount;
+            runCount++;
+            rowCount = Math.addExact(rowCount, rows);
+            leftCursor += leftLength;
+            rightCursor += rightLength;
+            return this;
+        }
+
+        public RowAlignment build() {
+            return new RowAlignment(this);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.universaldiff.core.model;
+
+/**
+ * How keyed row comparisons such as CSV report a row whose key matches but whose cells differ.
+ */
+public enum RowDiffGranularity {
+    /**
+     * One hunk shows the whole left and right rows.
+     */
+    ROW,
+    /**
+     * One hunk records which columns changed and shows only those cells, old and new.
+     */
+    CELL;
+}
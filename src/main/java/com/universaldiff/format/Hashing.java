@@ -0,0 +1,42 @@
+package com.universaldiff.format;
+
+/**
+ * 64-bit hashing shared by the format differs. A string's hash depends only on its text, so hashes computed on
+ * either side of a comparison, or from streamed input, are comparable within one run; they are never persisted.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units of {@code value}.
+     */
+    public static long hashString(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Folds the next hash into a running hash; the order of values matters.
+     */
+    public static long combine(long hash, long value) {
+        return mix(hash * 0x9e3779b97f4a7c15L + value);
+    }
+
+    /**
+     * The MurmurHash3 {@code fmix64} finalizer, spreading every input bit over the whole result.
+     */
+    public static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
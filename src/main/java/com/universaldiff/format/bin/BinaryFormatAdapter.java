@@ -1,5 +1,8 @@
 package com.universaldiff.format.bin;
 
+import com.universaldiff.core.io.OutputFiles;
+import com.universaldiff.core.model.BinaryDiffMode;
+import com.universaldiff.core.model.ComparisonOptions;
 import com.universaldiff.core.model.DiffFragment;
 import com.universaldiff.core.model.DiffHunk;
 import com.universaldiff.core.model.DiffResult;
@@ -15,29 +18,59 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Formatter;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class BinaryFormatAdapter implements FormatAdapter {
 
     private static final Logger log = LoggerFactory.getLogger(BinaryFormatAdapter.class);
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+    /**
+     * Bytes listed in one rendered fragment; a hex line takes about 20 characters, so whole large ranges would
+     * not fit in a string.
+     */
+    static final int MAX_RENDERED_BYTES = 64 * 1024;
+    private static final Pattern EDIT_ID =
+            Pattern.compile("edit-0x([0-9a-fA-F]+)-len-(\\d+)-to-0x([0-9a-fA-F]+)-len-(\\d+)");
 
     private final FormatType format;
+    private final BinaryNormalizationMode normalizationMode;
 
     public BinaryFormatAdapter(FormatType format) {
+        this(format, BinaryNormalizationMode.IN_MEMORY);
+    }
+
+    public BinaryFormatAdapter(FormatType format, BinaryNormalizationMode normalizationMode) {
         if (format != FormatType.BIN && format != FormatType.HEX) {
             throw new IllegalArgumentException("BinaryFormatAdapter supports BIN or HEX only");
         }
         this.format = format;
+        this.normalizationMode = Objects.requireNonNull(normalizationMode, "normalizationMode");
     }
 
     @Override
     public NormalizedContent normalize(FileDescriptor descriptor) throws IOException {
+        if (normalizationMode == BinaryNormalizationMode.MEMORY_MAPPED) {
+            if (format == FormatType.BIN) {
+                return NormalizedContent.builder(format)
+                        .nativeModel(MappedByteSource.open(descriptor.getPath()))
+                        .encoding(descriptor.getEncoding())
+                        .build();
+            }
+            log.debug("HEX content has to be parsed; reading {} into memory", descriptor.getPath());
+        }
         byte[] bytes = switch (format) {
             case BIN -> Files.readAllBytes(descriptor.getPath());
             case HEX -> parseHex(Files.readString(descriptor.getPath(), descriptor.getEncoding()));
@@ -64,79 +97,140 @@ public class BinaryFormatAdapter implements FormatAdapter {
 
     @Override
     public DiffResult diff(NormalizedContent left, NormalizedContent right) {
+        return diffPositional(left, right, 1);
+    }
+
+    @Override
+    public DiffResult diff(NormalizedContent left, NormalizedContent right, ComparisonOptions options) {
+        if (options.binaryDiffMode() == BinaryDiffMode.POSITIONAL) {
+            return diffPositional(left, right, options.parallelism());
+        }
         Instant start = Instant.now();
-        byte[] leftBytes = left.getBinary();
-        byte[] rightBytes = right.getBinary();
+        ByteSource leftBytes = ByteSource.of(left);
+        ByteSource rightBytes = ByteSource.of(right);
         List<DiffHunk> hunks = new ArrayList<>();
-        int max = Math.max(leftBytes.length, rightBytes.length);
-        int index = 0;
-        while (index < max) {
-            byte leftValue = index < leftBytes.length ? leftBytes[index] : 0;
-            byte rightValue = index < rightBytes.length ? rightBytes[index] : 0;
-            boolean leftPresent = index < leftBytes.length;
-            boolean rightPresent = index < rightBytes.length;
-            if (!leftPresent || !rightPresent || leftValue != rightValue) {
-                int startOffset = index;
-                List<DiffFragment> fragments = new ArrayList<>();
-                StringBuilder leftBuilder = new StringBuilder();
-                StringBuilder rightBuilder = new StringBuilder();
-                while (index < max) {
-                    leftPresent = index < leftBytes.length;
-                    rightPresent = index < rightBytes.length;
-                    leftValue = leftPresent ? leftBytes[index] : 0;
-                    rightValue = rightPresent ? rightBytes[index] : 0;
-                    if (leftPresent && rightPresent && leftValue == rightValue) {
-                        break;
-                    }
-                    if (leftPresent) {
-                        leftBuilder.append(toHex(index, leftValue)).append(System.lineSeparator());
-                    }
-                    if (rightPresent) {
-                        rightBuilder.append(toHex(index, rightValue)).append(System.lineSeparator());
-                    }
-                    index++;
-                }
-                int endOffset = index - 1;
-                DiffType type;
-                if (startOffset >= leftBytes.length) {
-                    type = DiffType.INSERT;
-                } else if (startOffset >= rightBytes.length) {
-                    type = DiffType.DELETE;
-                } else {
-                    type = DiffType.MODIFY;
-                }
-                if (leftBuilder.length() > 0) {
-                    fragments.add(new DiffFragment(
-                            DiffSide.LEFT,
-                            startOffset,
-                            endOffset,
-                            leftBuilder.toString().trim()));
-                }
-                if (rightBuilder.length() > 0) {
-                    fragments.add(new DiffFragment(
-                            DiffSide.RIGHT,
-                            startOffset,
-                            endOffset,
-                            rightBuilder.toString().trim()));
-                }
-                int length = Math.max(1, endOffset - startOffset + 1);
-                hunks.add(DiffHunk.of(
-                        format.name().toLowerCase() + "-offset-0x" + Integer.toHexString(startOffset) + "-len-" + length,
-                        type,
-                        String.format("Offset 0x%08X (%d byte%s)", startOffset, length, length == 1 ? "" : "s"),
-                        fragments));
-            } else {
-                index++;
-            }
+        for (ByteEdit edit : BlockHashByteDiff.forLength(leftBytes.length()).diff(leftBytes, rightBytes)) {
+            hunks.add(toHunk(edit, leftBytes, rightBytes));
+        }
+        return new DiffResult(format, hunks, Duration.between(start, Instant.now()));
+    }
+
+    private DiffResult diffPositional(NormalizedContent left, NormalizedContent right, int parallelism) {
+        Instant start = Instant.now();
+        ByteSource leftBytes = ByteSource.of(left);
+        ByteSource rightBytes = ByteSource.of(right);
+        List<ByteRange> ranges = parallelism > 1
+                ? ParallelPositionalByteDiff.diff(leftBytes, rightBytes, parallelism, PositionalByteDiff.DEFAULT_WINDOW_SIZE)
+                : PositionalByteDiff.diff(leftBytes, rightBytes, PositionalByteDiff.DEFAULT_WINDOW_SIZE);
+        List<DiffHunk> hunks = new ArrayList<>(ranges.size());
+        for (ByteRange range : ranges) {
+            hunks.add(toHunk(range, leftBytes, rightBytes));
         }
         return new DiffResult(format, hunks, Duration.between(start, Instant.now()));
     }
 
-    private String toHex(int offset, byte value) {
-        try (Formatter formatter = new Formatter()) {
-            formatter.format("0x%08X : 0x%02X", offset, value & 0xFF);
-            return formatter.toString();
+    private DiffHunk toHunk(ByteEdit edit, ByteSource leftBytes, ByteSource rightBytes) {
+        List<DiffFragment> fragments = new ArrayList<>(2);
+        if (edit.leftLength() > 0) {
+            long from = edit.leftOffset();
+            long to = from + edit.leftLength();
+            fragments.add(DiffFragment.lazy(DiffSide.LEFT, fragmentPosition(from), fragmentPosition(to - 1),
+                    () -> renderHex(leftBytes, from, to)));
+        }
+        if (edit.rightLength() > 0) {
+            long from = edit.rightOffset();
+            long to = from + edit.rightLength();
+            fragments.add(DiffFragment.lazy(DiffSide.RIGHT, fragmentPosition(from), fragmentPosition(to - 1),
+                    () -> renderHex(rightBytes, from, to)));
+        }
+        String summary = switch (edit.type()) {
+            case INSERT -> String.format("Insert %s at 0x%08X", describeBytes(edit.rightLength()), edit.leftOffset());
+            case DELETE -> String.format("Delete %s at 0x%08X", describeBytes(edit.leftLength()), edit.leftOffset());
+            default -> String.format("Replace %s at 0x%08X with %s",
+                    describeBytes(edit.leftLength()), edit.leftOffset(), describeBytes(edit.rightLength()));
+        };
+        return DiffHunk.of(
+                format.name().toLowerCase() + "-edit-0x" + Long.toHexString(edit.leftOffset()) + "-len-" + edit.leftLength()
+                        + "-to-0x" + Long.toHexString(edit.rightOffset()) + "-len-" + edit.rightLength(),
+                edit.type(),
+                summary,
+                fragments);
+    }
+
+    private int fragmentPosition(long offset) {
+        return (int) Math.min(offset, Integer.MAX_VALUE);
+    }
+
+    private String describeBytes(long length) {
+        return length + (length == 1 ? " byte" : " bytes");
+    }
+
+    private DiffHunk toHunk(ByteRange range, ByteSource leftBytes, ByteSource rightBytes) {
+        long startOffset = range.offset();
+        long endOffset = range.end() - 1;
+        // Fragment positions are ints; the hunk id carries the exact offset of ranges beyond 2 GB.
+        int fragmentStart = (int) Math.min(startOffset, Integer.MAX_VALUE);
+        int fragmentEnd = (int) Math.min(endOffset, Integer.MAX_VALUE);
+        List<DiffFragment> fragments = new ArrayList<>(2);
+        // Hex listings can dwarf the inputs, so they are only rendered when a fragment is displayed.
+        if (startOffset < leftBytes.length()) {
+            long leftEnd = Math.min(range.end(), leftBytes.length());
+            fragments.add(DiffFragment.lazy(DiffSide.LEFT, fragmentStart, fragmentEnd,
+                    () -> renderHex(leftBytes, startOffset, leftEnd)));
+        }
+        if (startOffset < rightBytes.length()) {
+            long rightEnd = Math.min(range.end(), rightBytes.length());
+            fragments.add(DiffFragment.lazy(DiffSide.RIGHT, fragmentStart, fragmentEnd,
+                    () -> renderHex(rightBytes, startOffset, rightEnd)));
+        }
+        DiffType type;
+        if (startOffset >= leftBytes.length()) {
+            type = DiffType.INSERT;
+        } else if (startOffset >= rightBytes.length()) {
+            type = DiffType.DELETE;
+        } else {
+            type = DiffType.MODIFY;
         }
+        long length = range.length();
+        return DiffHunk.of(
+                format.name().toLowerCase() + "-offset-0x" + Long.toHexString(startOffset) + "-len-" + length,
+                type,
+                String.format("Offset 0x%08X (%d byte%s)", startOffset, length, length == 1 ? "" : "s"),
+                fragments);
+    }
+
+    static String renderHex(byte[] bytes, int from, int to) {
+        return renderHex(ByteSource.of(bytes), from, to);
+    }
+
+    /**
+     * Renders one {@code 0xOFFSET : 0xVALUE} line per byte in {@code [from, to)}, up to
+     * {@link #MAX_RENDERED_BYTES} lines followed by a line counting the bytes left out.
+     */
+    static String renderHex(ByteSource bytes, long from, long to) {
+        return renderHex(bytes, from, to, MAX_RENDERED_BYTES);
+    }
+
+    static String renderHex(ByteSource bytes, long from, long to, int maxBytes) {
+        String separator = System.lineSeparator();
+        int count = (int) Math.min(to - from, maxBytes);
+        StringBuilder builder = new StringBuilder(count * (19 + separator.length()) + 32);
+        ByteBuffer window = bytes.window(from, count);
+        for (int i = 0; i < count; i++) {
+            long offset = from + i;
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append("0x")
+                    .append(offset <= 0xFFFFFFFFL ? HEX.toHexDigits((int) offset) : HEX.toHexDigits(offset))
+                    .append(" : 0x");
+            HEX.toHexDigits(builder, window.get(i));
+        }
+        long omitted = to - from - count;
+        if (omitted > 0) {
+            builder.append(separator).append("... ").append(omitted).append(omitted == 1 ? " more byte" : " more bytes");
+        }
+        return builder.toString();
     }
 
     @Override
@@ -145,56 +239,180 @@ public class BinaryFormatAdapter implements FormatAdapter {
                              List<MergeDecision> decisions,
                              Path outputPath) throws IOException {
         Instant start = Instant.now();
-        byte[] leftBytes = left.getBinary();
-        byte[] rightBytes = right.getBinary();
-        byte[] merged = java.util.Arrays.copyOf(leftBytes, Math.max(leftBytes.length, rightBytes.length));
+        ByteSource leftBytes = ByteSource.of(left);
+        ByteSource rightBytes = ByteSource.of(right);
+        long mergedLength = Math.max(leftBytes.length(), rightBytes.length());
+        List<Patch> patches = new ArrayList<>();
+        List<Splice> splices = new ArrayList<>();
         for (MergeDecision decision : decisions) {
+            ByteEdit edit = parseEdit(decision.getHunkId());
+            if (edit != null) {
+                addSplice(splices, decision, edit, leftBytes, rightBytes);
+                continue;
+            }
             switch (decision.getChoice()) {
                 case TAKE_LEFT -> {
                     // already left, nothing to do
                 }
-                case TAKE_RIGHT -> applyBinaryDecision(merged, rightBytes, decision.getHunkId());
-                case MANUAL -> applyManualBinary(merged, decision.getHunkId(), decision.getManualContent());
+                case TAKE_RIGHT -> addRightPatch(patches, rightBytes, mergedLength, decision.getHunkId());
+                case MANUAL -> addManualPatch(patches, mergedLength, decision.getHunkId(), decision.getManualContent());
             }
         }
+        if (!splices.isEmpty() && !patches.isEmpty()) {
+            throw new IllegalArgumentException("Positional and content-defined binary hunks cannot be merged together");
+        }
         if (outputPath != null) {
-            Files.write(outputPath, merged);
+            if (splices.isEmpty()) {
+                writeMerged(outputPath, leftBytes, mergedLength, patches);
+            } else {
+                writeSpliced(outputPath, leftBytes, splices);
+            }
         }
         return new MergeResult(format, outputPath, Duration.between(start, Instant.now()));
     }
 
-    private void applyBinaryDecision(byte[] target, byte[] source, String hunkId) {
-        Range range = parseRange(hunkId);
-        if (range == null) {
+    private void addSplice(List<Splice> splices,
+                           MergeDecision decision,
+                           ByteEdit edit,
+                           ByteSource leftBytes,
+                           ByteSource rightBytes) {
+        if (edit.leftOffset() + edit.leftLength() > leftBytes.length()
+                || edit.rightOffset() + edit.rightLength() > rightBytes.length()) {
+            log.debug("Binary hunk {} does not fit the compared content", decision.getHunkId());
             return;
         }
-        // Note: the merged buffer is the caller's array; we never grow it here to preserve original length.
-        for (int i = 0; i < range.length; i++) {
-            int offset = range.offset + i;
-            if (offset < target.length && offset < source.length) {
-                target[offset] = source[offset];
+        switch (decision.getChoice()) {
+            case TAKE_LEFT -> {
+                // already left, nothing to do
+            }
+            case TAKE_RIGHT -> splices.add(new Splice(edit.leftOffset(), edit.leftLength(),
+                    rightBytes, edit.rightOffset(), edit.rightLength()));
+            case MANUAL -> {
+                String manualContent = decision.getManualContent();
+                if (manualContent != null && !manualContent.isBlank()) {
+                    byte[] manualBytes = parseHex(manualContent);
+                    splices.add(new Splice(edit.leftOffset(), edit.leftLength(),
+                            ByteSource.of(manualBytes), 0, manualBytes.length));
+                }
             }
         }
     }
 
-    private void applyManualBinary(byte[] target, String hunkId, String manualContent) {
+    /**
+     * Streams the left side into the output, replacing each spliced left range with its replacement bytes.
+     */
+    private void writeSpliced(Path outputPath, ByteSource left, List<Splice> splices) throws IOException {
+        List<Splice> ordered = new ArrayList<>(splices);
+        ordered.sort(Comparator.comparingLong(Splice::leftOffset));
+        writeReplacing(outputPath, channel -> {
+            long cursor = 0;
+            for (Splice splice : ordered) {
+                if (splice.leftOffset() < cursor) {
+                    log.debug("Skipping binary splice at 0x{} overlapping an earlier decision",
+                            Long.toHexString(splice.leftOffset()));
+                    continue;
+                }
+                copy(channel, left, cursor, splice.leftOffset());
+                copy(channel, splice.source(), splice.sourceOffset(), splice.sourceOffset() + splice.sourceLength());
+                cursor = splice.leftOffset() + splice.leftLength();
+            }
+            copy(channel, left, cursor, left.length());
+        });
+    }
+
+    private void copy(FileChannel channel, ByteSource source, long from, long to) throws IOException {
+        for (long position = from; position < to; position += PositionalByteDiff.DEFAULT_WINDOW_SIZE) {
+            ByteBuffer window = source.window(position, (int) Math.min(PositionalByteDiff.DEFAULT_WINDOW_SIZE, to - position));
+            while (window.hasRemaining()) {
+                channel.write(window);
+            }
+        }
+    }
+
+    private void addRightPatch(List<Patch> patches, ByteSource source, long mergedLength, String hunkId) {
+        ByteRange range = parseRange(hunkId);
+        if (range == null) {
+            return;
+        }
+        // The merged output keeps the longer side's length; ranges never grow it.
+        long end = Math.min(range.end(), Math.min(mergedLength, source.length()));
+        for (long offset = range.offset(); offset < end; offset += PositionalByteDiff.DEFAULT_WINDOW_SIZE) {
+            int length = (int) Math.min(PositionalByteDiff.DEFAULT_WINDOW_SIZE, end - offset);
+            patches.add(new Patch(offset, source.window(offset, length)));
+        }
+    }
+
+    private void addManualPatch(List<Patch> patches, long mergedLength, String hunkId, String manualContent) {
         if (manualContent == null || manualContent.isBlank()) {
             return;
         }
-        Range range = parseRange(hunkId);
+        ByteRange range = parseRange(hunkId);
         if (range == null) {
             return;
         }
         byte[] manualBytes = parseHex(manualContent);
-        for (int i = 0; i < manualBytes.length && i < range.length; i++) {
-            int offset = range.offset + i;
-            if (offset < target.length) {
-                target[offset] = manualBytes[i];
+        long length = Math.min(Math.min(manualBytes.length, range.length()), Math.max(0, mergedLength - range.offset()));
+        if (length > 0) {
+            patches.add(new Patch(range.offset(), ByteBuffer.wrap(manualBytes, 0, (int) length)));
+        }
+    }
+
+    private void writeMerged(Path outputPath, ByteSource left, long mergedLength, List<Patch> patches) throws IOException {
+        writeReplacing(outputPath, channel -> {
+            for (long position = 0; position < left.length(); position += PositionalByteDiff.DEFAULT_WINDOW_SIZE) {
+                int length = (int) Math.min(PositionalByteDiff.DEFAULT_WINDOW_SIZE, left.length() - position);
+                writeFully(channel, left.window(position, length), position);
             }
+            if (mergedLength > left.length()) {
+                // Bytes only the right side has start out zeroed, as in an extended array.
+                writeFully(channel, ByteBuffer.allocate(1), mergedLength - 1);
+            }
+            for (Patch patch : patches) {
+                writeFully(channel, patch.bytes().duplicate(), patch.offset());
+            }
+        });
+    }
+
+    /**
+     * Writes the merged bytes through {@link OutputFiles#writeReplacing}: the inputs may be mapped files and the
+     * output may be one of them, so the output must not be truncated while the merge still reads from it.
+     */
+    private void writeReplacing(Path outputPath, ChannelWriter writer) throws IOException {
+        OutputFiles.writeReplacing(outputPath, file -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                writer.write(channel);
+            }
+        });
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
         }
     }
 
-    private Range parseRange(String hunkId) {
+    private ByteEdit parseEdit(String hunkId) {
+        if (hunkId == null) {
+            return null;
+        }
+        Matcher matcher = EDIT_ID.matcher(hunkId);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return new ByteEdit(
+                    Long.parseLong(matcher.group(1), 16),
+                    Long.parseLong(matcher.group(2)),
+                    Long.parseLong(matcher.group(3), 16),
+                    Long.parseLong(matcher.group(4)));
+        } catch (IllegalArgumentException ex) {
+            log.debug("Failed to parse binary edit from id '{}': {}", hunkId, ex.getMessage());
+            return null;
+        }
+    }
+
+    private ByteRange parseRange(String hunkId) {
         if (hunkId == null) {
             return null;
         }
@@ -206,15 +424,21 @@ public class BinaryFormatAdapter implements FormatAdapter {
             return null;
         }
         try {
-            int offset = Integer.parseInt(matcher.group(1), 16);
-            int length = Integer.parseInt(matcher.group(2));
-            return new Range(offset, length);
-        } catch (NumberFormatException ex) {
+            long offset = Long.parseLong(matcher.group(1), 16);
+            long length = Long.parseLong(matcher.group(2));
+            return new ByteRange(offset, length);
+        } catch (IllegalArgumentException ex) {
             log.debug("Failed to parse binary hunk range from id '{}': {}", hunkId, ex.getMessage());
             return null;
         }
     }
 
-    private record Range(int offset, int length) {}
+    private interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private record Patch(long offset, ByteBuffer bytes) {}
+
+    private record Splice(long leftOffset, long leftLength, ByteSource source, long sourceOffset, long sourceLength) {}
 }
 
@@ -0,0 +1,16 @@
+package com.universaldiff.format.bin;
+
+/**
+ * Controls how {@link BinaryFormatAdapter} loads BIN content during normalization.
+ */
+public enum BinaryNormalizationMode {
+    /**
+     * Reads the whole file into a heap byte array; limited to files below 2 GB.
+     */
+    IN_MEMORY,
+    /**
+     * Memory-maps the file in read-only segments and compares it window by window without copying it to the heap.
+     * HEX content is always parsed into memory.
+     */
+    MEMORY_MAPPED;
+}
@@ -0,0 +1,261 @@
+package com.universaldiff.format.bin;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Content-defined byte diff in the style of rsync. The left side is cut into fixed blocks indexed by a weak
+ * rolling checksum; a window rolls over the right side one byte at a time and every checksum hit is confirmed
+ * against the left bytes. Confirmed blocks are grown byte by byte in both directions, so the gaps left between
+ * matches sit exactly on the inserted, deleted or replaced bytes.
+ */
+final class BlockHashByteDiff {
+
+    static final int MIN_BLOCK_SIZE = 32;
+    static final int MAX_BLOCK_SIZE = 1 << 16;
+
+    private static final int COMPARE_CHUNK = 1 << 16;
+
+    private final int blockSize;
+
+    private BlockHashByteDiff(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Picks a block size near the square root of the left length, which balances index size against match
+     * granularity.
+     */
+    static BlockHashByteDiff forLength(long leftLength) {
+        long root = (long) Math.sqrt((double) leftLength);
+        return new BlockHashByteDiff((int) Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, root)));
+    }
+
+    static BlockHashByteDiff withBlockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        return new BlockHashByteDiff(blockSize);
+    }
+
+    List<ByteEdit> diff(ByteSource left, ByteSource right) {
+        BlockIndex index = BlockIndex.build(left, blockSize);
+        List<ByteEdit> edits = new ArrayList<>();
+        ByteReader head = new ByteReader(right);
+        ByteReader tail = new ByteReader(right);
+        ByteReader leftReader = new ByteReader(left);
+        long leftLength = left.length();
+        long rightLength = right.length();
+        long leftDone = 0;
+        long rightDone = 0;
+        long position = rightDone;
+        boolean rolling = false;
+        int a = 0;
+        int b = 0;
+        while (index.blockCount() > 0 && position + blockSize <= rightLength) {
+            if (!rolling) {
+                a = 0;
+                b = 0;
+                for (int i = 0; i < blockSize; i++) {
+                    int value = head.get(position + i);
+                    a += value;
+                    b += (blockSize - i) * value;
+                }
+                rolling = true;
+            }
+            long leftMatch = index.find(checksum(a, b), left, leftDone, right, position,
+                    leftDone + (position - rightDone));
+            if (leftMatch >= 0) {
+                long leftStart = leftMatch;
+                long rightStart = position;
+                while (leftStart > leftDone && rightStart > rightDone
+                        && leftReader.get(leftStart - 1) == tail.get(rightStart - 1)) {
+                    leftStart--;
+                    rightStart--;
+                }
+                long length = position - rightStart + blockSize
+                        + matchForward(left, leftMatch + blockSize, right, position + blockSize, Long.MAX_VALUE);
+                addGap(edits, left, leftDone, leftStart, right, rightDone, rightStart);
+                leftDone = leftStart + length;
+                rightDone = rightStart + length;
+                position = rightDone;
+                rolling = false;
+                continue;
+            }
+            if (position + blockSize >= rightLength) {
+                break;
+            }
+            int outgoing = tail.get(position);
+            int incoming = head.get(position + blockSize);
+            a += incoming - outgoing;
+            b += a - blockSize * outgoing;
+            position++;
+        }
+        addGap(edits, left, leftDone, leftLength, right, rightDone, rightLength);
+        return edits;
+    }
+
+    /**
+     * Records the unmatched bytes between two matches, less any equal head or tail that no block covered.
+     */
+    private static void addGap(List<ByteEdit> edits,
+                               ByteSource left, long leftFrom, long leftTo,
+                               ByteSource right, long rightFrom, long rightTo) {
+        long head = matchForward(left, leftFrom, right, rightFrom, Math.min(leftTo - leftFrom, rightTo - rightFrom));
+        leftFrom += head;
+        rightFrom += head;
+        while (leftTo > leftFrom && rightTo > rightFrom
+                && left.window(leftTo - 1, 1).get(0) == right.window(rightTo - 1, 1).get(0)) {
+            leftTo--;
+            rightTo--;
+        }
+        if (leftTo > leftFrom || rightTo > rightFrom) {
+            edits.add(new ByteEdit(leftFrom, leftTo - leftFrom, rightFrom, rightTo - rightFrom));
+        }
+    }
+
+    private static int checksum(int a, int b) {
+        return (a & 0xFFFF) | (b << 16);
+    }
+
+    /**
+     * Counts equal bytes starting at the given offsets, up to {@code maxLength}.
+     */
+    static long matchForward(ByteSource left, long leftFrom, ByteSource right, long rightFrom, long maxLength) {
+        long matched = 0;
+        long limit = Math.min(maxLength, Math.min(left.length() - leftFrom, right.length() - rightFrom));
+        while (matched < limit) {
+            int chunk = (int) Math.min(COMPARE_CHUNK, limit - matched);
+            int mismatch = left.window(leftFrom + matched, chunk).mismatch(right.window(rightFrom + matched, chunk));
+            if (mismatch >= 0) {
+                return matched + mismatch;
+            }
+            matched += chunk;
+        }
+        return matched;
+    }
+
+    /**
+     * Weak checksums of the left blocks in an open-addressing table; blocks sharing a slot are chained in block
+     * order, so the earliest usable block is found first.
+     */
+    private static final class BlockIndex {
+        private static final int MAX_CANDIDATES = 64;
+
+        private final int blockSize;
+        private final int[] checksums;
+        private final int[] heads;
+        private final int[] next;
+        private final int mask;
+
+        private BlockIndex(int blockSize, int[] checksums, int[] heads, int[] next, int mask) {
+            this.blockSize = blockSize;
+            this.checksums = checksums;
+            this.heads = heads;
+            this.next = next;
+            this.mask = mask;
+        }
+
+        static BlockIndex build(ByteSource left, int blockSize) {
+            int blocks = (int) Math.min(Integer.MAX_VALUE - 8, left.length() / blockSize);
+            int[] checksums = new int[blocks];
+            int capacity = Integer.highestOneBit(Math.max(1, blocks * 2 - 1)) << 1;
+            int[] heads = new int[capacity];
+            int[] tails = new int[capacity];
+            int[] next = new int[blocks];
+            Arrays.fill(heads, -1);
+            Arrays.fill(next, -1);
+            int mask = capacity - 1;
+            for (int block = 0; block < blocks; block++) {
+                ByteBuffer window = left.window((long) block * blockSize, blockSize);
+                int a = 0;
+                int b = 0;
+                for (int i = 0; i < blockSize; i++) {
+                    int value = window.get(i) & 0xFF;
+                    a += value;
+                    b += (blockSize - i) * value;
+                }
+                int checksum = checksum(a, b);
+                checksums[block] = checksum;
+                int slot = slot(checksum, mask);
+                if (heads[slot] < 0) {
+                    heads[slot] = block;
+                } else {
+                    next[tails[slot]] = block;
+                }
+                tails[slot] = block;
+            }
+            return new BlockIndex(blockSize, checksums, heads, next, mask);
+        }
+
+        int blockCount() {
+            return checksums.length;
+        }
+
+        /**
+         * Returns the left offset of bytes equal to the right window at {@code rightOffset}, or {@code -1}.
+         * On a checksum hit the bytes at {@code preferred}, which would continue the previous match, are tried
+         * first; then indexed blocks at or after {@code leftFloor} in left order, visiting at most
+         * {@link #MAX_CANDIDATES} chain entries.
+         * <p>
+         * {@code leftFloor} must not decrease between calls. Blocks below it can never match again, so they are
+         * unlinked from the head of their chain as they are passed and every block is skipped at most once.
+         */
+        long find(int checksum, ByteSource left, long leftFloor, ByteSource right, long rightOffset, long preferred) {
+            int slot = slot(checksum, mask);
+            int block = heads[slot];
+            while (block >= 0 && (long) block * blockSize < leftFloor) {
+                block = next[block];
+            }
+            heads[slot] = block;
+            while (block >= 0 && checksums[block] != checksum) {
+                block = next[block];
+            }
+            if (block < 0) {
+                return -1;
+            }
+            ByteBuffer window = right.window(rightOffset, blockSize);
+            if (preferred >= leftFloor && preferred + blockSize <= left.length()
+                    && left.window(preferred, blockSize).mismatch(window) < 0) {
+                return preferred;
+            }
+            for (int visited = 0; block >= 0 && visited < MAX_CANDIDATES; block = next[block], visited++) {
+                long offset = (long) block * blockSize;
+                if (checksums[block] == checksum && left.window(offset, blockSize).mismatch(window) < 0) {
+                    return offset;
+                }
+            }
+            return -1;
+        }
+
+        private static int slot(int checksum, int mask) {
+            int hash = checksum * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+
+    /**
+     * Sequential byte access over a {@link ByteSource} through a cached window.
+     */
+    private static final class ByteReader {
+        private static final int WINDOW = 1 << 16;
+
+        private final ByteSource source;
+        private ByteBuffer window;
+        private long windowStart = -1;
+
+        private ByteReader(ByteSource source) {
+            this.source = source;
+        }
+
+        int get(long position) {
+            if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+                windowStart = Math.max(0, position - WINDOW / 2);
+                window = source.window(windowStart, (int) Math.min(WINDOW, source.length() - windowStart));
+            }
+            return window.get((int) (position - windowStart)) & 0xFF;
+        }
+    }
+}
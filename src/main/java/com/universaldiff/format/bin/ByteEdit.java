@@ -0,0 +1,27 @@
+package com.universaldiff.format.bin;
+
+import com.universaldiff.core.model.DiffType;
+
+/**
+ * Replaces {@code leftLength} bytes at {@code leftOffset} with {@code rightLength} bytes taken from
+ * {@code rightOffset}; one side may be empty for pure insertions and deletions.
+ */
+record ByteEdit(long leftOffset, long leftLength, long rightOffset, long rightLength) {
+
+    ByteEdit {
+        if (leftOffset < 0 || rightOffset < 0 || leftLength < 0 || rightLength < 0 || leftLength + rightLength == 0) {
+            throw new IllegalArgumentException("Invalid byte edit " + leftOffset + "+" + leftLength
+                    + " -> " + rightOffset + "+" + rightLength);
+        }
+    }
+
+    DiffType type() {
+        if (leftLength == 0) {
+            return DiffType.INSERT;
+        }
+        if (rightLength == 0) {
+            return DiffType.DELETE;
+        }
+        return DiffType.MODIFY;
+    }
+}
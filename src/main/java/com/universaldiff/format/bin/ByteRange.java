@@ -0,0 +1,18 @@
+package com.universaldiff.format.bin;
+
+/**
+ * Differing byte range of a binary comparison, in file offsets.
+ * Positions past the end of the shorter side count as differing.
+ */
+record ByteRange(long offset, long length) {
+
+    ByteRange {
+        if (offset < 0 || length <= 0) {
+            throw new IllegalArgumentException("Invalid byte range at " + offset + " of length " + length);
+        }
+    }
+
+    long end() {
+        return offset + length;
+    }
+}
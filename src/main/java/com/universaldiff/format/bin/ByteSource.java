@@ -0,0 +1,41 @@
+package com.universaldiff.format.bin;
+
+import com.universaldiff.core.model.NormalizedContent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Random-access, read-only bytes of one side of a binary comparison, addressed with 64-bit offsets.
+ */
+interface ByteSource {
+
+    long length();
+
+    /**
+     * Returns a read-only buffer over {@code [position, position + length)} whose position is zero.
+     * Windows that stay inside one backing segment share memory with the source instead of copying it.
+     */
+    ByteBuffer window(long position, int length);
+
+    static ByteSource of(byte[] bytes) {
+        return new ByteSource() {
+            @Override
+            public long length() {
+                return bytes.length;
+            }
+
+            @Override
+            public ByteBuffer window(long position, int length) {
+                return ByteBuffer.wrap(bytes, (int) position, length).slice().asReadOnlyBuffer();
+            }
+        };
+    }
+
+    static ByteSource of(NormalizedContent content) {
+        if (content.getNativeModel() instanceof ByteSource source) {
+            return source;
+        }
+        byte[] bytes = content.getBinary();
+        return of(bytes == null ? new byte[0] : bytes);
+    }
+}
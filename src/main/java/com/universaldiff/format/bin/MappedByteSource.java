@@ -0,0 +1,88 @@
+package com.universaldiff.format.bin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * {@link ByteSource} over a file mapped in fixed-size read-only segments, so files beyond 2 GB never touch the heap.
+ * <p>
+ * The JDK cannot unmap a file explicitly: a mapping, and on Windows the lock on its file, lasts until the buffers
+ * and every window sliced from them are garbage collected. {@link #close()} drops this source's references so
+ * that happens once the session that read the file ends; windows cannot be taken afterwards.
+ */
+final class MappedByteSource implements ByteSource, Closeable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private volatile MappedByteBuffer[] segments;
+    private final int segmentSize;
+    private final long length;
+
+    private MappedByteSource(MappedByteBuffer[] segments, int segmentSize, long length) {
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.length = length;
+    }
+
+    static MappedByteSource open(Path path) throws IOException {
+        return open(path, DEFAULT_SEGMENT_SIZE);
+    }
+
+    static MappedByteSource open(Path path, int segmentSize) throws IOException {
+        Objects.requireNonNull(path, "path");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) ((size + segmentSize - 1) / segmentSize);
+            MappedByteBuffer[] segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long position = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+            }
+            return new MappedByteSource(segments, segmentSize, size);
+        }
+    }
+
+    int segmentSize() {
+        return segmentSize;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public ByteBuffer window(long position, int windowLength) {
+        Objects.checkFromIndexSize(position, windowLength, length);
+        MappedByteBuffer[] segments = this.segments;
+        if (segments == null) {
+            throw new IllegalStateException("Mapped byte source is closed");
+        }
+        int segment = (int) (position / segmentSize);
+        int offset = (int) (position % segmentSize);
+        if (offset + windowLength <= segments[segment].limit()) {
+            return segments[segment].slice(offset, windowLength).asReadOnlyBuffer();
+        }
+        ByteBuffer copy = ByteBuffer.allocate(windowLength);
+        long current = position;
+        while (copy.hasRemaining()) {
+            MappedByteBuffer source = segments[(int) (current / segmentSize)];
+            int sourceOffset = (int) (current % segmentSize);
+            int chunk = Math.min(copy.remaining(), source.limit() - sourceOffset);
+            copy.put(source.slice(sourceOffset, chunk));
+            current += chunk;
+        }
+        return copy.flip().asReadOnlyBuffer();
+    }
+
+    @Override
+    public void close() {
+        segments = null;
+    }
+}
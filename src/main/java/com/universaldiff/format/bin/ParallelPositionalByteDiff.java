@@ -0,0 +1,71 @@
+package com.universaldiff.format.bin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Positional byte comparison split into aligned segments that run on a {@link ForkJoinPool}.
+ * Segment results are stitched in offset order, so the ranges are identical to {@link PositionalByteDiff}'s.
+ */
+final class ParallelPositionalByteDiff {
+
+    /**
+     * Segments below this size are not worth a task of their own.
+     */
+    static final long MIN_SEGMENT_SIZE = 1 << 20;
+
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    private ParallelPositionalByteDiff() {
+    }
+
+    static List<ByteRange> diff(ByteSource left, ByteSource right, int parallelism, int windowSize) {
+        return diff(left, right, parallelism, windowSize, MIN_SEGMENT_SIZE);
+    }
+
+    static List<ByteRange> diff(ByteSource left, ByteSource right, int parallelism, int windowSize, long minSegmentSize) {
+        long common = Math.min(left.length(), right.length());
+        long segmentSize = Math.max(minSegmentSize, ceilDiv(common, (long) parallelism * SEGMENTS_PER_THREAD));
+        if (parallelism == 1 || segmentSize >= common) {
+            return PositionalByteDiff.diff(left, right, windowSize);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<List<ByteRange>>> segments = new ArrayList<>();
+            for (long from = 0; from < common; from += segmentSize) {
+                long segmentFrom = from;
+                long segmentTo = Math.min(common, from + segmentSize);
+                segments.add(pool.submit(() -> PositionalByteDiff.compare(left, right, segmentFrom, segmentTo, windowSize)));
+            }
+            List<ByteRange> ranges = new ArrayList<>();
+            for (ForkJoinTask<List<ByteRange>> segment : segments) {
+                stitch(ranges, segment.join());
+            }
+            return PositionalByteDiff.withTail(ranges, left, right);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Appends a segment's ranges, joining a run that ends on the segment boundary with one that starts on it.
+     */
+    static void stitch(List<ByteRange> ranges, List<ByteRange> segment) {
+        int from = 0;
+        if (!ranges.isEmpty() && !segment.isEmpty()) {
+            ByteRange last = ranges.get(ranges.size() - 1);
+            ByteRange first = segment.get(0);
+            if (last.end() == first.offset()) {
+                ranges.set(ranges.size() - 1, new ByteRange(last.offset(), last.length() + first.length()));
+                from = 1;
+            }
+        }
+        ranges.addAll(segment.subList(from, segment.size()));
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
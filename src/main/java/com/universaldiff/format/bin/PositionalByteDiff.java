@@ -0,0 +1,102 @@
+package com.universaldiff.format.bin;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offset-for-offset byte comparison over fixed-size windows of both sources. Equal stretches are skipped with
+ * {@link ByteBuffer#mismatch}, which the JDK vectorizes; differing stretches are scanned eight bytes at a time for
+ * the next equal byte. Runs that span window boundaries are reported as one range.
+ */
+final class PositionalByteDiff {
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 24;
+
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private PositionalByteDiff() {
+    }
+
+    static List<ByteRange> diff(byte[] left, byte[] right) {
+        return diff(ByteSource.of(left), ByteSource.of(right), DEFAULT_WINDOW_SIZE);
+    }
+
+    static List<ByteRange> diff(ByteSource left, ByteSource right, int windowSize) {
+        long common = Math.min(left.length(), right.length());
+        return withTail(compare(left, right, 0, common, windowSize), left, right);
+    }
+
+    /**
+     * Compares {@code [from, to)}, which must lie within both sources; runs are clipped to the region.
+     */
+    static List<ByteRange> compare(ByteSource left, ByteSource right, long from, long to, int windowSize) {
+        List<ByteRange> ranges = new ArrayList<>();
+        long runStart = -1;
+        for (long position = from; position < to; position += windowSize) {
+            int length = (int) Math.min(windowSize, to - position);
+            ByteBuffer leftWindow = left.window(position, length).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer rightWindow = right.window(position, length).order(ByteOrder.LITTLE_ENDIAN);
+            int index = 0;
+            while (index < length) {
+                if (runStart < 0) {
+                    int mismatch = leftWindow.slice(index, length - index).mismatch(rightWindow.slice(index, length - index));
+                    if (mismatch < 0) {
+                        break;
+                    }
+                    index += mismatch;
+                    runStart = position + index;
+                }
+                index = firstEqual(leftWindow, rightWindow, index, length);
+                if (index < length) {
+                    ranges.add(new ByteRange(runStart, position + index - runStart));
+                    runStart = -1;
+                }
+            }
+        }
+        if (runStart >= 0) {
+            ranges.add(new ByteRange(runStart, to - runStart));
+        }
+        return ranges;
+    }
+
+    /**
+     * Adds the bytes only the longer side has; a run that reaches the end of the shorter side continues into them.
+     */
+    static List<ByteRange> withTail(List<ByteRange> commonRanges, ByteSource left, ByteSource right) {
+        long common = Math.min(left.length(), right.length());
+        long max = Math.max(left.length(), right.length());
+        if (common == max) {
+            return commonRanges;
+        }
+        List<ByteRange> ranges = new ArrayList<>(commonRanges);
+        ByteRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+        if (last != null && last.end() == common) {
+            ranges.set(ranges.size() - 1, new ByteRange(last.offset(), max - last.offset()));
+        } else {
+            ranges.add(new ByteRange(common, max - common));
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns the first index in {@code [from, to)} holding the same byte in both little-endian buffers, or {@code to}.
+     */
+    static int firstEqual(ByteBuffer left, ByteBuffer right, int from, int to) {
+        int index = from;
+        while (index + Long.BYTES <= to) {
+            long xor = left.getLong(index) ^ right.getLong(index);
+            long zeroBytes = (xor - LOW_BITS) & ~xor & HIGH_BITS;
+            if (zeroBytes != 0) {
+                return index + (Long.numberOfTrailingZeros(zeroBytes) >>> 3);
+            }
+            index += Long.BYTES;
+        }
+        while (index < to && left.get(index) != right.get(index)) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,85 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.core.model.DiffSide;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The cells that differ between a matched left and right row: a bitset of changed column indices and the old and
+ * new value of each, in column order. Nothing else of the rows is kept, and text is only built when rendered.
+ */
+final class CellChanges {
+    private final List<String> headers;
+    private final BitSet columns;
+    private final String[] leftValues;
+    private final String[] rightValues;
+
+    private CellChanges(List<String> headers, BitSet columns, String[] leftValues, String[] rightValues) {
+        this.headers = headers;
+        this.columns = columns;
+        this.leftValues = leftValues;
+        this.rightValues = rightValues;
+    }
+
+    /**
+     * Compares two rows cell by cell; a column only one row has counts as changed, its missing cell as empty.
+     */
+    static CellChanges between(List<String> headers, String[] left, String[] right) {
+        int width = Math.max(left.length, right.length);
+        BitSet columns = new BitSet(width);
+        for (int c = 0; c < width; c++) {
+            if (!cell(left, c).equals(cell(right, c))) {
+                columns.set(c);
+            }
+        }
+        String[] leftValues = new String[columns.cardinality()];
+        String[] rightValues = new String[leftValues.length];
+        int i = 0;
+        for (int c = columns.nextSetBit(0); c >= 0; c = columns.nextSetBit(c + 1)) {
+            leftValues[i] = cell(left, c);
+            rightValues[i++] = cell(right, c);
+        }
+        return new CellChanges(headers, columns, leftValues, rightValues);
+    }
+
+    /**
+     * Builds the changes from columns already known to differ and the values read for them.
+     */
+    static CellChanges of(List<String> headers, BitSet columns, String[] leftValues, String[] rightValues) {
+        return new CellChanges(headers, columns, leftValues, rightValues);
+    }
+
+    int changedCount() {
+        return leftValues.length;
+    }
+
+    int firstColumn() {
+        return columns.nextSetBit(0);
+    }
+
+    int lastColumn() {
+        return columns.length() - 1;
+    }
+
+    /**
+     * Renders one side's changed cells as {@code header=value | header=value}.
+     */
+    String render(DiffSide side) {
+        String[] values = side == DiffSide.LEFT ? leftValues : rightValues;
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        for (int c = columns.nextSetBit(0); c >= 0; c = columns.nextSetBit(c + 1)) {
+            if (i > 0) {
+                builder.append(" | ");
+            }
+            String header = c < headers.size() ? headers.get(c) : "col" + (c + 1);
+            builder.append(header).append("=").append(values[i++]);
+        }
+        return builder.toString();
+    }
+
+    private static String cell(String[] row, int column) {
+        return column < row.length ? row[column] : "";
+    }
+}
@@ -1,164 +1,181 @@
 package com.universaldiff.format.csv;
 
-import com.universaldiff.core.model.DiffFragment;
+import com.universaldiff.core.io.OutputFiles;
+import com.universaldiff.core.model.ComparisonOptions;
 import com.universaldiff.core.model.DiffHunk;
 import com.universaldiff.core.model.DiffResult;
-import com.universaldiff.core.model.DiffSide;
-import com.universaldiff.core.model.DiffType;
 import com.universaldiff.core.model.FileDescriptor;
 import com.universaldiff.core.model.FormatType;
-import com.universaldiff.core.model.MergeChoice;
 import com.universaldiff.core.model.MergeDecision;
 import com.universaldiff.core.model.MergeResult;
 import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.RowAlignment;
 import com.universaldiff.format.spi.FormatAdapter;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.Reader;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 public class CsvFormatAdapter implements FormatAdapter {
 
+    private final CsvNormalizationMode normalizationMode;
+    private final int parseParallelism;
+
+    public CsvFormatAdapter() {
+        this(CsvNormalizationMode.IN_MEMORY);
+    }
+
+    public CsvFormatAdapter(CsvNormalizationMode normalizationMode) {
+        this(normalizationMode, 1);
+    }
+
+    /**
+     * @param parseParallelism threads used to parse one file in {@link CsvNormalizationMode#IN_MEMORY} mode;
+     *                         {@code 1} parses on the caller thread
+     */
+    public CsvFormatAdapter(CsvNormalizationMode normalizationMode, int parseParallelism) {
+        if (parseParallelism < 1) {
+            throw new IllegalArgumentException("parseParallelism must be at least 1");
+        }
+        this.normalizationMode = Objects.requireNonNull(normalizationMode, "normalizationMode");
+        this.parseParallelism = parseParallelism;
+    }
+
     @Override
     public NormalizedContent normalize(FileDescriptor descriptor) throws IOException {
-        CsvTable table = parseTable(descriptor.getPath(), descriptor.getEncoding());
-        List<String> logical = new ArrayList<>();
-        for (int i = 0; i < table.size(); i++) {
-            logical.add(table.formatRow(i));
+        if (normalizationMode == CsvNormalizationMode.ON_DISK) {
+            return NormalizedContent.builder(FormatType.CSV)
+                    .nativeModel(CsvSource.open(descriptor.getPath(), descriptor.getEncoding()))
+                    .encoding(descriptor.getEncoding())
+                    .build();
         }
+        CsvTable table = parseTable(descriptor.getPath(), descriptor.getEncoding());
         return NormalizedContent.builder(FormatType.CSV)
-                .logicalRecords(logical)
+                .logicalRecordsView(new AbstractList<>() {
+                    @Override
+                    public String get(int index) {
+                        return table.formatRow(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return table.size();
+                    }
+                })
                 .nativeModel(table)
                 .encoding(descriptor.getEncoding())
                 .build();
     }
 
-    private CsvTable parseTable(Path path, java.nio.charset.Charset encoding) throws IOException {
-        CSVFormat format = CSVFormat.DEFAULT.builder()
-                .setTrim(true)
-                .setSkipHeaderRecord(false)
-                .setIgnoreSurroundingSpaces(true)
-                .build();
-        try (Reader reader = Files.newBufferedReader(path, encoding);
-             CSVParser parser = new CSVParser(reader, format)) {
-            List<CSVRecord> records = parser.getRecords();
-            List<String> headers = new ArrayList<>();
-            int startIndex = 0;
-            if (!records.isEmpty()) {
-                CSVRecord first = records.get(0);
-                if (looksLikeHeader(first)) {
-                    headers.addAll(first.stream().map(String::trim).toList());
-                    startIndex = 1;
-                }
-            }
-            if (headers.isEmpty() && !records.isEmpty()) {
-                for (int i = 0; i < records.get(0).size(); i++) {
-                    headers.add("col" + (i + 1));
-                }
-            }
-            List<List<String>> rows = new ArrayList<>();
-            for (int i = startIndex; i < records.size(); i++) {
-                CSVRecord record = records.get(i);
-                List<String> row = new ArrayList<>();
-                for (int c = 0; c < headers.size(); c++) {
-                    row.add(record.size() > c ? record.get(c).trim() : "");
-                }
-                rows.add(row);
+    /**
+     * Streams rows from the file into a columnar {@link CsvTable}; each parsed record is dropped as soon as
+     * its cells are stored, so only the table itself stays in memory. Large files are split across threads
+     * when a parse parallelism is configured.
+     */
+    private CsvTable parseTable(Path path, Charset encoding) throws IOException {
+        if (parseParallelism > 1 && ParallelCsvParser.supports(encoding)
+                && Files.size(path) > ParallelCsvParser.MIN_CHUNK_SIZE) {
+            return ParallelCsvParser.parse(path, encoding, parseParallelism);
+        }
+        try (CsvRecordReader reader = CsvRecordReader.open(path, encoding)) {
+            List<String> headers = reader.headers();
+            CsvTable.Builder table = CsvTable.builder(headers, headers.size());
+            String[] row = new String[headers.size()];
+            while (reader.next(row)) {
+                table.addRow(column -> row[column], row.length);
             }
-            return new CsvTable(headers, rows);
+            return table.build();
         }
     }
 
-    private boolean looksLikeHeader(CSVRecord record) {
-        for (String value : record) {
-            if (value == null || value.isBlank()) {
-                return false;
-            }
-            if (value.chars().anyMatch(Character::isDigit)) {
-                return false;
-            }
-        }
-        return true;
+    @Override
+    public DiffResult diff(NormalizedContent left, NormalizedContent right) throws IOException {
+        return diff(left, right, ComparisonOptions.builder().build());
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public DiffResult diff(NormalizedContent left, NormalizedContent right) {
+    public DiffResult diff(NormalizedContent left, NormalizedContent right, ComparisonOptions options) throws IOException {
         Instant start = Instant.now();
-        CsvTable leftTable = (CsvTable) left.getNativeModel();
-        CsvTable rightTable = (CsvTable) right.getNativeModel();
-        int keyIndex = determineKeyIndex(leftTable, rightTable);
-
-        Map<String, List<String>> leftMap = indexTable(leftTable, keyIndex);
-        Map<String, List<String>> rightMap = indexTable(rightTable, keyIndex);
-        Set<String> keys = new LinkedHashSet<>();
-        keys.addAll(leftMap.keySet());
-        keys.addAll(rightMap.keySet());
-
-        List<DiffHunk> hunks = new ArrayList<>();
-        for (String key : keys) {
-            List<String> leftRow = leftMap.get(key);
-            List<String> rightRow = rightMap.get(key);
-            if (leftRow != null && rightRow != null) {
-                if (!leftRow.equals(rightRow)) {
-                    hunks.add(DiffHunk.of(
-                            "csv-row-" + encodeKey(key),
-                            DiffType.MODIFY,
-                            "Row " + key,
-                            List.of(
-                                    new DiffFragment(DiffSide.LEFT, 0, leftRow.size() - 1, renderRow(leftTable, leftRow)),
-                                    new DiffFragment(DiffSide.RIGHT, 0, rightRow.size() - 1, renderRow(rightTable, rightRow))
-                            )));
-                }
-            } else if (leftRow == null) {
-                hunks.add(DiffHunk.of(
-                        "csv-row-" + encodeKey(key),
-                        DiffType.INSERT,
-                        "Insert row " + key,
-                        List.of(new DiffFragment(DiffSide.RIGHT, 0, 0, renderRow(rightTable, rightRow)))));
-            } else {
-                hunks.add(DiffHunk.of(
-                        "csv-row-" + encodeKey(key),
-                        DiffType.DELETE,
-                        "Delete row " + key,
-                        List.of(new DiffFragment(DiffSide.LEFT, 0, 0, renderRow(leftTable, leftRow)))));
+        Object leftModel = left.getNativeModel();
+        Object rightModel = right.getNativeModel();
+        List<DiffHunk> hunks;
+        CsvKey key;
+        // rows held in memory are paired while diffing, so the side-by-side view needs no second diff
+        int[] rightOfLeft = new int[leftModel instanceof CsvTable table ? table.size() : 0];
+        Arrays.fill(rightOfLeft, RowAlignment.NO_RECORD);
+        if (options.sortedKeyColumn().isPresent()) {
+            key = CsvKey.of(options.sortedKeyColumn().getAsInt());
+            try (CsvRowStream leftRows = openRows(leftModel);
+                 CsvRowStream rightRows = openRows(rightModel)) {
+                hunks = SortedMergeCsvDiff.diff(leftRows, rightRows, options.sortedKeyColumn().getAsInt(),
+                        options.rowDiffGranularity(), leftModel instanceof CsvTable ? rightOfLeft : null);
             }
+        } else if (leftModel instanceof CsvSource leftSource) {
+            key = resolveKey(options, leftModel, rightModel);
+            hunks = PartitionedCsvDiff.diff(leftSource, (CsvSource) rightModel, key, options.parallelism(),
+                    options.rowDiffGranularity());
+        } else {
+            key = resolveKey(options, leftModel, rightModel);
+            hunks = KeyedTableDiff.diff((CsvTable) leftModel, (CsvTable) rightModel, key,
+                    options.rowDiffGranularity(), rightOfLeft);
         }
-        return new DiffResult(FormatType.CSV, hunks, Duration.between(start, Instant.now()));
+        return new DiffResult(FormatType.CSV, hunks, Duration.between(start, Instant.now()), new KeyedDiff(key),
+                align(leftModel, rightModel, rightOfLeft));
     }
 
-    private String encodeKey(String key) {
-        if (key == null) {
-            return Base64.getEncoder().encodeToString("<null>".getBytes(StandardCharsets.UTF_8));
+    /**
+     * Aligns the logical records by the row pairing of the diff; content kept on disk has no records to align.
+     */
+    private RowAlignment align(Object leftModel, Object rightModel, int[] rightOfLeft) {
+        if (!(leftModel instanceof CsvTable leftTable) || !(rightModel instanceof CsvTable rightTable)) {
+            return RowAlignment.builder().build();
         }
-        return Base64.getEncoder().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+        return RowAlignment.fromMatches(leftTable.size(), rightTable.size(), row -> rightOfLeft[row],
+                row -> leftTable.getColumnCount() != rightTable.getColumnCount()
+                        || leftTable.fingerprint(row) != rightTable.fingerprint(rightOfLeft[row]));
+    }
+
+    private CsvRowStream openRows(Object model) throws IOException {
+        return model instanceof CsvSource source ? source.openReader() : ((CsvTable) model).stream();
+    }
+
+    private List<String> headersOf(Object model) {
+        return model instanceof CsvSource source ? source.getHeaders() : ((CsvTable) model).getHeaders();
+    }
+
+    /**
+     * Kept in {@link DiffResult#getNativeModel()} so a merge decodes hunk ids with the key the diff used.
+     */
+    private record KeyedDiff(CsvKey key) {
     }
 
-    private String decodeKey(String encoded) {
-        if (encoded == null || encoded.isBlank()) {
-            return "";
+    /**
+     * Uses the caller's key columns when given, otherwise guesses a single key column from the headers.
+     */
+    private CsvKey resolveKey(ComparisonOptions options, Object leftModel, Object rightModel) {
+        if (!options.keyColumns().isEmpty()) {
+            return CsvKey.of(options.keyColumns());
         }
-        String decoded = new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
-        return "<null>".equals(decoded) ? "" : decoded;
+        return CsvKey.of(determineKeyIndex(headersOf(leftModel), headersOf(rightModel)));
     }
 
-    private int determineKeyIndex(CsvTable left, CsvTable right) {
-        List<String> headers = !left.getHeaders().isEmpty() ? left.getHeaders() : right.getHeaders();
+    private int determineKeyIndex(List<String> leftHeaders, List<String> rightHeaders) {
+        List<String> headers = !leftHeaders.isEmpty() ? leftHeaders : rightHeaders;
         if (headers.isEmpty()) {
             return 0;
         }
@@ -171,72 +188,141 @@ public class CsvFormatAdapter implements FormatAdapter {
         return 0;
     }
 
-    private Map<String, List<String>> indexTable(CsvTable table, int keyIndex) {
-        Map<String, List<String>> map = new LinkedHashMap<>();
-        for (int i = 0; i < table.getRows().size(); i++) {
-            List<String> row = table.getRows().get(i);
-            String key = keyIndex < row.size() ? row.get(keyIndex) : "row-" + i;
-            map.put(key, row);
-        }
-        return map;
-    }
-
-    private String renderRow(CsvTable table, List<String> row) {
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < row.size(); i++) {
-            if (i > 0) {
-                builder.append(" | ");
-            }
-            String header = table.getHeaders().isEmpty() ? "col" + (i + 1) : table.getHeaders().get(i);
-            builder.append(header).append("=").append(row.get(i));
+    @Override
+    public MergeResult merge(NormalizedContent left,
+                             NormalizedContent right,
+                             DiffResult diffResult,
+                             List<MergeDecision> decisions,
+                             Path outputPath) throws IOException {
+        if (diffResult != null && diffResult.getNativeModel() instanceof KeyedDiff keyed) {
+            return merge(left, right, decisions, outputPath, keyed.key());
         }
-        return builder.toString();
+        return merge(left, right, decisions, outputPath);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public MergeResult merge(NormalizedContent left,
                              NormalizedContent right,
                              List<MergeDecision> decisions,
                              Path outputPath) throws IOException {
+        return merge(left, right, decisions, outputPath,
+                resolveKey(ComparisonOptions.builder().build(), left.getNativeModel(), right.getNativeModel()));
+    }
+
+    /**
+     * Streams the left rows to the output, replacing rows that a decision resolved to another value, then
+     * appends decided rows the left side does not have. Rows sharing a key are told apart by their occurrence,
+     * as in the diff; only the decided rows are held in memory.
+     */
+    private MergeResult merge(NormalizedContent left,
+                              NormalizedContent right,
+                              List<MergeDecision> decisions,
+                              Path outputPath,
+                              CsvKey key) throws IOException {
         Instant start = Instant.now();
-        CsvTable leftTable = (CsvTable) left.getNativeModel();
-        CsvTable rightTable = (CsvTable) right.getNativeModel();
-        int keyIndex = determineKeyIndex(leftTable, rightTable);
-        Map<String, List<String>> merged = new LinkedHashMap<>(indexTable(leftTable, keyIndex));
-        Map<String, List<String>> rightMap = indexTable(rightTable, keyIndex);
+        if (outputPath == null) {
+            return new MergeResult(FormatType.CSV, null, Duration.between(start, Instant.now()));
+        }
+        List<String> headers = headersOf(left.getNativeModel());
+        Set<KeyedTableDiff.RowRef> takeRight = new HashSet<>();
+        Map<KeyedTableDiff.RowRef, List<String>> replacements = new LinkedHashMap<>();
         for (MergeDecision decision : decisions) {
-            String key = decodeKey(decision.getHunkId().replace("csv-row-", ""));
+            KeyedTableDiff.RowRef row = KeyedTableDiff.rowOf(decision.getHunkId());
             switch (decision.getChoice()) {
                 case TAKE_LEFT -> {
                     // nothing: keep left row
                 }
                 case TAKE_RIGHT -> {
-                    List<String> rightRow = rightMap.get(key);
-                    if (rightRow != null) {
-                        merged.put(key, new ArrayList<>(rightRow));
-                    }
+                    takeRight.add(row);
+                    replacements.putIfAbsent(row, null);
                 }
                 case MANUAL -> {
                     if (decision.getManualContent() != null) {
-                        merged.put(key, parseManualRow(decision.getManualContent(), leftTable.getHeaders()));
+                        takeRight.remove(row);
+                        replacements.put(row, parseManualRow(decision.getManualContent(), headers));
                     }
                 }
             }
         }
-        if (outputPath != null) {
-            List<String> lines = new ArrayList<>();
-            if (!leftTable.getHeaders().isEmpty()) {
-                lines.add(String.join(",", leftTable.getHeaders()));
-            }
-            for (List<String> row : merged.values()) {
-                lines.add(formatCsvLine(row));
+        Set<String> decidedKeys = new HashSet<>();
+        for (KeyedTableDiff.RowRef row : replacements.keySet()) {
+            decidedKeys.add(row.key());
+        }
+        if (!takeRight.isEmpty()) {
+            try (CsvRowStream rows = openRows(right.getNativeModel())) {
+                key.validate(rows.columnCount(), "Right");
+                DecidedRows decided = new DecidedRows(rows, key, decidedKeys);
+                for (KeyedTableDiff.RowRef row = decided.next(); row != DecidedRows.END; row = decided.next()) {
+                    if (row != null && takeRight.contains(row)) {
+                        replacements.put(row, Arrays.asList(decided.cells.clone()));
+                    }
+                }
             }
-            Files.write(outputPath, lines, left.getEncoding());
         }
+        replacements.values().removeIf(Objects::isNull);
+
+        // on disk the left rows are read while writing, and the output may be the left file itself
+        OutputFiles.writeReplacing(outputPath, file -> {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, left.getEncoding());
+                 CsvRowStream rows = openRows(left.getNativeModel())) {
+                key.validate(rows.columnCount(), "Left");
+                if (!headers.isEmpty()) {
+                    writer.write(String.join(",", headers));
+                    writer.newLine();
+                }
+                DecidedRows decided = new DecidedRows(rows, key, decidedKeys);
+                for (KeyedTableDiff.RowRef row = decided.next(); row != DecidedRows.END; row = decided.next()) {
+                    List<String> replacement = row == null ? null : replacements.remove(row);
+                    writer.write(formatCsvLine(replacement != null ? replacement : Arrays.asList(decided.cells)));
+                    writer.newLine();
+                }
+                for (List<String> inserted : replacements.values()) {
+                    writer.write(formatCsvLine(inserted));
+                    writer.newLine();
+                }
+            }
+        });
         return new MergeResult(FormatType.CSV, outputPath, Duration.between(start, Instant.now()));
     }
 
+    /**
+     * Walks a row stream and names each row whose key has a decision by key text and occurrence; occurrences
+     * are only counted for those keys.
+     */
+    private static final class DecidedRows {
+        private static final KeyedTableDiff.RowRef END = new KeyedTableDiff.RowRef(null, -1);
+
+        private final CsvRowStream rows;
+        private final CsvKey key;
+        private final Set<String> decidedKeys;
+        private final Map<String, Integer> occurrences = new HashMap<>();
+        private final String[] cells;
+        private long rowNumber;
+
+        private DecidedRows(CsvRowStream rows, CsvKey key, Set<String> decidedKeys) {
+            this.rows = rows;
+            this.key = key;
+            this.decidedKeys = decidedKeys;
+            this.cells = new String[rows.columnCount()];
+        }
+
+        /**
+         * Reads the next row into {@link #cells}; returns its reference, {@code null} when its key has no
+         * decision, or {@link #END} once the rows are exhausted.
+         */
+        private KeyedTableDiff.RowRef next() throws IOException {
+            if (!rows.next(cells)) {
+                return END;
+            }
+            String rowKey = key.of(cells, rowNumber++);
+            if (!decidedKeys.contains(rowKey)) {
+                return null;
+            }
+            int occurrence = occurrences.merge(rowKey, 1, Integer::sum) - 1;
+            return new KeyedTableDiff.RowRef(rowKey, occurrence);
+        }
+    }
+
     private List<String> parseManualRow(String manualContent, List<String> headers) {
         String[] parts = manualContent.split("\\|");
         List<String> row = new ArrayList<>();
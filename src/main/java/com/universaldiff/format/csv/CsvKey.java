@@ -0,0 +1,159 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.format.Hashing;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The columns that identify a row, and the key text and 64-bit hash derived from them.
+ * <p>
+ * A single-column key is the cell value itself; a composite key joins its cells with U+001F so that two
+ * different cell combinations never produce the same text. Tables without columns key rows as {@code row-N}.
+ * Hashes depend only on the key text, so rows of different tables, or of a table and a streamed file, hash alike.
+ */
+final class CsvKey {
+
+    private static final char SEPARATOR = '\u001F';
+
+    private final int[] columns;
+
+    private CsvKey(int[] columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("A key needs at least one column");
+        }
+        this.columns = columns;
+    }
+
+    static CsvKey of(int... columns) {
+        return new CsvKey(columns.clone());
+    }
+
+    static CsvKey of(List<Integer> columns) {
+        return new CsvKey(columns.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Rejects a key that refers to columns the table does not have.
+     */
+    void validate(int columnCount, String side) {
+        for (int column : columns) {
+            if (columnCount > 0 && column >= columnCount) {
+                throw new IllegalArgumentException(side + " input has no key column " + column
+                        + "; it has " + columnCount + " columns");
+            }
+        }
+    }
+
+    String of(String[] row, long rowNumber) {
+        if (row.length == 0) {
+            return "row-" + rowNumber;
+        }
+        if (columns.length == 1) {
+            return row[columns[0]];
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                key.append(SEPARATOR);
+            }
+            key.append(row[columns[i]]);
+        }
+        return key.toString();
+    }
+
+    String of(CsvTable table, int row, long rowNumber) {
+        if (table.getColumnCount() == 0) {
+            return "row-" + rowNumber;
+        }
+        if (columns.length == 1) {
+            return table.get(row, columns[0]);
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                key.append(SEPARATOR);
+            }
+            key.append(table.get(row, columns[i]));
+        }
+        return key.toString();
+    }
+
+    long hash(String[] row, long rowNumber) {
+        if (row.length == 0) {
+            return Hashing.combine(0, Hashing.hashString("row-" + rowNumber));
+        }
+        long hash = 0;
+        for (int column : columns) {
+            hash = Hashing.combine(hash, Hashing.hashString(row[column]));
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes every row of a table from the value hashes its dictionaries already hold, so a row costs one
+     * lookup and one mix per key column.
+     *
+     * @param rowNumbers file row numbers for the {@code row-N} keys of column-less tables; {@code null} numbers rows by position
+     */
+    long[] hashes(CsvTable table, long[] rowNumbers) {
+        long[] hashes = new long[table.size()];
+        if (table.getColumnCount() == 0) {
+            for (int row = 0; row < hashes.length; row++) {
+                hashes[row] = Hashing.combine(0, Hashing.hashString("row-" + (rowNumbers == null ? row : rowNumbers[row])));
+            }
+            return hashes;
+        }
+        for (int column : columns) {
+            for (int row = 0; row < hashes.length; row++) {
+                hashes[row] = Hashing.combine(hashes[row], table.valueHash(column, table.code(row, column)));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns whether the key cells of a left and a right row hold equal values, given per-column code mappings
+     * from {@link CsvTable#codeMapping} and the rows' file row numbers.
+     */
+    boolean equal(CsvTable left, int leftRow, long leftNumber,
+                  CsvTable right, int rightRow, long rightNumber, int[][] leftToRight) {
+        if (left.getColumnCount() == 0 || right.getColumnCount() == 0) {
+            return of(left, leftRow, leftNumber).equals(of(right, rightRow, rightNumber));
+        }
+        for (int column : columns) {
+            if (leftToRight[column][left.code(leftRow, column)] != right.code(rightRow, column)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the keys of two rows of one table by their dictionary codes, without reading any cell text.
+     */
+    boolean equal(CsvTable table, int row, int otherRow) {
+        if (table.getColumnCount() == 0) {
+            // row-N keys of distinct rows never match
+            return false;
+        }
+        for (int column : columns) {
+            if (table.code(row, column) != table.code(otherRow, column)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renders key text for hunk summaries, separating composite key cells with commas.
+     */
+    static String display(String key) {
+        return key.replace(String.valueOf(SEPARATOR), ", ");
+    }
+
+    @Override
+    public String toString() {
+        return "key columns " + Arrays.toString(columns);
+    }
+}
@@ -0,0 +1,16 @@
+package com.universaldiff.format.csv;
+
+/**
+ * Controls how {@link CsvFormatAdapter} holds CSV content after normalization.
+ */
+public enum CsvNormalizationMode {
+    /**
+     * Parses every row into a dictionary-encoded {@link CsvTable} on the heap.
+     */
+    IN_MEMORY,
+    /**
+     * Reads only the header and leaves the rows in the file as a {@link CsvSource}; diffs stream the files
+     * through temporary partitions on disk, so they are not bounded by heap size.
+     */
+    ON_DISK;
+}
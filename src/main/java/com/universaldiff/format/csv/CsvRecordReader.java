@@ -0,0 +1,125 @@
+package com.universaldiff.format.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads a CSV file one row at a time in the adapter's dialect.
+ * <p>
+ * Values are trimmed, the first record is taken as the header when every value is non-blank and free of
+ * digits (otherwise columns are named {@code col1..n}), and every row is padded or truncated to the header
+ * width. Only the current record is held in memory.
+ */
+final class CsvRecordReader implements CsvRowStream {
+
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            .setTrim(true)
+            .setSkipHeaderRecord(false)
+            .setIgnoreSurroundingSpaces(true)
+            .build();
+
+    private final CSVParser parser;
+    private final Iterator<CSVRecord> records;
+    private final List<String> headers;
+    private CSVRecord pending;
+
+    private CsvRecordReader(CSVParser parser, List<String> headers) {
+        this.parser = parser;
+        this.records = parser.iterator();
+        this.headers = headers;
+    }
+
+    private CsvRecordReader(CSVParser parser) {
+        this.parser = parser;
+        this.records = parser.iterator();
+        List<String> names = new ArrayList<>();
+        if (records.hasNext()) {
+            CSVRecord first = records.next();
+            if (looksLikeHeader(first)) {
+                names.addAll(first.stream().map(String::trim).toList());
+            } else {
+                for (int i = 0; i < first.size(); i++) {
+                    names.add("col" + (i + 1));
+                }
+                pending = first;
+            }
+        }
+        this.headers = Collections.unmodifiableList(names);
+    }
+
+    static CsvRecordReader open(Path path, Charset encoding) throws IOException {
+        return open(Files.newBufferedReader(path, encoding));
+    }
+
+    static CsvRecordReader open(Reader reader) throws IOException {
+        CSVParser parser = new CSVParser(reader, FORMAT);
+        try {
+            return new CsvRecordReader(parser);
+        } catch (RuntimeException ex) {
+            parser.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads rows that continue a file whose header is already known, such as a chunk split off at a record
+     * boundary; every record is a row.
+     */
+    static CsvRecordReader continuation(Reader reader, List<String> headers) throws IOException {
+        return new CsvRecordReader(new CSVParser(reader, FORMAT), headers);
+    }
+
+    /**
+     * Returns the header names, or generated {@code col1..n} names when the file has no header record;
+     * empty for an empty file.
+     */
+    @Override
+    public List<String> headers() {
+        return headers;
+    }
+
+    @Override
+    public boolean next(String[] row) {
+        CSVRecord record;
+        if (pending != null) {
+            record = pending;
+            pending = null;
+        } else if (records.hasNext()) {
+            record = records.next();
+        } else {
+            return false;
+        }
+        for (int c = 0; c < row.length; c++) {
+            row[c] = c < record.size() ? record.get(c).trim() : "";
+        }
+        return true;
+    }
+
+    private static boolean looksLikeHeader(CSVRecord record) {
+        for (String value : record) {
+            if (value == null || value.isBlank()) {
+                return false;
+            }
+            if (value.chars().anyMatch(Character::isDigit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.universaldiff.format.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Forward-only pass over the rows of a CSV file or table, one row at a time.
+ */
+interface CsvRowStream extends Closeable {
+
+    List<String> headers();
+
+    /**
+     * Number of cells in every row; the header count unless the headers are empty.
+     */
+    default int columnCount() {
+        return headers().size();
+    }
+
+    /**
+     * Reads the next row into {@code row}, which must be {@link #columnCount()} long.
+     *
+     * @return {@code false} once the rows are exhausted
+     */
+    boolean next(String[] row) throws IOException;
+}
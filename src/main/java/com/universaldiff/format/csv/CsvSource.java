@@ -0,0 +1,47 @@
+package com.universaldiff.format.csv;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A CSV file whose rows stay on disk; only the header is read up front.
+ */
+public final class CsvSource {
+    private final Path path;
+    private final Charset encoding;
+    private final List<String> headers;
+
+    private CsvSource(Path path, Charset encoding, List<String> headers) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.encoding = Objects.requireNonNull(encoding, "encoding");
+        this.headers = headers;
+    }
+
+    public static CsvSource open(Path path, Charset encoding) throws IOException {
+        try (CsvRecordReader reader = CsvRecordReader.open(path, encoding)) {
+            return new CsvSource(path, encoding, reader.headers());
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Charset getEncoding() {
+        return encoding;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Opens a new pass over the rows.
+     */
+    CsvRecordReader openReader() throws IOException {
+        return CsvRecordReader.open(path, encoding);
+    }
+}
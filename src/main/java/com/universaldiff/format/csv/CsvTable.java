@@ -1,19 +1,67 @@
 package com.universaldiff.format.csv;
 
+import com.universaldiff.format.Hashing;
+
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
+/**
+ * Parsed CSV content stored column by column.
+ * <p>
+ * Each column is dictionary encoded: cells are {@code int} codes into a per-column pool of distinct values,
+ * so a value repeated on millions of rows is held once. {@link #getRows()} and the lists it returns are
+ * read-only views that decode on access; rows narrower than the table are padded with empty cells.
+ * <p>
+ * Every row also has a 64-bit fingerprint of its cells, computed while it is added from the hash each
+ * dictionary value gets once. Rows of any two tables with equal cells have equal fingerprints.
+ */
 public final class CsvTable {
     private final List<String> headers;
-    private final List<List<String>> rows;
+    private final int[][] codes;
+    private final String[][] dictionaries;
+    private final long[][] valueHashes;
+    private final long[] fingerprints;
+    private final int rowCount;
+    private final List<List<String>> rows = new RowsView();
 
     public CsvTable(List<String> headers, List<List<String>> rows) {
-        this.headers = headers == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(headers));
-        this.rows = rows == null ? List.of() : Collections.unmodifiableList(rows.stream()
-                .map(row -> Collections.unmodifiableList(new ArrayList<>(row)))
-                .toList());
+        this(fill(headers, rows));
+    }
+
+    private CsvTable(Builder builder) {
+        this.headers = builder.headers;
+        this.rowCount = builder.rowCount;
+        this.codes = new int[builder.codes.length][];
+        this.dictionaries = new String[builder.codes.length][];
+        this.valueHashes = new long[builder.codes.length][];
+        this.fingerprints = Arrays.copyOf(builder.fingerprints, rowCount);
+        for (int c = 0; c < codes.length; c++) {
+            codes[c] = Arrays.copyOf(builder.codes[c], rowCount);
+            dictionaries[c] = builder.pools.get(c).keySet().toArray(String[]::new);
+            valueHashes[c] = Arrays.copyOf(builder.valueHashes[c], dictionaries[c].length);
+        }
+    }
+
+    private static Builder fill(List<String> headers, List<List<String>> rows) {
+        int width = headers == null ? 0 : headers.size();
+        if (width == 0 && rows != null) {
+            for (List<String> row : rows) {
+                width = Math.max(width, row.size());
+            }
+        }
+        Builder builder = new Builder(headers, width);
+        if (rows != null) {
+            for (List<String> row : rows) {
+                builder.addRow(row::get, row.size());
+            }
+        }
+        return builder;
     }
 
     public List<String> getHeaders() {
@@ -24,24 +72,267 @@ public final class CsvTable {
         return rows;
     }
 
+    public int getColumnCount() {
+        return codes.length;
+    }
+
+    public String get(int row, int column) {
+        return dictionaries[column][codes[column][row]];
+    }
+
+    /**
+     * Returns the dictionary code of a cell; two cells of the same column hold equal values exactly when
+     * their codes are equal.
+     */
+    int code(int row, int column) {
+        return codes[column][row];
+    }
+
+    long valueHash(int column, int code) {
+        return valueHashes[column][code];
+    }
+
+    /**
+     * Returns the fingerprint of a row; rows with different fingerprints differ in at least one cell.
+     */
+    long fingerprint(int row) {
+        return fingerprints[row];
+    }
+
+    /**
+     * Maps each code of {@code column} in this table to the code of the same value in {@code other}'s
+     * column, or {@code -1} when {@code other} never holds that value. Cells of two tables can then be
+     * compared as {@code mapping[code(row, column)] == other.code(otherRow, column)}.
+     */
+    int[] codeMapping(int column, CsvTable other) {
+        String[] own = dictionaries[column];
+        int[] mapping = new int[own.length];
+        Arrays.fill(mapping, -1);
+        if (column >= other.codes.length) {
+            return mapping;
+        }
+        String[] theirs = other.dictionaries[column];
+        Map<String, Integer> lookup = new HashMap<>(theirs.length * 2);
+        for (int code = 0; code < theirs.length; code++) {
+            lookup.put(theirs[code], code);
+        }
+        for (int code = 0; code < own.length; code++) {
+            Integer match = lookup.get(own[code]);
+            if (match != null) {
+                mapping[code] = match;
+            }
+        }
+        return mapping;
+    }
+
     public String formatRow(int index) {
-        if (index < 0 || index >= rows.size()) {
+        if (index < 0 || index >= rowCount) {
             return "";
         }
-        List<String> row = rows.get(index);
+        return format(headers, rows.get(index));
+    }
+
+    /**
+     * Renders cells as {@code header=value | header=value}, naming columns {@code col1..n} when there are no headers.
+     */
+    static String format(List<String> headers, List<String> cells) {
         StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < row.size(); i++) {
+        for (int i = 0; i < cells.size(); i++) {
             String header = headers.isEmpty() ? "col" + (i + 1) : headers.get(i);
             if (i > 0) {
                 builder.append(" | ");
             }
-            builder.append(header).append("=").append(row.get(i));
+            builder.append(header).append("=").append(cells.get(i));
         }
         return builder.toString();
     }
 
+    /**
+     * Opens a pass over the rows in order, so callers can treat a table like a streamed file.
+     */
+    CsvRowStream stream() {
+        return new CsvRowStream() {
+            private int next;
+
+            @Override
+            public List<String> headers() {
+                return headers;
+            }
+
+            @Override
+            public int columnCount() {
+                return codes.length;
+            }
+
+            @Override
+            public boolean next(String[] row) {
+                if (next >= rowCount) {
+                    return false;
+                }
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = get(next, c);
+                }
+                next++;
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
     public int size() {
-        return rows.size();
+        return rowCount;
     }
-}
 
+    /**
+     * Creates a builder for a table with the given headers, or with {@code columnCount} unnamed columns
+     * when the headers are empty.
+     */
+    static Builder builder(List<String> headers, int columnCount) {
+        return new Builder(headers, columnCount);
+    }
+
+    @FunctionalInterface
+    interface CellSource {
+        String get(int column);
+    }
+
+    /**
+     * Appends rows one at a time so a parser can stream records straight into the column arrays.
+     */
+    static final class Builder {
+        private final List<String> headers;
+        private final List<Map<String, Integer>> pools;
+        private int[][] codes;
+        private long[][] valueHashes;
+        private long[] fingerprints = new long[16];
+        private int rowCount;
+
+        private Builder(List<String> headers, int columnCount) {
+            this.headers = headers == null || headers.isEmpty()
+                    ? List.of()
+                    : Collections.unmodifiableList(new ArrayList<>(headers));
+            int width = this.headers.isEmpty() ? columnCount : this.headers.size();
+            this.codes = new int[width][16];
+            this.valueHashes = new long[width][16];
+            this.pools = new ArrayList<>(width);
+            for (int c = 0; c < width; c++) {
+                pools.add(new LinkedHashMap<>());
+            }
+        }
+
+        /**
+         * Appends a row of {@code cellCount} cells; missing cells become empty and extra cells are dropped.
+         */
+        Builder addRow(CellSource cells, int cellCount) {
+            ensureCapacity(rowCount + 1);
+            long fingerprint = 0;
+            for (int c = 0; c < codes.length; c++) {
+                String value = c < cellCount ? cells.get(c) : null;
+                int code = encode(c, value == null ? "" : value);
+                codes[c][rowCount] = code;
+                fingerprint = Hashing.combine(fingerprint, valueHashes[c][code]);
+            }
+            fingerprints[rowCount] = fingerprint;
+            rowCount++;
+            return this;
+        }
+
+        private int encode(int column, String value) {
+            Map<String, Integer> pool = pools.get(column);
+            Integer code = pool.get(value);
+            if (code == null) {
+                code = pool.size();
+                pool.put(value, code);
+                if (code == valueHashes[column].length) {
+                    valueHashes[column] = Arrays.copyOf(valueHashes[column], code * 2);
+                }
+                valueHashes[column][code] = Hashing.hashString(value);
+            }
+            return code;
+        }
+
+        private void ensureCapacity(int rows) {
+            if (rows <= fingerprints.length) {
+                return;
+            }
+            int capacity = Math.max(rows, fingerprints.length + (fingerprints.length >> 1));
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+            for (int c = 0; c < codes.length; c++) {
+                codes[c] = Arrays.copyOf(codes[c], capacity);
+            }
+        }
+
+        /**
+         * Appends every row of {@code part}, which must have this builder's columns, by translating its
+         * dictionary codes into this builder's pools and copying its fingerprints; cell values are not looked
+         * up row by row.
+         */
+        Builder append(CsvTable part) {
+            if (part.codes.length != codes.length) {
+                throw new IllegalArgumentException("Cannot append a table of " + part.codes.length
+                        + " columns to one of " + codes.length);
+            }
+            int total = Math.addExact(rowCount, part.rowCount);
+            ensureCapacity(total);
+            System.arraycopy(part.fingerprints, 0, fingerprints, rowCount, part.rowCount);
+            for (int c = 0; c < codes.length; c++) {
+                String[] dictionary = part.dictionaries[c];
+                int[] translation = new int[dictionary.length];
+                for (int code = 0; code < dictionary.length; code++) {
+                    translation[code] = encode(c, dictionary[code]);
+                }
+                int[] source = part.codes[c];
+                int[] target = codes[c];
+                for (int row = 0; row < part.rowCount; row++) {
+                    target[rowCount + row] = translation[source[row]];
+                }
+            }
+            rowCount = total;
+            return this;
+        }
+
+        int columnCount() {
+            return codes.length;
+        }
+
+        CsvTable build() {
+            return new CsvTable(this);
+        }
+    }
+
+    private final class RowsView extends AbstractList<List<String>> {
+        @Override
+        public List<String> get(int index) {
+            if (index < 0 || index >= rowCount) {
+                throw new IndexOutOfBoundsException("Row " + index + " out of bounds for " + rowCount + " rows");
+            }
+            return new RowView(index);
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
+    }
+
+    private final class RowView extends AbstractList<String> {
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public String get(int index) {
+            return CsvTable.this.get(row, index);
+        }
+
+        @Override
+        public int size() {
+            return codes.length;
+        }
+    }
+}
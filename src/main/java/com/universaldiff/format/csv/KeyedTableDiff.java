@@ -0,0 +1,325 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.core.model.DiffFragment;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffSide;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.core.model.RowDiffGranularity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Matches the rows of two tables by key and reports one hunk per row that was inserted, deleted or changed.
+ * <p>
+ * The right rows are indexed by the 64-bit hash of their key in a {@link LongRowIndex}; every left row then takes
+ * the first unmatched right row with an equal key. Rows sharing a key are therefore paired in file order, the
+ * n-th left occurrence with the n-th right occurrence, and surplus occurrences become deletes or inserts; the
+ * hunk of occurrence {@code n > 0} carries {@code n} in its id.
+ * <p>
+ * Rows carry their row number in the original file, so the same diff runs on a whole table or on one
+ * partition of it. Each hunk is tagged with a sort order that reproduces the whole-table hunk order:
+ * left rows in file order, then right-only rows in file order.
+ */
+final class KeyedTableDiff {
+
+    private static final String HUNK_PREFIX = "csv-row-";
+    private static final char OCCURRENCE_SEPARATOR = '-';
+
+    /**
+     * A hunk and its position in the whole-table hunk order.
+     */
+    record OrderedHunk(long order, DiffHunk hunk) {
+    }
+
+    private KeyedTableDiff() {
+    }
+
+    /**
+     * Diffs two tables whose rows are numbered {@code 0..size-1}.
+     */
+    static List<DiffHunk> diff(CsvTable left, CsvTable right, CsvKey key) {
+        return diff(left, right, key, RowDiffGranularity.ROW);
+    }
+
+    static List<DiffHunk> diff(CsvTable left, CsvTable right, CsvKey key, RowDiffGranularity granularity) {
+        return diff(left, right, key, granularity, null);
+    }
+
+    /**
+     * @param rightOfLeft if not {@code null}, receives for every left row the right row it was paired with, or
+     *                    {@link LongRowIndex#NO_ROW}
+     */
+    static List<DiffHunk> diff(CsvTable left, CsvTable right, CsvKey key, RowDiffGranularity granularity,
+                               int[] rightOfLeft) {
+        List<DiffHunk> hunks = new ArrayList<>();
+        for (OrderedHunk ordered : diff(left, null, right, null, key, left.size(), granularity, rightOfLeft)) {
+            hunks.add(ordered.hunk());
+        }
+        return hunks;
+    }
+
+    /**
+     * Diffs two tables whose rows carry the given file row numbers; a {@code null} array numbers rows by position.
+     *
+     * @param leftTotal number of rows in the whole left file, used to order right-only rows after left rows
+     */
+    static List<OrderedHunk> diff(CsvTable left, long[] leftRows, CsvTable right, long[] rightRows,
+                                  CsvKey key, long leftTotal, RowDiffGranularity granularity) {
+        return diff(left, leftRows, right, rightRows, key, leftTotal, granularity, null);
+    }
+
+    private static List<OrderedHunk> diff(CsvTable left, long[] leftRows, CsvTable right, long[] rightRows,
+                                          CsvKey key, long leftTotal, RowDiffGranularity granularity,
+                                          int[] rightOfLeft) {
+        key.validate(left.getColumnCount(), "Left");
+        key.validate(right.getColumnCount(), "Right");
+        Side leftSide = new Side(left, leftRows, key);
+        Side rightSide = new Side(right, rightRows, key);
+        RowComparator comparator = new RowComparator(left, right);
+
+        boolean[] matched = new boolean[right.size()];
+        List<OrderedHunk> hunks = new ArrayList<>();
+        for (int leftRow = 0; leftRow < left.size(); leftRow++) {
+            int rightRow = LongRowIndex.NO_ROW;
+            for (int candidate = rightSide.index.first(leftSide.hashes[leftRow]);
+                 candidate != LongRowIndex.NO_ROW;
+                 candidate = rightSide.index.next(candidate)) {
+                if (!matched[candidate] && key.equal(left, leftRow, leftSide.rowNumber(leftRow),
+                        right, candidate, rightSide.rowNumber(candidate), comparator.leftToRight)) {
+                    rightRow = candidate;
+                    break;
+                }
+            }
+            if (rightOfLeft != null) {
+                rightOfLeft[leftRow] = rightRow;
+            }
+            long order = leftSide.rowNumber(leftRow);
+            if (rightRow == LongRowIndex.NO_ROW) {
+                String rowKey = leftSide.key(leftRow);
+                hunks.add(new OrderedHunk(order,
+                        deleteHunk(rowKey, leftSide.occurrence(leftRow), left.formatRow(leftRow))));
+                continue;
+            }
+            matched[rightRow] = true;
+            if (!comparator.equal(leftRow, rightRow)) {
+                String rowKey = leftSide.key(leftRow);
+                int occurrence = leftSide.occurrence(leftRow);
+                hunks.add(new OrderedHunk(order, granularity == RowDiffGranularity.CELL
+                        ? modifyHunk(rowKey, occurrence, comparator.changes(leftRow, rightRow))
+                        : modifyHunk(rowKey, occurrence,
+                        left.getColumnCount(), left.formatRow(leftRow),
+                        right.getColumnCount(), right.formatRow(rightRow))));
+            }
+        }
+        for (int rightRow = 0; rightRow < right.size(); rightRow++) {
+            if (!matched[rightRow]) {
+                String rowKey = rightSide.key(rightRow);
+                hunks.add(new OrderedHunk(leftTotal + rightSide.rowNumber(rightRow),
+                        insertHunk(rowKey, rightSide.occurrence(rightRow), right.formatRow(rightRow))));
+            }
+        }
+        return hunks;
+    }
+
+    static DiffHunk modifyHunk(String key, int occurrence, int leftColumns, String leftRow,
+                               int rightColumns, String rightRow) {
+        return DiffHunk.of(
+                hunkId(key, occurrence),
+                DiffType.MODIFY,
+                "Row " + CsvKey.display(key),
+                List.of(
+                        new DiffFragment(DiffSide.LEFT, 0, leftColumns - 1, leftRow),
+                        new DiffFragment(DiffSide.RIGHT, 0, rightColumns - 1, rightRow)
+                ));
+    }
+
+    /**
+     * Builds a MODIFY hunk that shows only the changed cells; its fragments span the first to the last changed
+     * column and render their text on demand.
+     */
+    static DiffHunk modifyHunk(String key, int occurrence, CellChanges changes) {
+        int first = changes.firstColumn();
+        int last = changes.lastColumn();
+        return DiffHunk.of(
+                hunkId(key, occurrence),
+                DiffType.MODIFY,
+                "Row " + CsvKey.display(key) + ": " + changes.changedCount()
+                        + (changes.changedCount() == 1 ? " cell changed" : " cells changed"),
+                List.of(
+                        DiffFragment.lazy(DiffSide.LEFT, first, last, () -> changes.render(DiffSide.LEFT)),
+                        DiffFragment.lazy(DiffSide.RIGHT, first, last, () -> changes.render(DiffSide.RIGHT))
+                ));
+    }
+
+    static DiffHunk insertHunk(String key, int occurrence, String rightRow) {
+        return DiffHunk.of(
+                hunkId(key, occurrence),
+                DiffType.INSERT,
+                "Insert row " + CsvKey.display(key),
+                List.of(new DiffFragment(DiffSide.RIGHT, 0, 0, rightRow)));
+    }
+
+    static DiffHunk deleteHunk(String key, int occurrence, String leftRow) {
+        return DiffHunk.of(
+                hunkId(key, occurrence),
+                DiffType.DELETE,
+                "Delete row " + CsvKey.display(key),
+                List.of(new DiffFragment(DiffSide.LEFT, 0, 0, leftRow)));
+    }
+
+    /**
+     * Returns the hunk id of the {@code occurrence}-th row (counting from zero) with the given key.
+     */
+    static String hunkId(String key, int occurrence) {
+        String value = key == null ? "<null>" : key;
+        String id = HUNK_PREFIX + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        return occurrence == 0 ? id : id + OCCURRENCE_SEPARATOR + occurrence;
+    }
+
+    /**
+     * Decodes a hunk id back into the row it refers to.
+     */
+    static RowRef rowOf(String hunkId) {
+        String encoded = hunkId.replace(HUNK_PREFIX, "");
+        int occurrence = 0;
+        int separator = encoded.indexOf(OCCURRENCE_SEPARATOR);
+        if (separator >= 0) {
+            occurrence = Integer.parseInt(encoded.substring(separator + 1));
+            encoded = encoded.substring(0, separator);
+        }
+        if (encoded.isBlank()) {
+            return new RowRef("", occurrence);
+        }
+        String decoded = new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
+        return new RowRef("<null>".equals(decoded) ? "" : decoded, occurrence);
+    }
+
+    /**
+     * The {@code occurrence}-th row (counting from zero) with the given key text on one side.
+     */
+    record RowRef(String key, int occurrence) {
+    }
+
+    /**
+     * One table with its file row numbers, key hashes, hash index and the occurrence number of every row's key.
+     */
+    private static final class Side {
+        private final CsvTable table;
+        private final long[] rowNumbers;
+        private final CsvKey key;
+        private final long[] hashes;
+        private final LongRowIndex index;
+        private final int[] occurrences;
+
+        /**
+         * Indexes the rows in one forward pass. A row's key usually equals that of the previous row with the same
+         * hash, so its occurrence is one more than that row's; only a hash collision walks the chain.
+         */
+        private Side(CsvTable table, long[] rowNumbers, CsvKey key) {
+            this.table = table;
+            this.rowNumbers = rowNumbers;
+            this.key = key;
+            this.hashes = key.hashes(table, rowNumbers);
+            this.index = new LongRowIndex(table.size());
+            this.occurrences = new int[hashes.length];
+            for (int row = 0; row < hashes.length; row++) {
+                int previous = index.add(hashes[row], row);
+                if (previous == LongRowIndex.NO_ROW) {
+                    continue;
+                }
+                if (key.equal(table, previous, row)) {
+                    occurrences[row] = occurrences[previous] + 1;
+                } else {
+                    occurrences[row] = countEarlierEqualKeys(row);
+                }
+            }
+        }
+
+        private int countEarlierEqualKeys(int row) {
+            int count = 0;
+            for (int candidate = index.first(hashes[row]); candidate != row; candidate = index.next(candidate)) {
+                if (key.equal(table, candidate, row)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private long rowNumber(int row) {
+            return rowNumbers == null ? row : rowNumbers[row];
+        }
+
+        private String key(int row) {
+            return key.of(table, row, rowNumber(row));
+        }
+
+        /**
+         * Returns how many earlier rows of this table share the row's key.
+         */
+        private int occurrence(int row) {
+            return occurrences[row];
+        }
+    }
+
+    /**
+     * Compares rows of two tables: whole rows by fingerprint, single cells by dictionary code. Each left code
+     * is translated once per column into the right table's code space, after which a cell comparison is a
+     * single int comparison.
+     */
+    private static final class RowComparator {
+        private final CsvTable left;
+        private final CsvTable right;
+        private final int[][] leftToRight;
+
+        private RowComparator(CsvTable left, CsvTable right) {
+            this.left = left;
+            this.right = right;
+            this.leftToRight = new int[left.getColumnCount()][];
+            for (int c = 0; c < Math.min(left.getColumnCount(), right.getColumnCount()); c++) {
+                leftToRight[c] = left.codeMapping(c, right);
+            }
+        }
+
+        /**
+         * Compares row fingerprints only: equal cells always give equal fingerprints, and two different rows
+         * share a 64-bit fingerprint with negligible probability, so no cell is read for either outcome.
+         */
+        private boolean equal(int leftRow, int rightRow) {
+            return left.getColumnCount() == right.getColumnCount()
+                    && left.fingerprint(leftRow) == right.fingerprint(rightRow);
+        }
+
+        /**
+         * Collects the changed cells of two rows; a column only one table has counts as changed.
+         */
+        private CellChanges changes(int leftRow, int rightRow) {
+            int width = Math.max(left.getColumnCount(), right.getColumnCount());
+            BitSet columns = new BitSet(width);
+            for (int c = 0; c < width; c++) {
+                if (!cellEqual(leftRow, rightRow, c)) {
+                    columns.set(c);
+                }
+            }
+            String[] leftValues = new String[columns.cardinality()];
+            String[] rightValues = new String[leftValues.length];
+            int i = 0;
+            for (int c = columns.nextSetBit(0); c >= 0; c = columns.nextSetBit(c + 1)) {
+                leftValues[i] = c < left.getColumnCount() ? left.get(leftRow, c) : "";
+                rightValues[i++] = c < right.getColumnCount() ? right.get(rightRow, c) : "";
+            }
+            return CellChanges.of(left.getHeaders().isEmpty() ? right.getHeaders() : left.getHeaders(),
+                    columns, leftValues, rightValues);
+        }
+
+        private boolean cellEqual(int leftRow, int rightRow, int column) {
+            if (column >= left.getColumnCount() || column >= right.getColumnCount()) {
+                return false;
+            }
+            return leftToRight[column][left.code(leftRow, column)] == right.code(rightRow, column);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.universaldiff.format.csv;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing multimap from 64-bit key hashes to row numbers.
+ * <p>
+ * Slots hold a hash and the first and last row stored under it; rows with the same hash are chained through a
+ * per-row {@code next} array in insertion order, so duplicate keys keep every row instead of overwriting one.
+ * Equal hashes do not imply equal keys: callers confirm a candidate by comparing its key cells.
+ */
+final class LongRowIndex {
+
+    static final int NO_ROW = -1;
+
+    private final long[] hashes;
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] next;
+    private final int mask;
+
+    LongRowIndex(int rows) {
+        int capacity = Integer.highestOneBit(Math.max(2, rows) * 2 - 1) << 1;
+        this.hashes = new long[capacity];
+        this.heads = new int[capacity];
+        this.tails = new int[capacity];
+        this.next = new int[rows];
+        this.mask = capacity - 1;
+        Arrays.fill(heads, NO_ROW);
+    }
+
+    /**
+     * Appends {@code row} to the rows stored under {@code hash}.
+     *
+     * @return the row that was stored last under {@code hash} before, or {@link #NO_ROW}
+     */
+    int add(long hash, int row) {
+        int slot = slot(hash);
+        next[row] = NO_ROW;
+        int previous = NO_ROW;
+        if (heads[slot] == NO_ROW) {
+            hashes[slot] = hash;
+            heads[slot] = row;
+        } else {
+            previous = tails[slot];
+            next[previous] = row;
+        }
+        tails[slot] = row;
+        return previous;
+    }
+
+    /**
+     * Returns the first row stored under {@code hash}, or {@link #NO_ROW}.
+     */
+    int first(long hash) {
+        return heads[slot(hash)];
+    }
+
+    /**
+     * Returns the row stored after {@code row} under the same hash, or {@link #NO_ROW}.
+     */
+    int next(int row) {
+        return next[row];
+    }
+
+    private int slot(long hash) {
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (heads[slot] != NO_ROW && hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
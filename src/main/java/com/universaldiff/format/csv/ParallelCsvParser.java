@@ -0,0 +1,211 @@
+package com.universaldiff.format.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses one CSV file into a {@link CsvTable} on several threads.
+ * <p>
+ * A single scan over the memory-mapped file tracks whether each byte is inside a quoted field and cuts the
+ * file into chunks at line feeds outside quotes, so a quoted value with embedded newlines never straddles two
+ * chunks. Chunks are decoded and parsed concurrently on a {@link ForkJoinPool}, each into a table of its own,
+ * and the tables are appended in file order. The scan relies on quotes, commas and line feeds being single
+ * ASCII bytes, which holds for UTF-8 and single-byte charsets; {@link #supports} reports the others.
+ * <p>
+ * Mappings only live for one parse: each chunk reader drops its buffer when closed, and nothing mapped is
+ * reachable once {@link #parse} returns. The JDK cannot unmap explicitly, so on Windows the file stays locked
+ * until the collector releases those buffers.
+ */
+final class ParallelCsvParser {
+
+    /**
+     * Chunks below this size are not worth a task of their own.
+     */
+    static final long MIN_CHUNK_SIZE = 8L << 20;
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+    private static final int SCAN_SEGMENT_SIZE = 1 << 30;
+
+    private ParallelCsvParser() {
+    }
+
+    static boolean supports(Charset encoding) {
+        return encoding.equals(StandardCharsets.UTF_8) || encoding.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+
+    static CsvTable parse(Path path, Charset encoding, int parallelism) throws IOException {
+        return parse(path, encoding, parallelism, MIN_CHUNK_SIZE);
+    }
+
+    static CsvTable parse(Path path, Charset encoding, int parallelism, long minChunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long target = Math.min(MAX_CHUNK_SIZE,
+                    Math.max(minChunkSize, (size + (long) parallelism * CHUNKS_PER_THREAD - 1) / ((long) parallelism * CHUNKS_PER_THREAD)));
+            List<Long> boundaries = recordBoundaries(channel, size, target);
+
+            CsvRecordReader first = CsvRecordReader.open(reader(channel, 0, boundaries.get(1), encoding));
+            List<String> headers = first.headers();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<ForkJoinTask<CsvTable>> chunks = new ArrayList<>(boundaries.size() - 1);
+                chunks.add(pool.submit(() -> parseChunk(first, headers)));
+                for (int i = 1; i < boundaries.size() - 1; i++) {
+                    long from = boundaries.get(i);
+                    long to = boundaries.get(i + 1);
+                    chunks.add(pool.submit(() -> parseChunk(
+                            CsvRecordReader.continuation(reader(channel, from, to, encoding), headers), headers)));
+                }
+                CsvTable.Builder table = CsvTable.builder(headers, headers.size());
+                for (ForkJoinTask<CsvTable> chunk : chunks) {
+                    table.append(chunk.join());
+                }
+                return table.build();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            } finally {
+                pool.shutdown();
+                first.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the chunk offsets, starting with 0 and ending with {@code size}. Each inner offset follows a line
+     * feed that ends a record, at or after the next multiple of {@code target}.
+     */
+    static List<Long> recordBoundaries(FileChannel channel, long size, long target) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        QuoteScanner scanner = new QuoteScanner();
+        long next = target;
+        for (long position = 0; position < size && next < size; ) {
+            int length = (int) Math.min(SCAN_SEGMENT_SIZE, size - position);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (scanner.endsRecord(segment.get(i)) && position + i + 1 >= next && position + i + 1 < size) {
+                    boundaries.add(position + i + 1);
+                    next = position + i + 1 + target;
+                }
+            }
+            position += length;
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    private static CsvTable parseChunk(CsvRecordReader reader, List<String> headers) {
+        try (reader) {
+            CsvTable.Builder table = CsvTable.builder(headers, headers.size());
+            String[] row = new String[headers.size()];
+            while (reader.next(row)) {
+                table.addRow(column -> row[column], row.length);
+            }
+            return table.build();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static BufferedReader reader(FileChannel channel, long from, long to, Charset encoding) throws IOException {
+        ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        return new BufferedReader(new InputStreamReader(new ByteBufferInputStream(chunk), encoding.newDecoder()));
+    }
+
+    /**
+     * Follows the quoting of the adapter's CSV dialect one byte at a time: a quote opens a quoted field only at
+     * the start of a field (after optional spaces), and a doubled quote inside one is an escaped quote.
+     */
+    static final class QuoteScanner {
+        private static final int FIELD_START = 0;
+        private static final int UNQUOTED = 1;
+        private static final int QUOTED = 2;
+        private static final int QUOTE_IN_QUOTED = 3;
+
+        private int state = FIELD_START;
+
+        /**
+         * Consumes one byte and returns whether it is a line feed that ends a record.
+         */
+        boolean endsRecord(byte b) {
+            switch (state) {
+                case QUOTED -> {
+                    if (b == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    }
+                    return false;
+                }
+                case QUOTE_IN_QUOTED -> {
+                    if (b == '"') {
+                        state = QUOTED;
+                        return false;
+                    }
+                }
+                case FIELD_START -> {
+                    if (b == '"') {
+                        state = QUOTED;
+                        return false;
+                    }
+                    if (b == ' ' || b == '\t') {
+                        return false;
+                    }
+                }
+                default -> {
+                }
+            }
+            if (b == ',' || b == '\r') {
+                state = FIELD_START;
+                return false;
+            }
+            if (b == '\n') {
+                state = FIELD_START;
+                return true;
+            }
+            state = UNQUOTED;
+            return false;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer != null && buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (buffer == null || !buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.core.io.WorkDirectories;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.RowDiffGranularity;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyed CSV diff for files larger than the heap.
+ * <p>
+ * Both files are streamed once and every row is appended, with its row number, to the temporary partition
+ * file selected by the 64-bit hash of its key. Rows sharing a key therefore land in the same partition pair, which
+ * is loaded and diffed on its own by {@link KeyedTableDiff}; partitions run in parallel on a
+ * {@link ForkJoinPool}. The hunks are sorted back into whole-file order, so the result matches an in-memory diff.
+ */
+final class PartitionedCsvDiff {
+
+    /**
+     * Partitions are sized so that one pair comfortably fits in memory while it is diffed.
+     */
+    static final long TARGET_PARTITION_BYTES = 64L << 20;
+
+    /**
+     * Upper bound on partitions, and so on partition files open at once while a side is spilled.
+     */
+    static final int MAX_PARTITIONS = 256;
+
+    private static final CSVFormat SPILL_FORMAT = CSVFormat.DEFAULT;
+
+    private PartitionedCsvDiff() {
+    }
+
+    static List<DiffHunk> diff(CsvSource left, CsvSource right, CsvKey key, int parallelism,
+                               RowDiffGranularity granularity) throws IOException {
+        long bytes = Files.size(left.getPath()) + Files.size(right.getPath());
+        int partitions = (int) Math.min(MAX_PARTITIONS, Math.max(1, (bytes + TARGET_PARTITION_BYTES - 1) / TARGET_PARTITION_BYTES));
+        return diff(left, right, key, partitions, parallelism, granularity);
+    }
+
+    static List<DiffHunk> diff(CsvSource left, CsvSource right, CsvKey key, int partitions, int parallelism,
+                               RowDiffGranularity granularity) throws IOException {
+        key.validate(left.getHeaders().size(), "Left");
+        key.validate(right.getHeaders().size(), "Right");
+        Path directory = Files.createTempDirectory("csv-diff-");
+        try {
+            long leftRows = spill(left, key, directory.resolve("left-"), partitions);
+            spill(right, key, directory.resolve("right-"), partitions);
+
+            List<KeyedTableDiff.OrderedHunk> ordered = new ArrayList<>();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<ForkJoinTask<List<KeyedTableDiff.OrderedHunk>>> tasks = new ArrayList<>(partitions);
+                for (int p = 0; p < partitions; p++) {
+                    Path leftPartition = partitionFile(directory.resolve("left-"), p);
+                    Path rightPartition = partitionFile(directory.resolve("right-"), p);
+                    tasks.add(pool.submit(() -> diffPartition(left, leftPartition, right, rightPartition,
+                            key, leftRows, granularity)));
+                }
+                for (ForkJoinTask<List<KeyedTableDiff.OrderedHunk>> task : tasks) {
+                    ordered.addAll(task.join());
+                }
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            } finally {
+                stop(pool);
+            }
+            ordered.sort(Comparator.comparingLong(KeyedTableDiff.OrderedHunk::order));
+            List<DiffHunk> hunks = new ArrayList<>(ordered.size());
+            for (KeyedTableDiff.OrderedHunk hunk : ordered) {
+                hunks.add(hunk.hunk());
+            }
+            return hunks;
+        } finally {
+            WorkDirectories.deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Cancels the partition tasks that have not started and waits for the running ones, so that none still reads
+     * the work directory when it is deleted after one of them failed.
+     */
+    private static void stop(ForkJoinPool pool) {
+        pool.shutdownNow();
+        boolean interrupted = false;
+        while (!pool.isTerminated()) {
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Streams one side into its partition files and returns the number of rows.
+     */
+    private static long spill(CsvSource source, CsvKey key, Path prefix, int partitions) throws IOException {
+        CSVPrinter[] printers = new CSVPrinter[partitions];
+        long rowNumber = 0;
+        try (CsvRecordReader reader = source.openReader()) {
+            String[] row = new String[reader.headers().size()];
+            Object[] record = new Object[row.length + 1];
+            while (reader.next(row)) {
+                long hash = key.hash(row, rowNumber);
+                int partition = Math.floorMod((int) (hash ^ (hash >>> 32)), partitions);
+                if (printers[partition] == null) {
+                    Writer writer = Files.newBufferedWriter(partitionFile(prefix, partition), StandardCharsets.UTF_8);
+                    printers[partition] = new CSVPrinter(writer, SPILL_FORMAT);
+                }
+                record[0] = rowNumber;
+                System.arraycopy(row, 0, record, 1, row.length);
+                printers[partition].printRecord(record);
+                rowNumber++;
+            }
+        } finally {
+            IOException failure = null;
+            for (CSVPrinter printer : printers) {
+                if (printer != null) {
+                    try {
+                        printer.close();
+                    } catch (IOException ex) {
+                        failure = ex;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return rowNumber;
+    }
+
+    private static List<KeyedTableDiff.OrderedHunk> diffPartition(CsvSource left, Path leftPartition,
+                                                                  CsvSource right, Path rightPartition,
+                                                                  CsvKey key, long leftRows,
+                                                                  RowDiffGranularity granularity) {
+        try {
+            Partition leftTable = load(left, leftPartition);
+            Partition rightTable = load(right, rightPartition);
+            return KeyedTableDiff.diff(leftTable.table(), leftTable.rowNumbers(),
+                    rightTable.table(), rightTable.rowNumbers(), key, leftRows, granularity);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            try {
+                Files.deleteIfExists(leftPartition);
+                Files.deleteIfExists(rightPartition);
+            } catch (IOException ignored) {
+                // the directory is removed once all partitions are done
+            }
+        }
+    }
+
+    private record Partition(CsvTable table, long[] rowNumbers) {
+    }
+
+    private static Partition load(CsvSource source, Path file) throws IOException {
+        List<String> headers = source.getHeaders();
+        CsvTable.Builder builder = CsvTable.builder(headers, headers.size());
+        long[] rowNumbers = new long[16];
+        int rows = 0;
+        if (Files.exists(file)) {
+            try (CSVParser parser = new CSVParser(Files.newBufferedReader(file, StandardCharsets.UTF_8), SPILL_FORMAT)) {
+                for (CSVRecord record : parser) {
+                    if (rows == rowNumbers.length) {
+                        rowNumbers = Arrays.copyOf(rowNumbers, rows * 2);
+                    }
+                    rowNumbers[rows++] = Long.parseLong(record.get(0));
+                    builder.addRow(column -> record.get(column + 1), record.size() - 1);
+                }
+            }
+        }
+        return new Partition(builder.build(), Arrays.copyOf(rowNumbers, rows));
+    }
+
+    private static Path partitionFile(Path prefix, int partition) {
+        return prefix.resolveSibling(prefix.getFileName() + Integer.toString(partition) + ".csv");
+    }
+}
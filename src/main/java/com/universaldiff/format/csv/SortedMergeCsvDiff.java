@@ -0,0 +1,168 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.RowDiffGranularity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keyed CSV diff for inputs that are already sorted by their key column.
+ * <p>
+ * Both sides are read once, in step, like the merge phase of a merge sort: the smaller key is a delete or an
+ * insert, equal keys are compared cell by cell. Only the current row of each side is held, so memory does not
+ * grow with the input. Keys that look like integers compare numerically, everything else compares as text.
+ * Only keys with the same text pair up, as in the merge: integer keys of equal value but different text, such
+ * as {@code 1} and {@code 01}, are distinct keys ordered by their text. Rows sharing a key pair up in file order, as in {@link KeyedTableDiff}. Hunks come out in key order.
+ */
+final class SortedMergeCsvDiff {
+
+    private SortedMergeCsvDiff() {
+    }
+
+    static List<DiffHunk> diff(CsvRowStream left, CsvRowStream right, int keyColumn) throws IOException {
+        return diff(left, right, keyColumn, RowDiffGranularity.ROW);
+    }
+
+    static List<DiffHunk> diff(CsvRowStream left, CsvRowStream right, int keyColumn,
+                               RowDiffGranularity granularity) throws IOException {
+        return diff(left, right, keyColumn, granularity, null);
+    }
+
+    /**
+     * @param rightOfLeft if not {@code null}, receives for every paired left row the right row it was paired
+     *                    with, both counted from zero in stream order; entries of unpaired rows are left as they are
+     */
+    static List<DiffHunk> diff(CsvRowStream left, CsvRowStream right, int keyColumn,
+                               RowDiffGranularity granularity, int[] rightOfLeft) throws IOException {
+        CsvKey key = CsvKey.of(keyColumn);
+        SortedRows leftRows = new SortedRows(left, key, "Left");
+        SortedRows rightRows = new SortedRows(right, key, "Right");
+        List<DiffHunk> hunks = new ArrayList<>();
+        boolean hasLeft = leftRows.advance();
+        boolean hasRight = rightRows.advance();
+        while (hasLeft || hasRight) {
+            int order = !hasLeft ? 1 : !hasRight ? -1 : compareKeys(leftRows.key, rightRows.key);
+            if (order < 0) {
+                hunks.add(KeyedTableDiff.deleteHunk(leftRows.key, leftRows.occurrence, leftRows.render()));
+                hasLeft = leftRows.advance();
+            } else if (order > 0) {
+                hunks.add(KeyedTableDiff.insertHunk(rightRows.key, rightRows.occurrence, rightRows.render()));
+                hasRight = rightRows.advance();
+            } else {
+                if (rightOfLeft != null) {
+                    rightOfLeft[leftRows.index()] = rightRows.index();
+                }
+                if (!Arrays.equals(leftRows.row, rightRows.row)) {
+                    hunks.add(granularity == RowDiffGranularity.CELL
+                            ? KeyedTableDiff.modifyHunk(leftRows.key, leftRows.occurrence,
+                            CellChanges.between(headersOf(left, right), leftRows.row, rightRows.row))
+                            : KeyedTableDiff.modifyHunk(leftRows.key, leftRows.occurrence,
+                            leftRows.row.length, leftRows.render(),
+                            rightRows.row.length, rightRows.render()));
+                }
+                hasLeft = leftRows.advance();
+                hasRight = rightRows.advance();
+            }
+        }
+        return hunks;
+    }
+
+    private static List<String> headersOf(CsvRowStream left, CsvRowStream right) {
+        return left.headers().isEmpty() ? right.headers() : left.headers();
+    }
+
+    /**
+     * Orders keys numerically when both are integers and as text otherwise; integers of equal value are ordered
+     * by their text, so only identical keys compare as equal.
+     */
+    static int compareKeys(String left, String right) {
+        if (isInteger(left) && isInteger(right)) {
+            boolean leftNegative = left.charAt(0) == '-';
+            boolean rightNegative = right.charAt(0) == '-';
+            if (leftNegative != rightNegative) {
+                return leftNegative ? -1 : 1;
+            }
+            String leftDigits = stripSignAndZeros(left);
+            String rightDigits = stripSignAndZeros(right);
+            int magnitude = leftDigits.length() != rightDigits.length()
+                    ? Integer.compare(leftDigits.length(), rightDigits.length())
+                    : leftDigits.compareTo(rightDigits);
+            if (magnitude != 0) {
+                return leftNegative ? -magnitude : magnitude;
+            }
+        }
+        return left.compareTo(right);
+    }
+
+    private static boolean isInteger(String value) {
+        int start = !value.isEmpty() && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+        if (start == value.length()) {
+            return false;
+        }
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String stripSignAndZeros(String value) {
+        int start = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+        while (start < value.length() - 1 && value.charAt(start) == '0') {
+            start++;
+        }
+        return value.substring(start);
+    }
+
+    /**
+     * Reads one side row by row, counting repeated keys and rejecting unsorted input.
+     */
+    private static final class SortedRows {
+        private final CsvRowStream rows;
+        private final CsvKey keyColumns;
+        private final String side;
+        private final String[] row;
+        private long rowNumber;
+        private String key;
+        private int occurrence;
+
+        private SortedRows(CsvRowStream rows, CsvKey keyColumns, String side) {
+            this.rows = rows;
+            this.keyColumns = keyColumns;
+            this.side = side;
+            this.row = new String[rows.columnCount()];
+            keyColumns.validate(row.length, side);
+        }
+
+        private boolean advance() throws IOException {
+            if (!rows.next(row)) {
+                return false;
+            }
+            String previous = key;
+            key = keyColumns.of(row, rowNumber);
+            if (previous != null && compareKeys(previous, key) > 0) {
+                throw new IllegalArgumentException(side + " input is not sorted by " + keyColumns
+                        + ": key '" + key + "' at row " + rowNumber + " follows '" + previous + "'");
+            }
+            occurrence = key.equals(previous) ? occurrence + 1 : 0;
+            rowNumber++;
+            return true;
+        }
+
+        /**
+         * Position of the current row in the stream, counting from zero.
+         */
+        private int index() {
+            return Math.toIntExact(rowNumber - 1);
+        }
+
+        private String render() {
+            return CsvTable.format(rows.headers(), Arrays.asList(row));
+        }
+    }
+}
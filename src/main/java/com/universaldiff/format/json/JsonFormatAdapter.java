@@ -12,6 +12,7 @@ import com.universaldiff.format.json.spi.JsonNormalizer;
 import com.universaldiff.format.spi.FormatAdapter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
@@ -31,9 +32,20 @@ public final class JsonFormatAdapter implements FormatAdapter {
     }
 
     public JsonFormatAdapter(boolean ignoreKeyOrder) {
+        this(ignoreKeyOrder, JsonNormalizationMode.TREE);
+    }
+
+    /**
+     * @param mode {@link JsonNormalizationMode#STREAMING} keeps files on disk so large documents diff in bounded
+     *             memory; records are always sorted by path there, so {@code ignoreKeyOrder} has no effect
+     */
+    public JsonFormatAdapter(boolean ignoreKeyOrder, JsonNormalizationMode mode) {
+        Objects.requireNonNull(mode, "mode");
         ObjectMapper mapper = new ObjectMapper();
-        this.normalizer = new JacksonTreeJsonNormalizer(mapper, ignoreKeyOrder);
-        this.differ = new PathAwareJsonDiffer();
+        this.normalizer = mode == JsonNormalizationMode.STREAMING
+                ? new StreamingJsonNormalizer(mapper)
+                : new JacksonTreeJsonNormalizer(mapper, ignoreKeyOrder);
+        this.differ = new PathAwareJsonDiffer(mapper);
         this.merger = new PointerAwareJsonMerger(mapper);
     }
 
@@ -49,8 +61,12 @@ public final class JsonFormatAdapter implements FormatAdapter {
     }
 
     @Override
-    public DiffResult diff(NormalizedContent left, NormalizedContent right) {
-        return differ.diff(left, right);
+    public DiffResult diff(NormalizedContent left, NormalizedContent right) throws IOException {
+        try {
+            return differ.diff(left, right);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
     }
 
     @Override
@@ -0,0 +1,16 @@
+package com.universaldiff.format.json;
+
+/**
+ * Controls how {@link JsonFormatAdapter} holds JSON content after normalization.
+ */
+public enum JsonNormalizationMode {
+    /**
+     * Parses the whole file into a Jackson tree kept as the native model.
+     */
+    TREE,
+    /**
+     * Only checks the file with a streaming parser and keeps it as a {@link JsonSource}. Diffs stream path/value
+     * records through sorted runs on disk, so they are not bounded by heap size; a tree is parsed only for merging.
+     */
+    STREAMING;
+}
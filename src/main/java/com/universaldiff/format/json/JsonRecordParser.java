@@ -0,0 +1,109 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.universaldiff.core.model.PathValueRecords;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads the path/value records of a JSON file from the parser's token stream, in document order.
+ * <p>
+ * Only the chain of open containers is held; leaf values are tagged and rendered exactly as the tree normalizer
+ * does, so both modes produce the same records. Sinks are also told where each container starts: when an object
+ * repeats a member name, the later value replaces everything recorded under that path, as in a parsed tree.
+ */
+final class JsonRecordParser {
+
+    private JsonRecordParser() {
+    }
+
+    interface RecordSink {
+        void accept(String path, PathValueRecords.ValueType type, String value) throws IOException;
+
+        /**
+         * Called when an object or array value starts at {@code path}, before any of its records.
+         */
+        default void container(String path) throws IOException {
+        }
+    }
+
+    static void parse(ObjectMapper mapper, JsonSource source, RecordSink sink) throws IOException {
+        try (Reader reader = Files.newBufferedReader(source.getPath(), source.getEncoding());
+             JsonParser parser = mapper.createParser(reader)) {
+            Deque<Container> open = new ArrayDeque<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case FIELD_NAME -> open.peek().field(parser.currentName());
+                    case START_OBJECT, START_ARRAY -> {
+                        String path = valuePath(open);
+                        sink.container(path);
+                        open.push(new Container(path, token == JsonToken.START_ARRAY));
+                    }
+                    case END_OBJECT, END_ARRAY -> {
+                        open.pop();
+                        if (open.isEmpty()) {
+                            return;
+                        }
+                    }
+                    default -> {
+                        String path = valuePath(open);
+                        JsonNode value = token == JsonToken.VALUE_NULL ? NullNode.getInstance() : parser.readValueAsTree();
+                        if (value == null) {
+                            value = NullNode.getInstance();
+                        }
+                        sink.accept(path, JsonRecords.type(value), JsonRecords.render(mapper, value));
+                        if (open.isEmpty()) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the first root value token by token without keeping it, failing on malformed content.
+     */
+    static void validate(ObjectMapper mapper, JsonSource source) throws IOException {
+        try (Reader reader = Files.newBufferedReader(source.getPath(), source.getEncoding());
+             JsonParser parser = mapper.createParser(reader)) {
+            if (parser.nextToken() != null) {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static String valuePath(Deque<Container> open) {
+        Container parent = open.peek();
+        return parent == null ? "" : parent.childPath();
+    }
+
+    private static final class Container {
+        private final String path;
+        private final boolean array;
+        private int index = -1;
+        private String fieldPath;
+
+        private Container(String path, boolean array) {
+            this.path = path;
+            this.array = array;
+        }
+
+        private void field(String name) {
+            fieldPath = path + "/" + JsonRecords.escape(name);
+        }
+
+        private String childPath() {
+            return array ? path + "/" + ++index : fieldPath;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.universaldiff.core.model.PathValueRecords;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Flattens Jackson trees into JSON pointer paths and their rendered leaf values, shared by the normalizer's
+ * records and the differ so both render and tag values the same way.
+ */
+final class JsonRecords {
+
+    private JsonRecords() {
+    }
+
+    static void flatten(ObjectMapper mapper, String path, JsonNode node, Map<String, String> result,
+                        boolean ignoreKeyOrder) {
+        flatten(path, node, (leafPath, leaf) -> result.put(leafPath, render(mapper, leaf)), ignoreKeyOrder);
+    }
+
+    /**
+     * Visits the leaves below the node with their pointer paths; a missing node is visited as JSON null.
+     */
+    static void flatten(String path, JsonNode node, BiConsumer<String, JsonNode> leaves, boolean ignoreKeyOrder) {
+        if (node == null) {
+            leaves.accept(path, NullNode.getInstance());
+            return;
+        }
+        if (node.isValueNode()) {
+            leaves.accept(path, node);
+            return;
+        }
+        if (node.isArray()) {
+            for (int i = 0; i < node.size(); i++) {
+                flatten(path + "/" + i, node.get(i), leaves, ignoreKeyOrder);
+            }
+            return;
+        }
+        if (node.isObject()) {
+            List<String> fieldNames = new ArrayList<>();
+            node.fieldNames().forEachRemaining(fieldNames::add);
+            if (ignoreKeyOrder) {
+                fieldNames.sort(String::compareTo);
+            }
+            for (String field : fieldNames) {
+                flatten(path + "/" + escape(field), node.get(field), leaves, ignoreKeyOrder);
+            }
+        }
+    }
+
+    static String render(ObjectMapper mapper, JsonNode valueNode) {
+        return String.valueOf(mapper.convertValue(valueNode, String.class));
+    }
+
+    static PathValueRecords.ValueType type(JsonNode valueNode) {
+        if (valueNode.isNumber()) {
+            return PathValueRecords.ValueType.NUMBER;
+        }
+        if (valueNode.isBoolean()) {
+            return PathValueRecords.ValueType.BOOLEAN;
+        }
+        if (valueNode.isNull() || valueNode.isMissingNode()) {
+            return PathValueRecords.ValueType.NULL;
+        }
+        return PathValueRecords.ValueType.STRING;
+    }
+
+    static String escape(String token) {
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+}
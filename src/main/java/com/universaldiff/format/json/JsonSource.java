@@ -0,0 +1,26 @@
+package com.universaldiff.format.json;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A JSON file whose content stays on disk; it is read with a streaming parser when diffed.
+ */
+public final class JsonSource {
+    private final Path path;
+    private final Charset encoding;
+
+    JsonSource(Path path, Charset encoding) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.encoding = Objects.requireNonNull(encoding, "encoding");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Charset getEncoding() {
+        return encoding;
+    }
+}
@@ -0,0 +1,157 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.format.Hashing;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compares two Jackson trees by descending only into subtrees whose hashes differ.
+ * <p>
+ * One bottom-up pass hashes every container of both trees; objects hash their fields in any order and arrays
+ * in sequence, so equal hashes mean equal flattened records. Identical branches are skipped without being
+ * flattened, and the reported changes are exactly those a comparison of the flattened records would find.
+ */
+final class MerkleJsonDiff {
+
+    private final ObjectMapper mapper;
+    private final Map<JsonNode, Long> hashes = new IdentityHashMap<>();
+    private final List<Change> changes = new ArrayList<>();
+
+    private MerkleJsonDiff(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns the changed paths, deletes and modifies first and inserts after them, each group sorted by path
+     * as in the flattened records.
+     */
+    static List<Change> diff(ObjectMapper mapper, JsonNode left, JsonNode right) {
+        MerkleJsonDiff diff = new MerkleJsonDiff(mapper);
+        diff.hash(left);
+        diff.hash(right);
+        diff.compare("", left, right);
+        List<Change> changes = diff.changes;
+        changes.sort((a, b) -> {
+            boolean aInsert = a.type() == DiffType.INSERT;
+            boolean bInsert = b.type() == DiffType.INSERT;
+            return aInsert != bInsert ? Boolean.compare(aInsert, bInsert) : a.path().compareTo(b.path());
+        });
+        return changes;
+    }
+
+    private void compare(String path, JsonNode left, JsonNode right) {
+        if (hash(left) == hash(right)) {
+            return;
+        }
+        if (left.isObject() && right.isObject()) {
+            TreeSet<String> fields = new TreeSet<>();
+            left.fieldNames().forEachRemaining(fields::add);
+            right.fieldNames().forEachRemaining(fields::add);
+            for (String field : fields) {
+                compareChild(path + "/" + JsonRecords.escape(field), left.get(field), right.get(field));
+            }
+        } else if (left.isArray() && right.isArray()) {
+            for (int i = 0; i < Math.max(left.size(), right.size()); i++) {
+                compareChild(path + "/" + i, left.get(i), right.get(i));
+            }
+        } else if (left.isValueNode() && right.isValueNode()) {
+            String leftValue = JsonRecords.render(mapper, left);
+            String rightValue = JsonRecords.render(mapper, right);
+            if (!leftValue.equals(rightValue)) {
+                add(new Change(path, DiffType.MODIFY, leftValue, rightValue));
+            }
+        } else {
+            compareRecords(path, left, right);
+        }
+    }
+
+    private void compareChild(String path, JsonNode left, JsonNode right) {
+        if (left == null || right == null) {
+            compareRecords(path, left, right);
+        } else {
+            compare(path, left, right);
+        }
+    }
+
+    /**
+     * Compares subtrees of different shapes, or present on one side only, by their flattened records.
+     */
+    private void compareRecords(String path, JsonNode left, JsonNode right) {
+        Map<String, String> leftRecords = new LinkedHashMap<>();
+        Map<String, String> rightRecords = new LinkedHashMap<>();
+        if (left != null) {
+            JsonRecords.flatten(mapper, path, left, leftRecords, true);
+        }
+        if (right != null) {
+            JsonRecords.flatten(mapper, path, right, rightRecords, true);
+        }
+        for (Map.Entry<String, String> record : leftRecords.entrySet()) {
+            String other = rightRecords.get(record.getKey());
+            if (other == null) {
+                add(new Change(record.getKey(), DiffType.DELETE, record.getValue(), null));
+            } else if (!other.equals(record.getValue())) {
+                add(new Change(record.getKey(), DiffType.MODIFY, record.getValue(), other));
+            }
+        }
+        for (Map.Entry<String, String> record : rightRecords.entrySet()) {
+            if (!leftRecords.containsKey(record.getKey())) {
+                add(new Change(record.getKey(), DiffType.INSERT, null, record.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Records a change; a scalar root has no pointer a merge could address, so like the record comparison it is
+     * not reported.
+     */
+    private void add(Change change) {
+        if (!change.path().isEmpty()) {
+            changes.add(change);
+        }
+    }
+
+    /**
+     * Hashes a subtree; container hashes are cached, leaves are hashed from their type and text.
+     */
+    private long hash(JsonNode node) {
+        if (node.isValueNode() || node.isMissingNode()) {
+            return Hashing.combine(node.getNodeType().ordinal(), Hashing.hashString(node.asText()));
+        }
+        Long cached = hashes.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        long hash;
+        if (node.isObject()) {
+            long fields = 0;
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                fields += Hashing.combine(Hashing.hashString(field.getKey()), hash(field.getValue()));
+            }
+            hash = Hashing.combine(node.getNodeType().ordinal(), fields);
+        } else {
+            hash = node.getNodeType().ordinal();
+            for (JsonNode element : node) {
+                hash = Hashing.combine(hash, hash(element));
+            }
+            hash = Hashing.combine(hash, node.size());
+        }
+        hashes.put(node, hash);
+        return hash;
+    }
+
+    /**
+     * One changed record; the value of the side that lacks the path is {@code null}.
+     */
+    record Change(String path, DiffType type, String leftValue, String rightValue) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.universaldiff.format.json;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.universaldiff.core.model.DiffFragment;
 import com.universaldiff.core.model.DiffHunk;
 import com.universaldiff.core.model.DiffResult;
@@ -7,76 +9,118 @@ import com.universaldiff.core.model.DiffSide;
 import com.universaldiff.core.model.DiffType;
 import com.universaldiff.core.model.FormatType;
 import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.PathValueRecords;
 import com.universaldiff.format.json.spi.JsonDiffer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Computes JSON diffs by comparing flattened path-value maps.
+ * Computes JSON diffs by comparing the typed path/value records of both sides.
  * Encodes JSON pointer paths in a stable manner to produce hunk identifiers that downstream merges can interpret.
+ * When both sides carry Jackson trees, {@link MerkleJsonDiff} finds the same changes without flattening the
+ * branches the two trees share; when both sides stay on disk as {@link JsonSource}s, {@link StreamingJsonDiff}
+ * compares their sorted record streams. Streaming I/O failures surface as {@link UncheckedIOException}.
  */
 final class PathAwareJsonDiffer implements JsonDiffer {
 
+    private final ObjectMapper mapper;
+
+    PathAwareJsonDiffer() {
+        this(new ObjectMapper());
+    }
+
+    PathAwareJsonDiffer(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
     @Override
     public DiffResult diff(NormalizedContent left, NormalizedContent right) {
         Instant start = Instant.now();
-        Map<String, String> leftMap = toMap(left);
-        Map<String, String> rightMap = toMap(right);
-        Map<String, DiffType> diffIndex = new LinkedHashMap<>();
-        Map<String, List<DiffFragment>> fragments = new LinkedHashMap<>();
-
-        for (String path : leftMap.keySet()) {
-            if (!rightMap.containsKey(path)) {
-                diffIndex.put(path, DiffType.DELETE);
-                fragments.put(path, List.of(new DiffFragment(DiffSide.LEFT, 0, 0, leftMap.get(path))));
-            } else if (!leftMap.get(path).equals(rightMap.get(path))) {
-                diffIndex.put(path, DiffType.MODIFY);
-                fragments.put(path, List.of(
-                        new DiffFragment(DiffSide.LEFT, 0, 0, leftMap.get(path)),
-                        new DiffFragment(DiffSide.RIGHT, 0, 0, rightMap.get(path))
-                ));
-            }
+        if (left.getNativeModel() instanceof JsonNode leftRoot && right.getNativeModel() instanceof JsonNode rightRoot) {
+            return result(MerkleJsonDiff.diff(mapper, leftRoot, rightRoot), left, right, start);
         }
-        for (String path : rightMap.keySet()) {
-            if (!leftMap.containsKey(path)) {
-                diffIndex.put(path, DiffType.INSERT);
-                fragments.put(path, List.of(new DiffFragment(DiffSide.RIGHT, 0, 0, rightMap.get(path))));
+        if (left.getNativeModel() instanceof JsonSource leftSource
+                && right.getNativeModel() instanceof JsonSource rightSource) {
+            try {
+                return result(StreamingJsonDiff.diff(mapper, leftSource, rightSource), left, right, start);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
             }
         }
-
+        PathValueRecords leftRecords = records(left);
+        PathValueRecords rightRecords = records(right);
         List<DiffHunk> hunks = new ArrayList<>();
-        for (Map.Entry<String, DiffType> entry : diffIndex.entrySet()) {
-            String path = entry.getKey();
-            DiffType type = entry.getValue();
-            List<DiffFragment> fragList = fragments.get(path);
-            hunks.add(DiffHunk.of(
-                    "json-path-" + encode(path),
-                    type,
-                    path.isEmpty() ? "/" : path,
-                    fragList));
+        for (int id = 0; id < leftRecords.size(); id++) {
+            String path = leftRecords.path(id);
+            if (path.isEmpty()) {
+                // a scalar root has no pointer a merge could address
+                continue;
+            }
+            int other = rightRecords.indexOf(path);
+            if (other < 0) {
+                hunks.add(hunk(path, DiffType.DELETE,
+                        List.of(new DiffFragment(DiffSide.LEFT, 0, 0, leftRecords.value(id)))));
+            } else if (!leftRecords.value(id).equals(rightRecords.value(other))) {
+                hunks.add(hunk(path, DiffType.MODIFY, List.of(
+                        new DiffFragment(DiffSide.LEFT, 0, 0, leftRecords.value(id)),
+                        new DiffFragment(DiffSide.RIGHT, 0, 0, rightRecords.value(other))
+                )));
+            }
+        }
+        for (int id = 0; id < rightRecords.size(); id++) {
+            String path = rightRecords.path(id);
+            if (!path.isEmpty() && leftRecords.indexOf(path) < 0) {
+                hunks.add(hunk(path, DiffType.INSERT,
+                        List.of(new DiffFragment(DiffSide.RIGHT, 0, 0, rightRecords.value(id)))));
+            }
         }
 
-        return new DiffResult(FormatType.JSON, hunks, Duration.between(start, Instant.now()));
+        return aligned(hunks, left, right, start);
     }
 
-    private Map<String, String> toMap(NormalizedContent content) {
-        Map<String, String> map = new LinkedHashMap<>();
-        for (String record : content.getLogicalRecords()) {
-            int sep = record.indexOf(" = ");
-            if (sep > 0) {
-                String path = record.substring(0, sep);
-                String value = record.substring(sep + 3);
-                map.put(path, value);
+    private DiffResult result(List<MerkleJsonDiff.Change> changes, NormalizedContent left, NormalizedContent right,
+                              Instant start) {
+        List<DiffHunk> hunks = new ArrayList<>(changes.size());
+        for (MerkleJsonDiff.Change change : changes) {
+            List<DiffFragment> fragments = new ArrayList<>(2);
+            if (change.leftValue() != null) {
+                fragments.add(new DiffFragment(DiffSide.LEFT, 0, 0, change.leftValue()));
+            }
+            if (change.rightValue() != null) {
+                fragments.add(new DiffFragment(DiffSide.RIGHT, 0, 0, change.rightValue()));
             }
+            hunks.add(hunk(change.path(), change.type(), fragments));
         }
-        return map;
+        return aligned(hunks, left, right, start);
+    }
+
+    /**
+     * Aligns the records by path only when a renderer asks, so tree and streaming diffs still never flatten
+     * both documents up front.
+     */
+    private DiffResult aligned(List<DiffHunk> hunks, NormalizedContent left, NormalizedContent right, Instant start) {
+        return DiffResult.lazyAlignment(FormatType.JSON, hunks, Duration.between(start, Instant.now()), null,
+                () -> records(left).alignWith(records(right)));
+    }
+
+    private DiffHunk hunk(String path, DiffType type, List<DiffFragment> fragments) {
+        return DiffHunk.of("json-path-" + encode(path), type, path.isEmpty() ? "/" : path, fragments);
+    }
+
+    /**
+     * Returns the typed records of the content, reading {@code "path = value"} lines only for normalizers
+     * that do not provide them.
+     */
+    private PathValueRecords records(NormalizedContent content) {
+        PathValueRecords records = content.getPathValueRecords();
+        return records != null ? records : PathValueRecords.parse(content.getLogicalRecords());
     }
 
     private String encode(String path) {
@@ -13,6 +13,7 @@ import com.universaldiff.core.model.NormalizedContent;
 import com.universaldiff.format.json.spi.JsonMerger;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -39,12 +40,12 @@ final class PointerAwareJsonMerger implements JsonMerger {
                              List<MergeDecision> decisions,
                              Path outputPath) throws IOException {
         Instant start = Instant.now();
-        JsonNode leftRoot = (JsonNode) left.getNativeModel();
+        JsonNode leftRoot = root(left);
         if (!(leftRoot instanceof ObjectNode objectRoot)) {
             throw new IOException("JSON merge currently supports object roots only");
         }
         ObjectNode merged = objectRoot.deepCopy();
-        JsonNode rightRoot = (JsonNode) right.getNativeModel();
+        JsonNode rightRoot = null;
         for (MergeDecision decision : decisions) {
             String pointerEncoded = decision.getHunkId().replace("json-path-", "");
             String pointer = decode(pointerEncoded);
@@ -53,6 +54,9 @@ final class PointerAwareJsonMerger implements JsonMerger {
                     // already left, nothing to do
                 }
                 case TAKE_RIGHT -> {
+                    if (rightRoot == null) {
+                        rightRoot = root(right);
+                    }
                     JsonNode rightValue = resolveNode(rightRoot, pointer);
                     setValue(merged, pointer, rightValue);
                 }
@@ -72,6 +76,18 @@ final class PointerAwareJsonMerger implements JsonMerger {
         return new MergeResult(FormatType.JSON, writtenPath, Duration.between(start, Instant.now()));
     }
 
+    /**
+     * Returns the tree of the content, parsing streamed content from disk since merges need random access.
+     */
+    private JsonNode root(NormalizedContent content) throws IOException {
+        if (content.getNativeModel() instanceof JsonSource source) {
+            try (Reader reader = Files.newBufferedReader(source.getPath(), source.getEncoding())) {
+                return mapper.readTree(reader);
+            }
+        }
+        return (JsonNode) content.getNativeModel();
+    }
+
     private JsonNode resolveNode(JsonNode root, String pointer) {
         JsonPointer jsonPointer = JsonPointer.compile(pointer);
         return root.at(jsonPointer);
@@ -0,0 +1,242 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universaldiff.core.model.PathValueRecords;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Streams the records of a JSON file in path order with bounded memory.
+ * <p>
+ * Records are buffered until {@link #RUN_CHARS} characters, sorted and written as a run to the work directory;
+ * reading merges the runs. Every record and every container start carries its position in the document. When a
+ * path occurs more than once, which only duplicate object keys cause, the last occurrence wins as it does in a
+ * parsed tree: its own record, if any, is kept, and records below the path that precede it are dropped. Only
+ * such repeated paths are remembered while reading.
+ */
+final class SortedJsonRecords implements Closeable {
+
+    /**
+     * Characters of paths and values buffered before a run is spilled to disk.
+     */
+    static final long RUN_CHARS = 16L * 1024 * 1024;
+
+    private final PriorityQueue<Run> queue;
+    private final List<Run> runs;
+    private final Map<String, Long> repeated = new HashMap<>();
+    private String path;
+    private String value;
+
+    private SortedJsonRecords(List<Run> runs) throws IOException {
+        this.runs = runs;
+        this.queue = new PriorityQueue<>(Comparator.comparing((Run run) -> run.path).thenComparingLong(run -> run.sequence));
+        for (Run run : runs) {
+            if (run.advance()) {
+                queue.add(run);
+            }
+        }
+    }
+
+    static SortedJsonRecords sort(ObjectMapper mapper, JsonSource source, Path directory, String prefix)
+            throws IOException {
+        return sort(mapper, source, directory, prefix, RUN_CHARS);
+    }
+
+    static SortedJsonRecords sort(ObjectMapper mapper, JsonSource source, Path directory, String prefix,
+                                  long runChars) throws IOException {
+        List<Path> files = new ArrayList<>();
+        List<Entry> buffer = new ArrayList<>();
+        JsonRecordParser.parse(mapper, source, new JsonRecordParser.RecordSink() {
+            private long sequence;
+            private long bufferedChars;
+
+            @Override
+            public void accept(String recordPath, PathValueRecords.ValueType type, String recordValue) throws IOException {
+                add(new Entry(recordPath, sequence++, recordValue));
+            }
+
+            @Override
+            public void container(String containerPath) throws IOException {
+                add(new Entry(containerPath, sequence++, null));
+            }
+
+            private void add(Entry entry) throws IOException {
+                buffer.add(entry);
+                bufferedChars += entry.path.length() + (entry.value == null ? 0 : entry.value.length());
+                if (bufferedChars >= runChars) {
+                    files.add(writeRun(buffer, directory.resolve(prefix + "-" + files.size() + ".run")));
+                    buffer.clear();
+                    bufferedChars = 0;
+                }
+            }
+        });
+        if (!buffer.isEmpty()) {
+            files.add(writeRun(buffer, directory.resolve(prefix + "-" + files.size() + ".run")));
+        }
+        List<Run> runs = new ArrayList<>(files.size());
+        try {
+            for (Path file : files) {
+                runs.add(new Run(file));
+            }
+            return new SortedJsonRecords(runs);
+        } catch (IOException ex) {
+            for (Run run : runs) {
+                run.close();
+            }
+            throw ex;
+        }
+    }
+
+    private static Path writeRun(List<Entry> entries, Path file) throws IOException {
+        entries.sort(Comparator.comparing(entry -> entry.path));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (Entry entry : entries) {
+                writeString(out, entry.path);
+                out.writeLong(entry.sequence);
+                out.writeBoolean(entry.value != null);
+                if (entry.value != null) {
+                    writeString(out, entry.value);
+                }
+            }
+        }
+        return file;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Moves to the next distinct path that still has a record; returns {@code false} when all records were read.
+     */
+    boolean next() throws IOException {
+        while (!queue.isEmpty()) {
+            Run run = queue.poll();
+            String current = run.path;
+            long sequence = run.sequence;
+            String latest = run.value;
+            int occurrences = 1;
+            advance(run);
+            while (!queue.isEmpty() && queue.peek().path.equals(current)) {
+                Run duplicate = queue.poll();
+                sequence = duplicate.sequence;
+                latest = duplicate.value;
+                occurrences++;
+                advance(duplicate);
+            }
+            if (occurrences > 1) {
+                repeated.put(current, sequence);
+            }
+            if (latest != null && !replacedAbove(current, sequence)) {
+                path = current;
+                value = latest;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an enclosing path occurs again after the record at {@code sequence}, replacing the value it is in.
+     */
+    private boolean replacedAbove(String recordPath, long sequence) {
+        if (repeated.isEmpty()) {
+            return false;
+        }
+        for (int end = recordPath.indexOf('/', 1); end > 0; end = recordPath.indexOf('/', end + 1)) {
+            Long last = repeated.get(recordPath.substring(0, end));
+            if (last != null && sequence < last) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void advance(Run run) throws IOException {
+        if (run.advance()) {
+            queue.add(run);
+        }
+    }
+
+    String path() {
+        return path;
+    }
+
+    String value() {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Run run : runs) {
+            run.close();
+        }
+    }
+
+    /**
+     * A record, or a container start when {@code value} is {@code null}, with its position in the document.
+     */
+    private record Entry(String path, long sequence, String value) {
+    }
+
+    /**
+     * A sorted run file; within a run equal paths keep their document order, and a run's entries all follow
+     * those of earlier runs, so ordering ties by position reads every path's occurrences in document order.
+     */
+    private static final class Run implements Closeable {
+        private final DataInputStream in;
+        private String path;
+        private long sequence;
+        private String value;
+
+        private Run(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+
+        private boolean advance() throws IOException {
+            path = readString();
+            if (path == null) {
+                return false;
+            }
+            sequence = in.readLong();
+            value = in.readBoolean() ? readString() : null;
+            return true;
+        }
+
+        private String readString() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException ex) {
+                return null;
+            }
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) {
+                throw new EOFException("Truncated JSON record run");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universaldiff.core.io.WorkDirectories;
+import com.universaldiff.core.model.DiffType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares two JSON files kept on disk by merge-joining their path-sorted records.
+ * <p>
+ * Each side is parsed token by token into {@link SortedJsonRecords}, so memory holds one run buffer and the
+ * changes rather than either document. The changes are ordered as {@link MerkleJsonDiff} orders them.
+ */
+final class StreamingJsonDiff {
+
+    private StreamingJsonDiff() {
+    }
+
+    static List<MerkleJsonDiff.Change> diff(ObjectMapper mapper, JsonSource left, JsonSource right) throws IOException {
+        return diff(mapper, left, right, SortedJsonRecords.RUN_CHARS);
+    }
+
+    static List<MerkleJsonDiff.Change> diff(ObjectMapper mapper, JsonSource left, JsonSource right, long runChars)
+            throws IOException {
+        Path directory = Files.createTempDirectory("json-diff-");
+        try (SortedJsonRecords leftRecords = SortedJsonRecords.sort(mapper, left, directory, "left", runChars);
+             SortedJsonRecords rightRecords = SortedJsonRecords.sort(mapper, right, directory, "right", runChars)) {
+            List<MerkleJsonDiff.Change> changes = new ArrayList<>();
+            List<MerkleJsonDiff.Change> inserts = new ArrayList<>();
+            boolean hasLeft = leftRecords.next();
+            boolean hasRight = rightRecords.next();
+            while (hasLeft || hasRight) {
+                int order = !hasLeft ? 1 : !hasRight ? -1 : leftRecords.path().compareTo(rightRecords.path());
+                if (order < 0) {
+                    add(changes, new MerkleJsonDiff.Change(leftRecords.path(), DiffType.DELETE, leftRecords.value(), null));
+                    hasLeft = leftRecords.next();
+                } else if (order > 0) {
+                    add(inserts, new MerkleJsonDiff.Change(rightRecords.path(), DiffType.INSERT, null, rightRecords.value()));
+                    hasRight = rightRecords.next();
+                } else {
+                    if (!leftRecords.value().equals(rightRecords.value())) {
+                        add(changes, new MerkleJsonDiff.Change(leftRecords.path(), DiffType.MODIFY,
+                                leftRecords.value(), rightRecords.value()));
+                    }
+                    hasLeft = leftRecords.next();
+                    hasRight = rightRecords.next();
+                }
+            }
+            changes.addAll(inserts);
+            return changes;
+        } finally {
+            WorkDirectories.deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Records a change; like the tree comparison, a scalar root has no pointer a merge could address.
+     */
+    private static void add(List<MerkleJsonDiff.Change> changes, MerkleJsonDiff.Change change) {
+        if (!change.path().isEmpty()) {
+            changes.add(change);
+        }
+    }
+}
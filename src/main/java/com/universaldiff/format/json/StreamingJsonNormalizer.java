@@ -0,0 +1,74 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universaldiff.core.model.FileDescriptor;
+import com.universaldiff.core.model.FormatType;
+import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.PathValueRecords;
+import com.universaldiff.format.json.spi.JsonNormalizer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * {@link JsonNormalizer} that checks the file with Jackson's streaming parser and keeps it on disk as a
+ * {@link JsonSource}. No tree or string copy of the document is held; {@link PathAwareJsonDiffer} streams the
+ * records when diffing and {@link PointerAwareJsonMerger} parses a tree only when merging.
+ */
+final class StreamingJsonNormalizer implements JsonNormalizer {
+
+    private final ObjectMapper mapper;
+
+    StreamingJsonNormalizer(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public NormalizedContent normalize(FileDescriptor descriptor) throws IOException {
+        JsonSource source = new JsonSource(descriptor.getPath(), descriptor.getEncoding());
+        JsonRecordParser.validate(mapper, source);
+        return NormalizedContent.builder(FormatType.JSON)
+                .lazyPathValueRecords(() -> records(source))
+                .nativeModel(source)
+                .encoding(descriptor.getEncoding())
+                .build();
+    }
+
+    /**
+     * Reads the sorted records into memory; only callers that ask for the records pay for them. A value that
+     * repeats an object member replaces the records of the earlier one, so the result matches a parsed tree.
+     */
+    private PathValueRecords records(JsonSource source) {
+        NavigableMap<String, Map.Entry<PathValueRecords.ValueType, String>> leaves = new TreeMap<>();
+        try {
+            JsonRecordParser.parse(mapper, source, new JsonRecordParser.RecordSink() {
+                @Override
+                public void accept(String path, PathValueRecords.ValueType type, String value) {
+                    replace(path);
+                    leaves.put(path, Map.entry(type, value));
+                }
+
+                @Override
+                public void container(String path) {
+                    replace(path);
+                }
+
+                private void replace(String path) {
+                    leaves.remove(path);
+                    // '0' follows '/', so this range holds exactly the paths below this one
+                    leaves.subMap(path + "/", path + "0").clear();
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        PathValueRecords.Builder records = PathValueRecords.builder();
+        for (Map.Entry<String, Map.Entry<PathValueRecords.ValueType, String>> leaf : leaves.entrySet()) {
+            records.add(leaf.getKey(), leaf.getValue().getKey(), leaf.getValue().getValue());
+        }
+        return records.build();
+    }
+}
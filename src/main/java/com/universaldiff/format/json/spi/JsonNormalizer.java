@@ -9,13 +9,14 @@ import java.io.IOException;
  * Converts raw JSON descriptors into {@link NormalizedContent} representations.
  * <p>
  * Responsibilities:
- * - Parse the JSON file into an in-memory model.
+ * - Parse the JSON file into an in-memory model, or validate it and keep it on disk when streaming.
  * - Produce a stable logical record representation suitable for diffing.
  * - Retain the original character encoding for round-tripping.
  * <p>
  * Invariants:
  * - Returned content always declares {@link NormalizedContent#getFormatType()} as {@link com.universaldiff.core.model.FormatType#JSON}.
- * - The native model stored inside the content is a Jackson {@code JsonNode}.
+ * - The native model stored inside the content is a Jackson {@code JsonNode}, or a
+ *   {@link com.universaldiff.format.json.JsonSource} when the file is streamed instead of parsed into a tree.
  */
 public interface JsonNormalizer {
 
@@ -1,5 +1,6 @@
 package com.universaldiff.format.spi;
 
+import com.universaldiff.core.model.ComparisonOptions;
 import com.universaldiff.core.model.DiffResult;
 import com.universaldiff.core.model.FileDescriptor;
 import com.universaldiff.core.model.MergeDecision;
@@ -14,11 +15,30 @@ public interface FormatAdapter {
 
     DiffResult diff(NormalizedContent left, NormalizedContent right) throws IOException;
 
+    /**
+     * Diffs with per-comparison options; adapters that have no tunable behaviour keep the default.
+     */
+    default DiffResult diff(NormalizedContent left, NormalizedContent right, ComparisonOptions options) throws IOException {
+        return diff(left, right);
+    }
+
     MergeResult merge(NormalizedContent left,
                       NormalizedContent right,
                       List<MergeDecision> decisions,
                       java.nio.file.Path outputPath) throws IOException;
 
+    /**
+     * Merges using the result of an earlier {@link #diff} of the same contents, so adapters that keep their
+     * delta model in {@link DiffResult#getNativeModel()} do not have to diff again.
+     */
+    default MergeResult merge(NormalizedContent left,
+                              NormalizedContent right,
+                              DiffResult diffResult,
+                              List<MergeDecision> decisions,
+                              java.nio.file.Path outputPath) throws IOException {
+        return merge(left, right, decisions, outputPath);
+    }
+
     default boolean supportsMergePreview() {
         return true;
     }
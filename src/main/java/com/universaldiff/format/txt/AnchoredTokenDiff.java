@@ -0,0 +1,121 @@
+package com.universaldiff.format.txt;
+
+import java.util.Objects;
+
+/**
+ * Pre-pass that narrows the work handed to a slower {@link TokenDiffAlgorithm}.
+ * The identical head and tail are stripped first; the remaining middle is then split on anchor lines that occur
+ * exactly once on each side (patience-style, kept in order via a longest increasing subsequence), and only the
+ * gaps between anchors are passed to the delegate.
+ */
+final class AnchoredTokenDiff implements TokenDiffAlgorithm {
+
+    private final TokenDiffAlgorithm delegate;
+
+    AnchoredTokenDiff(TokenDiffAlgorithm delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+    }
+
+    @Override
+    public void diff(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo, EditScript script) {
+        while (leftFrom < leftTo && rightFrom < rightTo && left[leftFrom] == right[rightFrom]) {
+            leftFrom++;
+            rightFrom++;
+        }
+        while (leftFrom < leftTo && rightFrom < rightTo && left[leftTo - 1] == right[rightTo - 1]) {
+            leftTo--;
+            rightTo--;
+        }
+        if (leftFrom == leftTo || rightFrom == rightTo) {
+            script.add(leftFrom, leftTo, rightFrom, rightTo);
+            return;
+        }
+
+        int[] anchors = uniqueAnchors(left, leftFrom, leftTo, right, rightFrom, rightTo);
+        int leftCursor = leftFrom;
+        int rightCursor = rightFrom;
+        for (int i = 0; i < anchors.length; i += 2) {
+            delegate.diff(left, leftCursor, anchors[i], right, rightCursor, anchors[i + 1], script);
+            leftCursor = anchors[i] + 1;
+            rightCursor = anchors[i + 1] + 1;
+        }
+        delegate.diff(left, leftCursor, leftTo, right, rightCursor, rightTo, script);
+    }
+
+    /**
+     * Returns anchor pairs as {@code [leftIndex0, rightIndex0, leftIndex1, rightIndex1, ...]}, increasing on both sides.
+     */
+    static int[] uniqueAnchors(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo) {
+        int maxToken = -1;
+        for (int i = leftFrom; i < leftTo; i++) {
+            maxToken = Math.max(maxToken, left[i]);
+        }
+        for (int i = rightFrom; i < rightTo; i++) {
+            maxToken = Math.max(maxToken, right[i]);
+        }
+        // Per token: occurrence count on each side (capped at 2) and position of the right-hand occurrence.
+        byte[] leftCounts = new byte[maxToken + 1];
+        byte[] rightCounts = new byte[maxToken + 1];
+        int[] rightPositions = new int[maxToken + 1];
+        for (int i = leftFrom; i < leftTo; i++) {
+            if (leftCounts[left[i]] < 2) {
+                leftCounts[left[i]]++;
+            }
+        }
+        for (int i = rightFrom; i < rightTo; i++) {
+            int token = right[i];
+            if (rightCounts[token] < 2) {
+                rightCounts[token]++;
+            }
+            rightPositions[token] = i;
+        }
+
+        int[] candidateLeft = new int[Math.min(leftTo - leftFrom, rightTo - rightFrom)];
+        int[] candidateRight = new int[candidateLeft.length];
+        int candidates = 0;
+        for (int i = leftFrom; i < leftTo && candidates < candidateLeft.length; i++) {
+            int token = left[i];
+            if (leftCounts[token] == 1 && rightCounts[token] == 1) {
+                candidateLeft[candidates] = i;
+                candidateRight[candidates] = rightPositions[token];
+                candidates++;
+            }
+        }
+        return longestIncreasingRun(candidateLeft, candidateRight, candidates);
+    }
+
+    private static int[] longestIncreasingRun(int[] candidateLeft, int[] candidateRight, int count) {
+        if (count == 0) {
+            return new int[0];
+        }
+        int[] tails = new int[count];
+        int[] predecessors = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int value = candidateRight[i];
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (candidateRight[tails[mid]] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        int[] anchors = new int[length * 2];
+        int index = tails[length - 1];
+        for (int i = length - 1; i >= 0; i--) {
+            anchors[i * 2] = candidateLeft[index];
+            anchors[i * 2 + 1] = candidateRight[index];
+            index = predecessors[index];
+        }
+        return anchors;
+    }
+}
@@ -0,0 +1,50 @@
+package com.universaldiff.format.txt;
+
+import com.universaldiff.format.txt.spi.LineEdit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Accumulates edit regions in ascending order, coalescing regions that touch into a single {@link LineEdit}.
+ */
+final class EditScript {
+
+    private final List<LineEdit> edits = new ArrayList<>();
+    private int leftStart = -1;
+    private int leftEnd;
+    private int rightStart;
+    private int rightEnd;
+
+    /**
+     * Records that left {@code [leftFrom, leftTo)} was replaced by right {@code [rightFrom, rightTo)}.
+     */
+    void add(int leftFrom, int leftTo, int rightFrom, int rightTo) {
+        if (leftFrom == leftTo && rightFrom == rightTo) {
+            return;
+        }
+        if (leftStart >= 0 && leftEnd == leftFrom && rightEnd == rightFrom) {
+            leftEnd = leftTo;
+            rightEnd = rightTo;
+            return;
+        }
+        flush();
+        leftStart = leftFrom;
+        leftEnd = leftTo;
+        rightStart = rightFrom;
+        rightEnd = rightTo;
+    }
+
+    List<LineEdit> toList() {
+        flush();
+        return Collections.unmodifiableList(edits);
+    }
+
+    private void flush() {
+        if (leftStart >= 0) {
+            edits.add(new LineEdit(leftStart, leftEnd - leftStart, rightStart, rightEnd - rightStart));
+            leftStart = -1;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.universaldiff.format.txt;
+
+import com.universaldiff.core.model.DiffAlgorithm;
+import com.universaldiff.format.txt.spi.LineDiffEngine;
+import com.universaldiff.format.txt.spi.LineEdit;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Default {@link LineDiffEngine} that interns every line into an int token before diffing.
+ * The diff algorithm then compares primitive tokens instead of calling {@link String#equals} on each probe,
+ * and only runs on what is left after the common head, tail and unique anchor lines have been matched.
+ */
+public final class HashedLineDiffEngine implements LineDiffEngine {
+
+    private final TokenDiffAlgorithm algorithm;
+
+    public HashedLineDiffEngine() {
+        this(DiffAlgorithm.MYERS);
+    }
+
+    public HashedLineDiffEngine(DiffAlgorithm algorithm) {
+        this(tokenAlgorithm(Objects.requireNonNull(algorithm, "algorithm")));
+    }
+
+    HashedLineDiffEngine(TokenDiffAlgorithm algorithm) {
+        this.algorithm = Objects.requireNonNull(algorithm, "algorithm");
+    }
+
+    @Override
+    public List<LineEdit> diff(List<String> left, List<String> right) {
+        LineTokenizer tokenizer = new LineTokenizer(left.size() + right.size());
+        int[] leftTokens = tokenizer.tokenize(left, 0);
+        int[] rightTokens = tokenizer.tokenize(right, 1);
+        EditScript script = new EditScript();
+        algorithm.diff(leftTokens, 0, leftTokens.length, rightTokens, 0, rightTokens.length, script);
+        return script.toList();
+    }
+
+    private static TokenDiffAlgorithm tokenAlgorithm(DiffAlgorithm algorithm) {
+        return switch (algorithm) {
+            case MYERS -> new AnchoredTokenDiff(new MyersTokenDiff());
+            case MYERS_LINEAR_SPACE -> new AnchoredTokenDiff(new LinearSpaceMyersTokenDiff());
+            case HISTOGRAM -> new HistogramTokenDiff(new MyersTokenDiff());
+            case PATIENCE -> new PatienceTokenDiff(new MyersTokenDiff());
+        };
+    }
+}
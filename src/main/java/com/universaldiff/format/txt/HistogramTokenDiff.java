@@ -0,0 +1,112 @@
+package com.universaldiff.format.txt;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Histogram diff in the style of JGit: within each region the common run built around the least frequent left
+ * token is taken as the split point, and the regions before and after it are processed the same way.
+ * Regions whose candidate tokens all occur more than {@link #MAX_CHAIN_LENGTH} times go to the fallback algorithm.
+ */
+final class HistogramTokenDiff implements TokenDiffAlgorithm {
+
+    static final int MAX_CHAIN_LENGTH = 64;
+
+    private final TokenDiffAlgorithm fallback;
+
+    HistogramTokenDiff(TokenDiffAlgorithm fallback) {
+        this.fallback = Objects.requireNonNull(fallback, "fallback");
+    }
+
+    @Override
+    public void diff(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo, EditScript script) {
+        int maxToken = -1;
+        for (int i = leftFrom; i < leftTo; i++) {
+            maxToken = Math.max(maxToken, left[i]);
+        }
+        // Per left token: occurrence count and the most recent position; older positions chain through previous[].
+        int[] counts = new int[maxToken + 1];
+        int[] lastPosition = new int[maxToken + 1];
+        int[] previous = new int[Math.max(0, leftTo - leftFrom)];
+        Arrays.fill(lastPosition, -1);
+
+        RegionStack stack = new RegionStack();
+        stack.push(leftFrom, leftTo, rightFrom, rightTo);
+        int[] region = new int[4];
+        while (!stack.isEmpty()) {
+            stack.pop(region);
+            int aFrom = region[0];
+            int aTo = region[1];
+            int bFrom = region[2];
+            int bTo = region[3];
+            while (aFrom < aTo && bFrom < bTo && left[aFrom] == right[bFrom]) {
+                aFrom++;
+                bFrom++;
+            }
+            while (aFrom < aTo && bFrom < bTo && left[aTo - 1] == right[bTo - 1]) {
+                aTo--;
+                bTo--;
+            }
+            if (aFrom == aTo || bFrom == bTo) {
+                script.add(aFrom, aTo, bFrom, bTo);
+                continue;
+            }
+
+            for (int i = aFrom; i < aTo; i++) {
+                int token = left[i];
+                counts[token]++;
+                previous[i - leftFrom] = lastPosition[token];
+                lastPosition[token] = i;
+            }
+            int bestLeftStart = -1;
+            int bestLeftEnd = -1;
+            int bestRightStart = -1;
+            int bestRightEnd = -1;
+            int bestCount = MAX_CHAIN_LENGTH;
+            int b = bFrom;
+            while (b < bTo) {
+                int token = right[b];
+                int nextB = b + 1;
+                if (token <= maxToken && counts[token] > 0 && counts[token] <= bestCount) {
+                    for (int a = lastPosition[token]; a >= aFrom; a = previous[a - leftFrom]) {
+                        int as = a;
+                        int bs = b;
+                        int ae = a + 1;
+                        int be = b + 1;
+                        int regionCount = counts[token];
+                        while (as > aFrom && bs > bFrom && left[as - 1] == right[bs - 1]) {
+                            as--;
+                            bs--;
+                            regionCount = Math.min(regionCount, counts[left[as]]);
+                        }
+                        while (ae < aTo && be < bTo && left[ae] == right[be]) {
+                            regionCount = Math.min(regionCount, counts[left[ae]]);
+                            ae++;
+                            be++;
+                        }
+                        if (bestLeftEnd - bestLeftStart < ae - as || regionCount < bestCount) {
+                            bestLeftStart = as;
+                            bestLeftEnd = ae;
+                            bestRightStart = bs;
+                            bestRightEnd = be;
+                            bestCount = regionCount;
+                        }
+                        nextB = Math.max(nextB, be);
+                    }
+                }
+                b = nextB;
+            }
+            for (int i = aFrom; i < aTo; i++) {
+                counts[left[i]] = 0;
+                lastPosition[left[i]] = -1;
+            }
+
+            if (bestLeftStart < 0) {
+                fallback.diff(left, aFrom, aTo, right, bFrom, bTo, script);
+                continue;
+            }
+            stack.push(bestLeftEnd, aTo, bestRightEnd, bTo);
+            stack.push(aFrom, bestLeftStart, bFrom, bestRightStart);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.universaldiff.format.txt;
+
+import com.universaldiff.format.Hashing;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Interns lines into dense int tokens so that equal lines on either side share a token.
+ * Lines are keyed by a 64-bit hash; a hash hit is confirmed against a representative line to rule out collisions.
+ * Representatives are remembered by position rather than by reference so lazily decoded line lists stay lazy.
+ */
+final class LineTokenizer {
+
+    private static final int EMPTY = -1;
+    private static final int MAX_INITIAL_TOKENS = 1 << 20;
+
+    private final List<?>[] sources = new List<?>[2];
+    private long[] slotHashes;
+    private int[] slotTokens;
+    private int[] representativeSides;
+    private int[] representativeIndexes;
+    private int tokenCount;
+
+    LineTokenizer(int expectedLines) {
+        int initialTokens = Math.max(16, Math.min(expectedLines, MAX_INITIAL_TOKENS));
+        int capacity = 32;
+        while (capacity < initialTokens * 2) {
+            capacity <<= 1;
+        }
+        slotHashes = new long[capacity];
+        slotTokens = new int[capacity];
+        Arrays.fill(slotTokens, EMPTY);
+        representativeSides = new int[initialTokens];
+        representativeIndexes = new int[representativeSides.length];
+    }
+
+    /**
+     * Tokenizes one side; {@code side} must be 0 or 1 and each side may be tokenized once.
+     */
+    int[] tokenize(List<String> lines, int side) {
+        sources[side] = lines;
+        int[] tokens = new int[lines.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = intern(lines.get(i), side, i);
+        }
+        return tokens;
+    }
+
+    int tokenCount() {
+        return tokenCount;
+    }
+
+    private int intern(String line, int side, int index) {
+        long hash = hash(line);
+        int mask = slotTokens.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (true) {
+            int token = slotTokens[slot];
+            if (token == EMPTY) {
+                return addToken(slot, hash, side, index);
+            }
+            if (slotHashes[slot] == hash && line.equals(representative(token))) {
+                return token;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int addToken(int slot, long hash, int side, int index) {
+        int token = tokenCount++;
+        if (token == representativeSides.length) {
+            int grown = representativeSides.length * 2;
+            representativeSides = Arrays.copyOf(representativeSides, grown);
+            representativeIndexes = Arrays.copyOf(representativeIndexes, grown);
+        }
+        representativeSides[token] = side;
+        representativeIndexes[token] = index;
+        slotHashes[slot] = hash;
+        slotTokens[slot] = token;
+        if (tokenCount * 2 > slotTokens.length) {
+            rehash();
+        }
+        return token;
+    }
+
+    private Object representative(int token) {
+        return sources[representativeSides[token]].get(representativeIndexes[token]);
+    }
+
+    private void rehash() {
+        long[] oldHashes = slotHashes;
+        int[] oldTokens = slotTokens;
+        slotHashes = new long[oldHashes.length * 2];
+        slotTokens = new int[oldTokens.length * 2];
+        Arrays.fill(slotTokens, EMPTY);
+        int mask = slotTokens.length - 1;
+        for (int i = 0; i < oldTokens.length; i++) {
+            if (oldTokens[i] == EMPTY) {
+                continue;
+            }
+            long hash = oldHashes[i];
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (slotTokens[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slotHashes[slot] = hash;
+            slotTokens[slot] = oldTokens[i];
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over UTF-16 code units followed by a MurmurHash3 finalizer.
+     */
+    static long hash(String line) {
+        return Hashing.mix(Hashing.hashString(line));
+    }
+}
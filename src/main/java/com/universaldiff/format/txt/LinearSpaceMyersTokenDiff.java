@@ -0,0 +1,121 @@
+package com.universaldiff.format.txt;
+
+import java.util.Arrays;
+
+/**
+ * Myers diff in linear space: each region is split at the point where the forward and reverse searches overlap
+ * and both halves are diffed independently. Output is minimal like {@link MyersTokenDiff}, but only two diagonal
+ * vectors are live at a time, so heavily diverging inputs do not blow up memory.
+ */
+final class LinearSpaceMyersTokenDiff implements TokenDiffAlgorithm {
+
+    @Override
+    public void diff(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo, EditScript script) {
+        RegionStack stack = new RegionStack();
+        stack.push(leftFrom, leftTo, rightFrom, rightTo);
+        int[] region = new int[4];
+        while (!stack.isEmpty()) {
+            stack.pop(region);
+            int aFrom = region[0];
+            int aTo = region[1];
+            int bFrom = region[2];
+            int bTo = region[3];
+            while (aFrom < aTo && bFrom < bTo && left[aFrom] == right[bFrom]) {
+                aFrom++;
+                bFrom++;
+            }
+            while (aFrom < aTo && bFrom < bTo && left[aTo - 1] == right[bTo - 1]) {
+                aTo--;
+                bTo--;
+            }
+            if (aFrom == aTo || bFrom == bTo || (aTo - aFrom == 1 && bTo - bFrom == 1)) {
+                script.add(aFrom, aTo, bFrom, bTo);
+                continue;
+            }
+            long split = bisect(left, aFrom, aTo, right, bFrom, bTo);
+            int x = (int) (split >>> 32);
+            int y = (int) split;
+            if (split < 0 || (x == 0 && y == 0) || (x == aTo - aFrom && y == bTo - bFrom)) {
+                script.add(aFrom, aTo, bFrom, bTo);
+                continue;
+            }
+            stack.push(aFrom + x, aTo, bFrom + y, bTo);
+            stack.push(aFrom, aFrom + x, bFrom, bFrom + y);
+        }
+    }
+
+    /**
+     * Returns the overlap point of the forward and reverse searches relative to the region start, packed as
+     * {@code x << 32 | y}, or {@code -1} when the region shares no common token.
+     */
+    private long bisect(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int n = aTo - aFrom;
+        int m = bTo - bFrom;
+        int maxD = (n + m + 1) / 2;
+        int vOffset = maxD;
+        int vLength = 2 * maxD + 2;
+        int[] forward = new int[vLength];
+        int[] reverse = new int[vLength];
+        Arrays.fill(forward, -1);
+        Arrays.fill(reverse, -1);
+        forward[vOffset + 1] = 0;
+        reverse[vOffset + 1] = 0;
+        int delta = n - m;
+        boolean front = (delta & 1) != 0;
+        int k1Start = 0;
+        int k1End = 0;
+        int k2Start = 0;
+        int k2End = 0;
+        for (int d = 0; d < maxD; d++) {
+            for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+                int k1Offset = vOffset + k1;
+                int x1 = (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1]))
+                        ? forward[k1Offset + 1]
+                        : forward[k1Offset - 1] + 1;
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && a[aFrom + x1] == b[bFrom + y1]) {
+                    x1++;
+                    y1++;
+                }
+                forward[k1Offset] = x1;
+                if (x1 > n) {
+                    k1End += 2;
+                } else if (y1 > m) {
+                    k1Start += 2;
+                } else if (front) {
+                    int k2Offset = vOffset + delta - k1;
+                    if (k2Offset >= 0 && k2Offset < vLength && reverse[k2Offset] != -1 && x1 >= n - reverse[k2Offset]) {
+                        return ((long) x1 << 32) | y1;
+                    }
+                }
+            }
+            for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+                int k2Offset = vOffset + k2;
+                int x2 = (k2 == -d || (k2 != d && reverse[k2Offset - 1] < reverse[k2Offset + 1]))
+                        ? reverse[k2Offset + 1]
+                        : reverse[k2Offset - 1] + 1;
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && a[aTo - x2 - 1] == b[bTo - y2 - 1]) {
+                    x2++;
+                    y2++;
+                }
+                reverse[k2Offset] = x2;
+                if (x2 > n) {
+                    k2End += 2;
+                } else if (y2 > m) {
+                    k2Start += 2;
+                } else if (!front) {
+                    int k1Offset = vOffset + delta - k2;
+                    if (k1Offset >= 0 && k1Offset < vLength && forward[k1Offset] != -1) {
+                        int x1 = forward[k1Offset];
+                        int y1 = vOffset + x1 - k1Offset;
+                        if (x1 >= n - x2) {
+                            return ((long) x1 << 32) | y1;
+                        }
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+}
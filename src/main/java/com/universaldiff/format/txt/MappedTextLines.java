@@ -0,0 +1,174 @@
+package com.universaldiff.format.txt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Read-only {@link java.util.List} view over the lines of a memory-mapped text file.
+ * Only a primitive index of line start offsets is kept on the heap; each line is decoded on demand.
+ * Line terminators follow {@link java.io.BufferedReader#readLine()}: {@code \n}, {@code \r} or {@code \r\n}.
+ * <p>
+ * The JDK cannot unmap a file explicitly: a mapping, and on Windows the lock on its file, lasts until the buffers
+ * are garbage collected. {@link #close()} drops this view's references so that happens once the session that
+ * read the file ends; lines cannot be read afterwards.
+ */
+final class MappedTextLines extends AbstractList<String> implements RandomAccess, Closeable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private volatile MappedByteBuffer[] segments;
+    private final int segmentSize;
+    private final long[] offsets;
+    private final int lineCount;
+    private final Charset encoding;
+
+    private MappedTextLines(MappedByteBuffer[] segments, int segmentSize, long[] offsets, int lineCount, Charset encoding) {
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.offsets = offsets;
+        this.lineCount = lineCount;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Returns whether line terminators can be located by scanning raw bytes for the given charset.
+     */
+    static boolean supports(Charset encoding) {
+        return StandardCharsets.UTF_8.equals(encoding)
+                || StandardCharsets.US_ASCII.equals(encoding)
+                || StandardCharsets.ISO_8859_1.equals(encoding);
+    }
+
+    static MappedTextLines open(Path path, Charset encoding) throws IOException {
+        return open(path, encoding, DEFAULT_SEGMENT_SIZE);
+    }
+
+    static MappedTextLines open(Path path, Charset encoding, int segmentSize) throws IOException {
+        Objects.requireNonNull(path, "path");
+        if (!supports(encoding)) {
+            throw new IOException("Memory-mapped line index does not support encoding " + encoding);
+        }
+        MappedByteBuffer[] segments;
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            int count = (int) ((size + segmentSize - 1) / segmentSize);
+            segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long position = (long) i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+            }
+        }
+        return index(segments, segmentSize, size, encoding);
+    }
+
+    private static MappedTextLines index(MappedByteBuffer[] segments,
+                                         int segmentSize,
+                                         long size,
+                                         Charset encoding) throws IOException {
+        long[] offsets = new long[1024];
+        int lines = 0;
+        long lineStart = 0;
+        boolean pendingCarriageReturn = false;
+        for (int s = 0; s < segments.length; s++) {
+            MappedByteBuffer segment = segments[s];
+            long base = (long) s * segmentSize;
+            int limit = segment.limit();
+            for (int i = 0; i < limit; i++) {
+                byte value = segment.get(i);
+                if (pendingCarriageReturn) {
+                    pendingCarriageReturn = false;
+                    if (value == '\n') {
+                        lineStart = base + i + 1;
+                        continue;
+                    }
+                }
+                if (value == '\n' || value == '\r') {
+                    if (lines + 1 >= offsets.length) {
+                        offsets = grow(offsets);
+                    }
+                    offsets[lines++] = lineStart;
+                    lineStart = base + i + 1;
+                    pendingCarriageReturn = value == '\r';
+                }
+            }
+        }
+        if (lineStart < size) {
+            if (lines + 1 >= offsets.length) {
+                offsets = grow(offsets);
+            }
+            offsets[lines++] = lineStart;
+            lineStart = size;
+        }
+        offsets[lines] = lineStart;
+        return new MappedTextLines(segments, segmentSize, offsets, lines, encoding);
+    }
+
+    private static long[] grow(long[] offsets) throws IOException {
+        if (offsets.length >= Integer.MAX_VALUE - 8) {
+            throw new IOException("Text file contains too many lines to index");
+        }
+        return Arrays.copyOf(offsets, (int) Math.min(Integer.MAX_VALUE - 8L, offsets.length * 2L));
+    }
+
+    @Override
+    public String get(int index) {
+        Objects.checkIndex(index, lineCount);
+        MappedByteBuffer[] mapped = segments;
+        if (mapped == null) {
+            throw new IllegalStateException("Mapped text lines are closed");
+        }
+        long start = offsets[index];
+        long end = offsets[index + 1];
+        if (end > start && byteAt(mapped, end - 1) == '\n') {
+            end--;
+            if (end > start && byteAt(mapped, end - 1) == '\r') {
+                end--;
+            }
+        } else if (end > start && byteAt(mapped, end - 1) == '\r') {
+            end--;
+        }
+        return new String(read(mapped, start, (int) (end - start)), encoding);
+    }
+
+    @Override
+    public int size() {
+        return lineCount;
+    }
+
+    /**
+     * Drops the mapped segments so they can be collected; the line index stays, so {@link #size()} still works.
+     */
+    @Override
+    public void close() {
+        segments = null;
+    }
+
+    private byte byteAt(MappedByteBuffer[] segments, long position) {
+        return segments[(int) (position / segmentSize)].get((int) (position % segmentSize));
+    }
+
+    private byte[] read(MappedByteBuffer[] segments, long position, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long current = position + copied;
+            MappedByteBuffer segment = segments[(int) (current / segmentSize)];
+            int offset = (int) (current % segmentSize);
+            int chunk = Math.min(length - copied, segment.limit() - offset);
+            segment.get(offset, bytes, copied, chunk);
+            copied += chunk;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.universaldiff.format.txt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Greedy O(ND) Myers diff over token arrays.
+ * Keeps one snapshot of the furthest-reaching diagonals per edit distance for the backtrack, so memory grows with D squared.
+ */
+final class MyersTokenDiff implements TokenDiffAlgorithm {
+
+    @Override
+    public void diff(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo, EditScript script) {
+        int n = leftTo - leftFrom;
+        int m = rightTo - rightFrom;
+        if (n == 0 || m == 0) {
+            script.add(leftFrom, leftTo, rightFrom, rightTo);
+            return;
+        }
+        int max = n + m;
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            trace.add(snapshot(v, offset, d));
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && left[leftFrom + x] == right[rightFrom + y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    backtrack(trace, d, n, m, leftFrom, rightFrom, script);
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("Myers diff did not converge");
+    }
+
+    /**
+     * Copies diagonals {@code [-(d - 1), d - 1]}, the only ones read while computing edit distance {@code d}.
+     */
+    private int[] snapshot(int[] v, int offset, int d) {
+        if (d == 0) {
+            return new int[0];
+        }
+        int[] copy = new int[2 * d - 1];
+        System.arraycopy(v, offset - d + 1, copy, 0, copy.length);
+        return copy;
+    }
+
+    private void backtrack(List<int[]> trace, int distance, int n, int m, int leftFrom, int rightFrom, EditScript script) {
+        int[] moves = new int[distance * 2];
+        int x = n;
+        int y = m;
+        for (int d = distance; d > 0; d--) {
+            int[] previous = trace.get(d);
+            int base = d - 1;
+            int k = x - y;
+            boolean down = k == -d || (k != d && previous[base + k - 1] < previous[base + k + 1]);
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = previous[base + previousK];
+            int previousY = previousX - previousK;
+            moves[(d - 1) * 2] = previousX;
+            moves[(d - 1) * 2 + 1] = down ? previousY : -previousY - 1;
+            x = previousX;
+            y = previousY;
+        }
+        for (int i = 0; i < distance; i++) {
+            int moveX = moves[i * 2];
+            int encodedY = moves[i * 2 + 1];
+            if (encodedY >= 0) {
+                script.add(leftFrom + moveX, leftFrom + moveX, rightFrom + encodedY, rightFrom + encodedY + 1);
+            } else {
+                int moveY = -encodedY - 1;
+                script.add(leftFrom + moveX, leftFrom + moveX + 1, rightFrom + moveY, rightFrom + moveY);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.universaldiff.format.txt;
+
+import java.util.Objects;
+
+/**
+ * Patience diff: each region is split on the ordered lines that are unique on both sides, and the gaps between
+ * them are split again until no unique lines remain, at which point the fallback algorithm takes over.
+ */
+final class PatienceTokenDiff implements TokenDiffAlgorithm {
+
+    private final TokenDiffAlgorithm fallback;
+
+    PatienceTokenDiff(TokenDiffAlgorithm fallback) {
+        this.fallback = Objects.requireNonNull(fallback, "fallback");
+    }
+
+    @Override
+    public void diff(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo, EditScript script) {
+        RegionStack stack = new RegionStack();
+        stack.push(leftFrom, leftTo, rightFrom, rightTo);
+        int[] region = new int[4];
+        while (!stack.isEmpty()) {
+            stack.pop(region);
+            int aFrom = region[0];
+            int aTo = region[1];
+            int bFrom = region[2];
+            int bTo = region[3];
+            while (aFrom < aTo && bFrom < bTo && left[aFrom] == right[bFrom]) {
+                aFrom++;
+                bFrom++;
+            }
+            while (aFrom < aTo && bFrom < bTo && left[aTo - 1] == right[bTo - 1]) {
+                aTo--;
+                bTo--;
+            }
+            if (aFrom == aTo || bFrom == bTo) {
+                script.add(aFrom, aTo, bFrom, bTo);
+                continue;
+            }
+            int[] anchors = AnchoredTokenDiff.uniqueAnchors(left, aFrom, aTo, right, bFrom, bTo);
+            if (anchors.length == 0) {
+                fallback.diff(left, aFrom, aTo, right, bFrom, bTo, script);
+                continue;
+            }
+            int pairs = anchors.length / 2;
+            stack.push(anchors[(pairs - 1) * 2] + 1, aTo, anchors[(pairs - 1) * 2 + 1] + 1, bTo);
+            for (int i = pairs - 1; i > 0; i--) {
+                stack.push(anchors[(i - 1) * 2] + 1, anchors[i * 2], anchors[(i - 1) * 2 + 1] + 1, anchors[i * 2 + 1]);
+            }
+            stack.push(aFrom, anchors[0], bFrom, anchors[1]);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.universaldiff.format.txt;
+
+import java.util.Arrays;
+
+/**
+ * Explicit stack of {@code [leftFrom, leftTo, rightFrom, rightTo]} regions used by the divide-and-conquer diffs,
+ * so deeply nested splits cannot overflow the call stack. Push sub-regions right-to-left to visit them in order.
+ */
+final class RegionStack {
+
+    private int[] regions = new int[64];
+    private int size;
+
+    void push(int leftFrom, int leftTo, int rightFrom, int rightTo) {
+        if (size + 4 > regions.length) {
+            regions = Arrays.copyOf(regions, regions.length * 2);
+        }
+        regions[size++] = leftFrom;
+        regions[size++] = leftTo;
+        regions[size++] = rightFrom;
+        regions[size++] = rightTo;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Pops the top region into {@code target}, which must hold four elements.
+     */
+    void pop(int[] target) {
+        size -= 4;
+        System.arraycopy(regions, size, target, 0, 4);
+    }
+}
@@ -0,0 +1,9 @@
+package com.universaldiff.format.txt;
+
+/**
+ * Diffs ranges of interned line tokens, reporting differing regions to an {@link EditScript} in ascending order.
+ */
+interface TokenDiffAlgorithm {
+
+    void diff(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo, EditScript script);
+}
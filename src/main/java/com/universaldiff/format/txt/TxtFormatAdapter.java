@@ -1,9 +1,8 @@
 package com.universaldiff.format.txt;
 
-import com.github.difflib.DiffUtils;
-import com.github.difflib.patch.AbstractDelta;
-import com.github.difflib.patch.DeltaType;
-import com.github.difflib.patch.Patch;
+import com.universaldiff.core.io.OutputFiles;
+import com.universaldiff.core.model.ComparisonOptions;
+import com.universaldiff.core.model.DiffAlgorithm;
 import com.universaldiff.core.model.DiffFragment;
 import com.universaldiff.core.model.DiffHunk;
 import com.universaldiff.core.model.DiffResult;
@@ -15,6 +14,10 @@ import com.universaldiff.core.model.MergeDecision;
 import com.universaldiff.core.model.MergeResult;
 import com.universaldiff.core.model.NormalizedContent;
 import com.universaldiff.format.spi.FormatAdapter;
+import com.universaldiff.format.txt.spi.LineDiffEngine;
+import com.universaldiff.format.txt.spi.LineEdit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -23,6 +26,7 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,26 +35,76 @@ import java.util.stream.Stream;
 
 public class TxtFormatAdapter implements FormatAdapter {
 
+    private static final Logger log = LoggerFactory.getLogger(TxtFormatAdapter.class);
+
+    private final TxtNormalizationMode normalizationMode;
+    private final Map<DiffAlgorithm, LineDiffEngine> diffEngines = new EnumMap<>(DiffAlgorithm.class);
+
+    public TxtFormatAdapter() {
+        this(TxtNormalizationMode.IN_MEMORY);
+    }
+
+    public TxtFormatAdapter(TxtNormalizationMode normalizationMode) {
+        this.normalizationMode = Objects.requireNonNull(normalizationMode, "normalizationMode");
+        for (DiffAlgorithm algorithm : DiffAlgorithm.values()) {
+            diffEngines.put(algorithm, new HashedLineDiffEngine(algorithm));
+        }
+    }
+
+    /**
+     * Uses the given engine for every comparison, regardless of the requested {@link DiffAlgorithm}.
+     */
+    public TxtFormatAdapter(TxtNormalizationMode normalizationMode, LineDiffEngine diffEngine) {
+        this.normalizationMode = Objects.requireNonNull(normalizationMode, "normalizationMode");
+        Objects.requireNonNull(diffEngine, "diffEngine");
+        for (DiffAlgorithm algorithm : DiffAlgorithm.values()) {
+            diffEngines.put(algorithm, diffEngine);
+        }
+    }
+
     @Override
     public NormalizedContent normalize(FileDescriptor descriptor) throws IOException {
         Charset encoding = descriptor.getEncoding();
+        if (normalizationMode == TxtNormalizationMode.MEMORY_MAPPED) {
+            if (MappedTextLines.supports(encoding)) {
+                MappedTextLines lines = MappedTextLines.open(descriptor.getPath(), encoding);
+                return NormalizedContent.builder(FormatType.TXT)
+                        .logicalRecordsView(lines)
+                        // native model too, so closing the session releases the mapping
+                        .nativeModel(lines)
+                        .encoding(encoding)
+                        .build();
+            }
+            log.debug("Encoding {} cannot be memory-mapped line by line; reading {} into memory", encoding, descriptor.getPath());
+        }
         List<String> lines = new ArrayList<>();
         try (Stream<String> stream = Files.lines(descriptor.getPath(), encoding)) {
             stream.forEach(lines::add);
         }
         return NormalizedContent.builder(FormatType.TXT)
-                .logicalRecords(lines)
+                .logicalRecordsView(lines)
                 .encoding(encoding)
                 .build();
     }
 
     @Override
     public DiffResult diff(NormalizedContent left, NormalizedContent right) {
+        return diff(left, right, DiffAlgorithm.MYERS);
+    }
+
+    @Override
+    public DiffResult diff(NormalizedContent left, NormalizedContent right, ComparisonOptions options) {
+        return diff(left, right, options.diffAlgorithm());
+    }
+
+    private DiffResult diff(NormalizedContent left, NormalizedContent right, DiffAlgorithm algorithm) {
         Instant start = Instant.now();
         List<String> leftLines = left.getLogicalRecords();
         List<String> rightLines = right.getLogicalRecords();
         List<DiffHunk> hunks = new ArrayList<>();
-        for (DeltaInfo delta : calculateDeltas(leftLines, rightLines)) {
+        List<LineEdit> edits = diffEngines.get(algorithm).diff(leftLines, rightLines);
+        List<DeltaInfo> deltas = calculateDeltas(edits, leftLines, rightLines);
+        for (DeltaInfo delta : deltas) {
             List<DiffFragment> fragments = new ArrayList<>();
             if (!delta.sourceLines().isEmpty()) {
                 fragments.add(new DiffFragment(
@@ -72,21 +126,67 @@ public class TxtFormatAdapter implements FormatAdapter {
                     buildSummary(delta),
                     fragments));
         }
-        return new DiffResult(FormatType.TXT, hunks, Duration.between(start, Instant.now()));
+        return new DiffResult(FormatType.TXT, hunks, Duration.between(start, Instant.now()),
+                new DeltaModel(algorithm, leftLines, rightLines, deltas),
+                LineDiffEngine.toRowAlignment(edits, leftLines.size()));
+    }
+
+    /**
+     * Merges decisions made on {@link #diff(NormalizedContent, NormalizedContent)}, which compares with
+     * {@link DiffAlgorithm#MYERS}. Hunks of a diff with another algorithm can describe other deltas under the same
+     * ids, so their decisions must be merged with that {@link DiffResult}.
+     */
+    @Override
+    public MergeResult merge(NormalizedContent left,
+                             NormalizedContent right,
+                             List<MergeDecision> decisions,
+                             Path outputPath) throws IOException {
+        return merge(left, right, DiffAlgorithm.MYERS, null, decisions, outputPath);
     }
 
+    /**
+     * Applies the decisions to the deltas of the given diff, diffing again with the algorithm recorded in it when
+     * the contents are not the exact records it was computed from.
+     *
+     * @throws IllegalArgumentException if the result was not produced by a text diff, since its hunk ids cannot
+     *                                  be mapped back to line deltas
+     */
     @Override
     public MergeResult merge(NormalizedContent left,
                              NormalizedContent right,
+                             DiffResult diffResult,
                              List<MergeDecision> decisions,
                              Path outputPath) throws IOException {
+        if (diffResult == null) {
+            return merge(left, right, decisions, outputPath);
+        }
+        if (!(diffResult.getNativeModel() instanceof DeltaModel model)) {
+            throw new IllegalArgumentException("Diff result was not produced by a text comparison");
+        }
+        return merge(left, right, model.algorithm(), model, decisions, outputPath);
+    }
+
+    private MergeResult merge(NormalizedContent left,
+                              NormalizedContent right,
+                              DiffAlgorithm algorithm,
+                              DeltaModel model,
+                              List<MergeDecision> decisions,
+                              Path outputPath) throws IOException {
         Instant start = Instant.now();
         List<String> merged = new ArrayList<>(left.getLogicalRecords());
         Map<String, MergeDecision> decisionIndex = new LinkedHashMap<>();
         for (MergeDecision decision : decisions) {
             decisionIndex.put(decision.getHunkId(), decision);
         }
-        List<DeltaInfo> deltas = calculateDeltas(left.getLogicalRecords(), right.getLogicalRecords());
+        List<DeltaInfo> deltas;
+        if (model != null && model.describes(left.getLogicalRecords(), right.getLogicalRecords())) {
+            deltas = model.deltas();
+        } else {
+            List<String> leftLines = left.getLogicalRecords();
+            List<String> rightLines = right.getLogicalRecords();
+            List<LineEdit> edits = diffEngines.get(algorithm).diff(leftLines, rightLines);
+            deltas = calculateDeltas(edits, leftLines, rightLines);
+        }
         int offset = 0;
         for (DeltaInfo delta : deltas) {
             MergeDecision decision = decisionIndex.get(delta.id());
@@ -103,7 +203,8 @@ public class TxtFormatAdapter implements FormatAdapter {
             }
         }
         if (outputPath != null) {
-            Files.write(outputPath, merged, left.getEncoding());
+            // a memory-mapped left file may be the output; replacing it keeps the session's mapping readable
+            OutputFiles.writeReplacing(outputPath, file -> Files.write(file, merged, left.getEncoding()));
         }
         return new MergeResult(FormatType.TXT, outputPath, Duration.between(start, Instant.now()));
     }
@@ -148,9 +249,7 @@ public class TxtFormatAdapter implements FormatAdapter {
     private void replaceRange(List<String> target, int index, int length, List<String> replacement) {
         int start = clampIndex(index, target.size());
         int actualLength = Math.min(length, Math.max(0, target.size() - start));
-        for (int i = 0; i < actualLength && start < target.size(); i++) {
-            target.remove(start);
-        }
+        target.subList(start, start + actualLength).clear();
         if (replacement != null && !replacement.isEmpty()) {
             target.addAll(start, replacement);
         }
@@ -163,37 +262,31 @@ public class TxtFormatAdapter implements FormatAdapter {
         return Math.min(index, size);
     }
 
-    private List<DeltaInfo> calculateDeltas(List<String> leftLines, List<String> rightLines) {
-        Patch<String> patch = DiffUtils.diff(leftLines, rightLines);
+    private List<DeltaInfo> calculateDeltas(List<LineEdit> edits, List<String> leftLines, List<String> rightLines) {
         List<DeltaInfo> deltas = new ArrayList<>();
-        for (AbstractDelta<String> delta : patch.getDeltas()) {
-            DiffType type = mapType(delta.getType());
-            if (type == null) {
-                continue;
-            }
-            switch (type) {
-                case INSERT, DELETE -> deltas.addAll(expandUniformDelta(delta, type));
-                case MODIFY -> deltas.addAll(expandModifyDelta(delta));
+        for (LineEdit edit : edits) {
+            switch (edit.getType()) {
+                case INSERT, DELETE -> deltas.addAll(expandUniformDelta(edit, leftLines, rightLines));
+                case MODIFY -> deltas.addAll(expandModifyDelta(edit, leftLines, rightLines));
                 case EQUAL -> {
-                    // no-op; DiffUtils never emits EQUAL deltas
+                    // no-op; line edits never describe equal regions
                 }
             }
         }
         return deltas;
     }
 
-    private List<DeltaInfo> expandUniformDelta(AbstractDelta<String> delta, DiffType type) {
+    private List<DeltaInfo> expandUniformDelta(LineEdit edit, List<String> leftLines, List<String> rightLines) {
         List<DeltaInfo> expanded = new ArrayList<>();
-        List<String> lines = type == DiffType.INSERT
-                ? List.copyOf(delta.getTarget().getLines())
-                : List.copyOf(delta.getSource().getLines());
-        int sourceStart = delta.getSource().getPosition();
-        int targetStart = delta.getTarget().getPosition();
-        for (int i = 0; i < lines.size(); i++) {
+        DiffType type = edit.getType();
+        int sourceStart = edit.getLeftStart();
+        int targetStart = edit.getRightStart();
+        int count = type == DiffType.INSERT ? edit.getRightLength() : edit.getLeftLength();
+        for (int i = 0; i < count; i++) {
             int sourcePos = sourceStart + i;
             int targetPos = targetStart + i;
-            List<String> sourceLines = type == DiffType.INSERT ? List.of() : List.of(lines.get(i));
-            List<String> targetLines = type == DiffType.INSERT ? List.of(lines.get(i)) : List.of();
+            List<String> sourceLines = type == DiffType.INSERT ? List.of() : List.of(leftLines.get(sourcePos));
+            List<String> targetLines = type == DiffType.INSERT ? List.of(rightLines.get(targetPos)) : List.of();
             expanded.add(new DeltaInfo(
                     buildHunkId(sourcePos),
                     type,
@@ -205,16 +298,16 @@ public class TxtFormatAdapter implements FormatAdapter {
         return expanded;
     }
 
-    private List<DeltaInfo> expandModifyDelta(AbstractDelta<String> delta) {
+    private List<DeltaInfo> expandModifyDelta(LineEdit edit, List<String> leftLines, List<String> rightLines) {
         List<DeltaInfo> expanded = new ArrayList<>();
-        List<String> sourceLines = List.copyOf(delta.getSource().getLines());
-        List<String> targetLines = List.copyOf(delta.getTarget().getLines());
-        int sourceStart = delta.getSource().getPosition();
-        int targetStart = delta.getTarget().getPosition();
-        int span = Math.max(sourceLines.size(), targetLines.size());
+        int sourceStart = edit.getLeftStart();
+        int targetStart = edit.getRightStart();
+        int sourceSize = edit.getLeftLength();
+        int targetSize = edit.getRightLength();
+        int span = Math.max(sourceSize, targetSize);
         for (int i = 0; i < span; i++) {
-            String leftLine = i < sourceLines.size() ? sourceLines.get(i) : null;
-            String rightLine = i < targetLines.size() ? targetLines.get(i) : null;
+            String leftLine = i < sourceSize ? leftLines.get(sourceStart + i) : null;
+            String rightLine = i < targetSize ? rightLines.get(targetStart + i) : null;
             if (leftLine != null && rightLine != null) {
                 expanded.add(new DeltaInfo(
                         buildHunkId(sourceStart + i),
@@ -237,7 +330,7 @@ public class TxtFormatAdapter implements FormatAdapter {
                         DiffType.DELETE,
                         sourceStart + i,
                         List.of(leftLine),
-                        targetStart + Math.min(i, targetLines.size()),
+                        targetStart + Math.min(i, targetSize),
                         List.of()));
             }
         }
@@ -248,15 +341,6 @@ public class TxtFormatAdapter implements FormatAdapter {
         return "txt-line-" + (sourcePos + 1);
     }
 
-    private DiffType mapType(DeltaType type) {
-        return switch (type) {
-            case DELETE -> DiffType.DELETE;
-            case INSERT -> DiffType.INSERT;
-            case CHANGE -> DiffType.MODIFY;
-            default -> null;
-        };
-    }
-
     private String buildSummary(DeltaInfo delta) {
         return switch (delta.type()) {
             case INSERT -> "Insert at line " + (delta.sourcePos() + 1);
@@ -295,5 +379,18 @@ public class TxtFormatAdapter implements FormatAdapter {
             Objects.requireNonNull(targetLines, "targetLines");
         }
     }
+
+    /**
+     * Deltas computed by {@link #diff}, carried in {@link DiffResult#getNativeModel()} so merge can skip the
+     * diff. Bound to the exact record lists it was computed from; the algorithm lets merge recompute the same
+     * deltas for other instances of the contents.
+     */
+    private record DeltaModel(DiffAlgorithm algorithm,
+                              List<String> leftLines,
+                              List<String> rightLines,
+                              List<DeltaInfo> deltas) {
+        boolean describes(List<String> left, List<String> right) {
+            return leftLines == left && rightLines == right;
+        }
+    }
 }
-
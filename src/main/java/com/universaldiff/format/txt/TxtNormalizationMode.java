@@ -0,0 +1,16 @@
+package com.universaldiff.format.txt;
+
+/**
+ * Controls how {@link TxtFormatAdapter} loads lines during normalization.
+ */
+public enum TxtNormalizationMode {
+    /**
+     * Reads every line into an on-heap list.
+     */
+    IN_MEMORY,
+    /**
+     * Memory-maps the file and decodes lines on demand from a primitive line-offset index.
+     * Falls back to {@link #IN_MEMORY} for encodings whose line terminators cannot be found by byte scanning.
+     */
+    MEMORY_MAPPED;
+}
@@ -0,0 +1,42 @@
+package com.universaldiff.format.txt.spi;
+
+import com.universaldiff.core.model.RowAlignment;
+
+import java.util.List;
+
+/**
+ * Computes line-level edit scripts between two texts.
+ * <p>
+ * Responsibilities:
+ * - Compare the supplied line lists and describe every differing region as a {@link LineEdit}.
+ * <p>
+ * Invariants:
+ * - Returned edits are ordered by position and never overlap; lines outside them are equal on both sides.
+ * - Never mutates the supplied lists and may read their elements more than once.
+ */
+public interface LineDiffEngine {
+
+    List<LineEdit> diff(List<String> left, List<String> right);
+
+    /**
+     * Diffs the lines and lays the result out as side-by-side rows.
+     */
+    default RowAlignment align(List<String> left, List<String> right) {
+        return toRowAlignment(diff(left, right), left.size());
+    }
+
+    /**
+     * Lays an ordered edit script out as side-by-side rows: equal lines pair up, each edit pads its shorter side.
+     */
+    static RowAlignment toRowAlignment(List<LineEdit> edits, int leftSize) {
+        RowAlignment.Builder builder = RowAlignment.builder();
+        int leftCursor = 0;
+        for (LineEdit edit : edits) {
+            builder.equal(edit.getLeftStart() - leftCursor);
+            builder.changed(edit.getLeftLength(), edit.getRightLength());
+            leftCursor = edit.getLeftStart() + edit.getLeftLength();
+        }
+        builder.equal(leftSize - leftCursor);
+        return builder.build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.universaldiff.format.txt.spi;
+
+import com.universaldiff.core.model.DiffType;
+
+/**
+ * A contiguous region where the left lines {@code [leftStart, leftStart + leftLength)} were replaced by
+ * the right lines {@code [rightStart, rightStart + rightLength)}.
+ */
+public final class LineEdit {
+    private final int leftStart;
+    private final int leftLength;
+    private final int rightStart;
+    private final int rightLength;
+
+    public LineEdit(int leftStart, int leftLength, int rightStart, int rightLength) {
+        if (leftStart < 0 || leftLength < 0 || rightStart < 0 || rightLength < 0) {
+            throw new IllegalArgumentException("Line edit positions and lengths must not be negative");
+        }
+        if (leftLength == 0 && rightLength == 0) {
+            throw new IllegalArgumentException("Line edit must cover at least one line");
+        }
+        this.leftStart = leftStart;
+        this.leftLength = leftLength;
+        this.rightStart = rightStart;
+        this.rightLength = rightLength;
+    }
+
+    public int getLeftStart() {
+        return leftStart;
+    }
+
+    public int getLeftLength() {
+        return leftLength;
+    }
+
+    public int getRightStart() {
+        return rightStart;
+    }
+
+    public int getRightLength() {
+        return rightLength;
+    }
+
+    public DiffType getType() {
+        if (leftLength == 0) {
+            return DiffType.INSERT;
+        }
+        if (rightLength == 0) {
+            return DiffType.DELETE;
+        }
+        return DiffType.MODIFY;
+    }
+}
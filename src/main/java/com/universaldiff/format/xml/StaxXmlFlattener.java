@@ -0,0 +1,140 @@
+package com.universaldiff.format.xml;
+
+import com.universaldiff.core.model.PathValueRecords;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Flattens an XML file into typed path/value records with a StAX cursor, producing the same records as
+ * the DOM flattening in {@link XmlFormatAdapter} without holding the document.
+ * <p>
+ * Only the chain of open elements is kept: each one remembers its path, the sibling counters of its children
+ * and, while it has no element children, its buffered text.
+ */
+final class StaxXmlFlattener {
+
+    private StaxXmlFlattener() {
+    }
+
+    static PathValueRecords flatten(Path path) throws IOException {
+        PathValueRecords.Builder records = PathValueRecords.builder();
+        try (InputStream in = Files.newInputStream(path)) {
+            XMLStreamReader reader = XmlProcessors.inputFactory().createXMLStreamReader(in);
+            try {
+                read(reader, records);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            Location location = ex.getLocation();
+            if (location != null) {
+                throw new XmlProcessingException("Malformed XML at line " + location.getLineNumber()
+                        + ", column " + location.getColumnNumber() + ": " + ex.getMessage(), ex);
+            }
+            throw new XmlProcessingException("Malformed XML content in " + path, ex);
+        } catch (IOException ex) {
+            throw new XmlProcessingException("I/O error while reading XML from " + path, ex);
+        }
+        return records.build();
+    }
+
+    private static void read(XMLStreamReader reader, PathValueRecords.Builder records) throws XMLStreamException {
+        Deque<Frame> open = new ArrayDeque<>();
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    String name = qualifiedName(reader.getPrefix(), reader.getLocalName());
+                    Frame parent = open.peek();
+                    String elementPath = parent == null ? "/" + name + "[1]" : parent.child(name);
+                    emitAttributes(reader, elementPath, records);
+                    open.push(new Frame(elementPath));
+                }
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                    Frame current = open.peek();
+                    if (current != null && current.text != null) {
+                        current.text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    Frame closed = open.pop();
+                    if (closed.text != null) {
+                        String text = closed.text.toString().trim();
+                        if (!text.isEmpty()) {
+                            records.add(closed.path + "/text()", PathValueRecords.ValueType.TEXT, text);
+                        }
+                    }
+                }
+                default -> {
+                    // comments, processing instructions and the prolog carry no records
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits namespace declarations and attributes sorted by qualified name, the order a DOM attribute map
+     * reports them in.
+     */
+    private static void emitAttributes(XMLStreamReader reader, String elementPath,
+                                       PathValueRecords.Builder records) {
+        int namespaces = reader.getNamespaceCount();
+        int attributes = reader.getAttributeCount();
+        if (namespaces == 0 && attributes == 0) {
+            return;
+        }
+        Map<String, String> sorted = new TreeMap<>();
+        for (int i = 0; i < namespaces; i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            String name = prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix;
+            String uri = reader.getNamespaceURI(i);
+            sorted.put(name, uri == null ? "" : uri);
+        }
+        for (int i = 0; i < attributes; i++) {
+            sorted.put(qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                    reader.getAttributeValue(i));
+        }
+        for (Map.Entry<String, String> attribute : sorted.entrySet()) {
+            records.add(elementPath + "/@" + attribute.getKey(), PathValueRecords.ValueType.ATTRIBUTE,
+                    attribute.getValue());
+        }
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static final class Frame {
+        private final String path;
+        private Map<String, Integer> counters;
+        private StringBuilder text = new StringBuilder();
+
+        private Frame(String path) {
+            this.path = path;
+        }
+
+        /**
+         * Returns the indexed path of the next child with the given name; the first element child also
+         * drops the buffered text, as only leaf elements report text.
+         */
+        private String child(String name) {
+            if (counters == null) {
+                counters = new HashMap<>();
+                text = null;
+            }
+            int index = counters.merge(name, 1, Integer::sum);
+            return path + "/" + name + "[" + index + "]";
+        }
+    }
+}
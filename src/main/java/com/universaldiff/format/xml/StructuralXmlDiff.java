@@ -0,0 +1,444 @@
+package com.universaldiff.format.xml;
+
+import com.universaldiff.core.model.DiffFragment;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffSide;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.core.model.PathValueRecords;
+import com.universaldiff.core.model.RowAlignment;
+import com.universaldiff.format.Hashing;
+import com.universaldiff.format.txt.HashedLineDiffEngine;
+import com.universaldiff.format.txt.spi.LineEdit;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diffs two DOM trees by aligning sibling elements instead of comparing positional paths.
+ * <p>
+ * Siblings carrying an {@link XmlElementIdentity} key are matched by key. The remaining siblings are aligned
+ * by a sequence diff over their subtree hashes, and inside each changed run elements with the same name are
+ * paired in order. Matched pairs with equal hashes are skipped, paired elements are compared recursively, and
+ * unpaired ones become single element inserts or deletes, so inserting one element into a long list yields
+ * one hunk instead of shifting every following index. The same pairing aligns the flattened records for display.
+ */
+final class StructuralXmlDiff {
+
+    private static final String HUNK_PREFIX = "xml-path-";
+
+    private final XmlElementIdentity identity;
+    private final Map<Node, Long> hashes = new IdentityHashMap<>();
+    private final List<DiffHunk> hunks = new ArrayList<>();
+    private final Map<String, XmlEdit> edits = new LinkedHashMap<>();
+    private final Map<String, ElementPair> pairs = new HashMap<>();
+
+    private StructuralXmlDiff(XmlElementIdentity identity) {
+        this.identity = identity;
+    }
+
+    static Result diff(Document left, Document right, XmlElementIdentity identity) {
+        StructuralXmlDiff diff = new StructuralXmlDiff(identity);
+        Element leftRoot = left.getDocumentElement();
+        Element rightRoot = right.getDocumentElement();
+        String leftPath = "/" + leftRoot.getNodeName() + "[1]";
+        String rightPath = "/" + rightRoot.getNodeName() + "[1]";
+        if (!leftRoot.getNodeName().equals(rightRoot.getNodeName())) {
+            diff.element(DiffType.MODIFY, leftRoot, leftPath, rightRoot, rightPath, null);
+        } else {
+            diff.pair(leftRoot, leftPath, rightRoot, rightPath);
+        }
+        return new Result(List.copyOf(diff.hunks), Map.copyOf(diff.edits), Map.copyOf(diff.pairs));
+    }
+
+    /**
+     * Builds the hunk id for a change between a left and a right path; either may be {@code null} when the
+     * change exists on one side only. Changes at the same path on both sides keep the single-path form.
+     */
+    static String hunkId(String leftPath, String rightPath) {
+        if (leftPath != null && leftPath.equals(rightPath)) {
+            return HUNK_PREFIX + encode(leftPath);
+        }
+        return HUNK_PREFIX + encode(leftPath == null ? "" : leftPath) + "~" + encode(rightPath == null ? "" : rightPath);
+    }
+
+    private static String encode(String path) {
+        return Base64.getEncoder().encodeToString(path.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void compare(Element left, String leftPath, Element right, String rightPath) {
+        compareAttributes(left, leftPath, right, rightPath);
+        compareText(left, leftPath, right, rightPath);
+        compareChildren(left, leftPath, right, rightPath);
+    }
+
+    private void compareAttributes(Element left, String leftPath, Element right, String rightPath) {
+        NamedNodeMap leftAttrs = left.getAttributes();
+        NamedNodeMap rightAttrs = right.getAttributes();
+        for (int i = 0; i < leftAttrs.getLength(); i++) {
+            Attr attr = (Attr) leftAttrs.item(i);
+            Attr other = (Attr) rightAttrs.getNamedItem(attr.getName());
+            if (other == null) {
+                value(XmlEdit.Kind.ATTRIBUTE, DiffType.DELETE, attr.getName(),
+                        leftPath, attr.getValue(), rightPath, null);
+            } else if (!attr.getValue().equals(other.getValue())) {
+                value(XmlEdit.Kind.ATTRIBUTE, DiffType.MODIFY, attr.getName(),
+                        leftPath, attr.getValue(), rightPath, other.getValue());
+            }
+        }
+        for (int i = 0; i < rightAttrs.getLength(); i++) {
+            Attr attr = (Attr) rightAttrs.item(i);
+            if (leftAttrs.getNamedItem(attr.getName()) == null) {
+                value(XmlEdit.Kind.ATTRIBUTE, DiffType.INSERT, attr.getName(),
+                        leftPath, null, rightPath, attr.getValue());
+            }
+        }
+    }
+
+    private void compareText(Element left, String leftPath, Element right, String rightPath) {
+        String leftText = leafText(left);
+        String rightText = leafText(right);
+        if (leftText == null && rightText == null) {
+            return;
+        }
+        if (leftText == null) {
+            value(XmlEdit.Kind.TEXT, DiffType.INSERT, null, leftPath, null, rightPath, rightText);
+        } else if (rightText == null) {
+            value(XmlEdit.Kind.TEXT, DiffType.DELETE, null, leftPath, leftText, rightPath, null);
+        } else if (!leftText.equals(rightText)) {
+            value(XmlEdit.Kind.TEXT, DiffType.MODIFY, null, leftPath, leftText, rightPath, rightText);
+        }
+    }
+
+    private void compareChildren(Element left, String leftPath, Element right, String rightPath) {
+        List<Element> leftChildren = children(left);
+        List<Element> rightChildren = children(right);
+        if (leftChildren.isEmpty() && rightChildren.isEmpty()) {
+            return;
+        }
+        String[] leftPaths = childPaths(leftPath, leftChildren);
+        String[] rightPaths = childPaths(rightPath, rightChildren);
+        int[] partners = align(leftChildren, rightChildren);
+        int[] rightPartners = new int[rightChildren.size()];
+        Arrays.fill(rightPartners, -1);
+        for (int i = 0; i < partners.length; i++) {
+            if (partners[i] >= 0) {
+                rightPartners[partners[i]] = i;
+            }
+        }
+
+        int nextInsert = 0;
+        for (int i = 0; i < leftChildren.size(); i++) {
+            int partner = partners[i];
+            if (partner < 0) {
+                element(DiffType.DELETE, leftChildren.get(i), leftPaths[i], null, null, null);
+                continue;
+            }
+            for (; nextInsert < partner; nextInsert++) {
+                insert(left, leftPath, leftPaths, rightChildren, rightPaths, rightPartners, nextInsert);
+            }
+            nextInsert = Math.max(nextInsert, partner + 1);
+            pair(leftChildren.get(i), leftPaths[i], rightChildren.get(partner), rightPaths[partner]);
+        }
+        for (int j = nextInsert; j < rightChildren.size(); j++) {
+            insert(left, leftPath, leftPaths, rightChildren, rightPaths, rightPartners, j);
+        }
+    }
+
+    /**
+     * Records two paired elements and compares them unless their subtrees are equal.
+     */
+    private void pair(Element left, String leftPath, Element right, String rightPath) {
+        boolean identical = hash(left) == hash(right);
+        pairs.put(leftPath, new ElementPair(rightPath, identical));
+        if (!identical) {
+            compare(left, leftPath, right, rightPath);
+        }
+    }
+
+    private void insert(Element leftParent, String leftParentPath, String[] leftPaths,
+                        List<Element> rightChildren, String[] rightPaths, int[] rightPartners, int j) {
+        if (rightPartners[j] >= 0) {
+            return;
+        }
+        String before = null;
+        for (int k = j + 1; k < rightChildren.size(); k++) {
+            if (rightPartners[k] >= 0) {
+                before = leftPaths[rightPartners[k]];
+                break;
+            }
+        }
+        element(DiffType.INSERT, leftParent, leftParentPath, rightChildren.get(j), rightPaths[j], before);
+    }
+
+    /**
+     * Returns, for each left child, the index of its right partner or {@code -1}.
+     */
+    private int[] align(List<Element> leftChildren, List<Element> rightChildren) {
+        int[] partners = new int[leftChildren.size()];
+        Arrays.fill(partners, -1);
+        List<Integer> leftUnkeyed = new ArrayList<>();
+        List<Integer> rightUnkeyed = new ArrayList<>();
+        if (identity.isNone()) {
+            for (int i = 0; i < leftChildren.size(); i++) {
+                leftUnkeyed.add(i);
+            }
+            for (int j = 0; j < rightChildren.size(); j++) {
+                rightUnkeyed.add(j);
+            }
+        } else {
+            Map<String, Deque<Integer>> rightByKey = new HashMap<>();
+            for (int j = 0; j < rightChildren.size(); j++) {
+                String key = identity.keyOf(rightChildren.get(j));
+                if (key == null) {
+                    rightUnkeyed.add(j);
+                } else {
+                    rightByKey.computeIfAbsent(key, k -> new ArrayDeque<>()).add(j);
+                }
+            }
+            for (int i = 0; i < leftChildren.size(); i++) {
+                String key = identity.keyOf(leftChildren.get(i));
+                if (key == null) {
+                    leftUnkeyed.add(i);
+                    continue;
+                }
+                Deque<Integer> candidates = rightByKey.get(key);
+                if (candidates != null && !candidates.isEmpty()) {
+                    partners[i] = candidates.poll();
+                }
+            }
+        }
+        alignByContent(leftChildren, leftUnkeyed, rightChildren, rightUnkeyed, partners);
+        return partners;
+    }
+
+    /**
+     * Pairs equal subtrees through a sequence diff over their hashes, then pairs same-named elements in order
+     * inside every changed run.
+     */
+    private void alignByContent(List<Element> leftChildren, List<Integer> leftIndexes,
+                                List<Element> rightChildren, List<Integer> rightIndexes,
+                                int[] partners) {
+        if (leftIndexes.isEmpty() || rightIndexes.isEmpty()) {
+            return;
+        }
+        List<String> leftTokens = new ArrayList<>(leftIndexes.size());
+        for (int index : leftIndexes) {
+            leftTokens.add(Long.toHexString(hash(leftChildren.get(index))));
+        }
+        List<String> rightTokens = new ArrayList<>(rightIndexes.size());
+        for (int index : rightIndexes) {
+            rightTokens.add(Long.toHexString(hash(rightChildren.get(index))));
+        }
+        int leftCursor = 0;
+        int rightCursor = 0;
+        for (LineEdit edit : new HashedLineDiffEngine().diff(leftTokens, rightTokens)) {
+            for (; leftCursor < edit.getLeftStart(); leftCursor++, rightCursor++) {
+                partners[leftIndexes.get(leftCursor)] = rightIndexes.get(rightCursor);
+            }
+            int leftEnd = edit.getLeftStart() + edit.getLeftLength();
+            int rightEnd = edit.getRightStart() + edit.getRightLength();
+            int next = edit.getRightStart();
+            for (int l = edit.getLeftStart(); l < leftEnd && next < rightEnd; l++) {
+                String name = leftChildren.get(leftIndexes.get(l)).getNodeName();
+                for (int r = next; r < rightEnd; r++) {
+                    if (rightChildren.get(rightIndexes.get(r)).getNodeName().equals(name)) {
+                        partners[leftIndexes.get(l)] = rightIndexes.get(r);
+                        next = r + 1;
+                        break;
+                    }
+                }
+            }
+            leftCursor = leftEnd;
+            rightCursor = rightEnd;
+        }
+        for (; leftCursor < leftIndexes.size(); leftCursor++, rightCursor++) {
+            partners[leftIndexes.get(leftCursor)] = rightIndexes.get(rightCursor);
+        }
+    }
+
+    private void value(XmlEdit.Kind kind, DiffType type, String attribute,
+                       String leftElement, String leftValue, String rightElement, String rightValue) {
+        String suffix = kind == XmlEdit.Kind.TEXT ? "/text()" : "/@" + attribute;
+        String leftPath = leftValue == null ? null : leftElement + suffix;
+        String rightPath = rightValue == null ? null : rightElement + suffix;
+        List<DiffFragment> fragments = new ArrayList<>(2);
+        if (leftValue != null) {
+            fragments.add(new DiffFragment(DiffSide.LEFT, 0, 0, leftValue));
+        }
+        if (rightValue != null) {
+            fragments.add(new DiffFragment(DiffSide.RIGHT, 0, 0, rightValue));
+        }
+        String id = hunkId(leftPath, rightPath);
+        hunks.add(DiffHunk.of(id, type, leftPath != null ? leftPath : rightPath, fragments));
+        edits.put(id, new XmlEdit(kind, type, attribute, leftElement, rightElement, null));
+    }
+
+    /**
+     * Records an element-level change. For inserts {@code left} is the parent that receives the new element and
+     * {@code before} the path of the left sibling it goes in front of, or {@code null} to append it.
+     */
+    private void element(DiffType type, Element left, String leftPath, Element right, String rightPath, String before) {
+        List<DiffFragment> fragments = new ArrayList<>(2);
+        String id;
+        String summary;
+        if (type == DiffType.INSERT) {
+            id = hunkId(null, rightPath);
+            summary = rightPath;
+        } else {
+            fragments.add(DiffFragment.lazy(DiffSide.LEFT, 0, 0, () -> render(left, leftPath)));
+            id = hunkId(leftPath, rightPath);
+            summary = leftPath;
+        }
+        if (right != null) {
+            fragments.add(DiffFragment.lazy(DiffSide.RIGHT, 0, 0, () -> render(right, rightPath)));
+        }
+        hunks.add(DiffHunk.of(id, type, summary, fragments));
+        edits.put(id, new XmlEdit(XmlEdit.Kind.ELEMENT, type, null, leftPath, rightPath, before));
+    }
+
+    private static String render(Element element, String path) {
+        PathValueRecords.Builder records = PathValueRecords.builder();
+        XmlFormatAdapter.flatten(element, path, records);
+        return String.join("\n", records.build().asLines());
+    }
+
+    private static List<Element> children(Element element) {
+        List<Element> children = new ArrayList<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                children.add((Element) child);
+            }
+        }
+        return children;
+    }
+
+    private static String[] childPaths(String parentPath, List<Element> children) {
+        String[] paths = new String[children.size()];
+        Map<String, Integer> counters = new HashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            String name = children.get(i).getNodeName();
+            paths[i] = parentPath + "/" + name + "[" + counters.merge(name, 1, Integer::sum) + "]";
+        }
+        return paths;
+    }
+
+    /**
+     * Returns the trimmed text of an element without element children, or {@code null} when it has element
+     * children or only whitespace; the same rule the flattened records use.
+     */
+    private static String leafText(Element element) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                return null;
+            }
+        }
+        String text = element.getTextContent().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Hashes an element subtree from its name, attributes (in any order), leaf text and child hashes in order.
+     */
+    private long hash(Element element) {
+        Long cached = hashes.get(element);
+        if (cached != null) {
+            return cached;
+        }
+        long hash = Hashing.mix(Hashing.hashString(element.getNodeName()));
+        NamedNodeMap attrs = element.getAttributes();
+        long attributes = 0;
+        for (int i = 0; i < attrs.getLength(); i++) {
+            Attr attr = (Attr) attrs.item(i);
+            long value = Hashing.mix(Hashing.hashString(attr.getValue()));
+            attributes += Hashing.mix(Hashing.hashString(attr.getName()) ^ value);
+        }
+        hash = Hashing.combine(hash, attributes);
+        String text = leafText(element);
+        if (text != null) {
+            hash = Hashing.combine(hash, Hashing.hashString(text));
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                hash = Hashing.combine(hash, hash((Element) child));
+            }
+        }
+        hashes.put(element, hash);
+        return hash;
+    }
+
+    /**
+     * The hunks of a structural diff together with the edit behind each hunk id, kept as the diff result's
+     * native model so merges can apply the same alignment, and the element pairing, keyed by left path.
+     */
+    record Result(List<DiffHunk> hunks, Map<String, XmlEdit> edits, Map<String, ElementPair> pairs) {
+
+        /**
+         * Aligns the flattened records of both documents by the element pairing: a left record is shown next to
+         * the record with the same attribute or text of the paired right element, so an inserted sibling adds
+         * one row instead of shifting every following positional path.
+         */
+        RowAlignment alignment(PathValueRecords left, PathValueRecords right) {
+            int[] matches = new int[left.size()];
+            for (int id = 0; id < matches.length; id++) {
+                String rightPath = rightPathOf(left.path(id));
+                matches[id] = rightPath == null ? RowAlignment.NO_RECORD : right.indexOf(rightPath);
+            }
+            return RowAlignment.fromMatches(left.size(), right.size(), id -> matches[id],
+                    id -> !left.value(id).equals(right.value(matches[id])));
+        }
+
+        /**
+         * Maps a left record path to the path its paired record would have on the right, or returns
+         * {@code null} when its element has no partner. Elements below an identical pair are not recorded
+         * and keep their path relative to it.
+         */
+        private String rightPathOf(String recordPath) {
+            int end = recordPath.lastIndexOf('/');
+            ElementPair exact = pairs.get(recordPath.substring(0, end));
+            if (exact != null) {
+                return exact.rightPath() + recordPath.substring(end);
+            }
+            for (int cut = recordPath.lastIndexOf('/', end - 1); cut > 0; cut = recordPath.lastIndexOf('/', cut - 1)) {
+                ElementPair ancestor = pairs.get(recordPath.substring(0, cut));
+                if (ancestor != null) {
+                    return ancestor.identical() ? ancestor.rightPath() + recordPath.substring(cut) : null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The right partner of a left element; {@code identical} when their subtrees hash equal, so that nothing
+     * below them was compared or paired.
+     */
+    record ElementPair(String rightPath, boolean identical) {
+    }
+
+    /**
+     * One change between aligned elements. For attribute and text edits the element paths name the owning
+     * elements on each side; for element edits they name the element itself, except that an insert's left path
+     * is the parent receiving it and {@code before} the sibling it is placed in front of.
+     */
+    record XmlEdit(Kind kind, DiffType type, String attribute, String leftPath, String rightPath, String before) {
+        enum Kind {
+            ATTRIBUTE,
+            TEXT,
+            ELEMENT
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.universaldiff.format.xml;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Decides which sibling elements describe the same entity in both documents.
+ * <p>
+ * Each key is either an attribute name prefixed with {@code @} or the name of a child element whose trimmed
+ * text identifies its parent. Keys are tried in order and the first one an element carries is its identity;
+ * elements carrying none of them are matched by content instead.
+ */
+public final class XmlElementIdentity {
+
+    private static final XmlElementIdentity NONE = new XmlElementIdentity(List.of());
+
+    private final List<String> keys;
+
+    private XmlElementIdentity(List<String> keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Matches siblings only by content: equal subtrees first, then remaining elements with the same name in order.
+     */
+    public static XmlElementIdentity none() {
+        return NONE;
+    }
+
+    /**
+     * @param keys attribute names as {@code "@id"} or child element names as {@code "key"}, tried in order
+     */
+    public static XmlElementIdentity of(String... keys) {
+        for (String key : keys) {
+            Objects.requireNonNull(key, "key");
+            if (key.isEmpty() || key.equals("@")) {
+                throw new IllegalArgumentException("Identity keys must name an attribute or child element");
+            }
+        }
+        return new XmlElementIdentity(List.of(keys));
+    }
+
+    boolean isNone() {
+        return keys.isEmpty();
+    }
+
+    /**
+     * Returns the identity of the element qualified by its name, or {@code null} when it carries none of the keys.
+     */
+    String keyOf(Element element) {
+        for (String key : keys) {
+            if (key.charAt(0) == '@') {
+                String attribute = key.substring(1);
+                if (element.hasAttribute(attribute)) {
+                    return element.getNodeName() + "\u001f" + key + "\u001f" + element.getAttribute(attribute);
+                }
+                continue;
+            }
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals(key)) {
+                    return element.getNodeName() + "\u001f" + key + "\u001f" + child.getTextContent().trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return keys.isEmpty() ? "identity by content" : "identity keys " + keys;
+    }
+}
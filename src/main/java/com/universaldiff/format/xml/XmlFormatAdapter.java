@@ -11,6 +11,7 @@ import com.universaldiff.core.model.MergeChoice;
 import com.universaldiff.core.model.MergeDecision;
 import com.universaldiff.core.model.MergeResult;
 import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.PathValueRecords;
 import com.universaldiff.format.spi.FormatAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,19 +22,10 @@ import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
@@ -42,40 +34,67 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 public class XmlFormatAdapter implements FormatAdapter {
 
     private static final Logger log = LoggerFactory.getLogger(XmlFormatAdapter.class);
 
+    private final XmlNormalizationMode normalizationMode;
+    private final XmlElementIdentity identity;
+
+    public XmlFormatAdapter() {
+        this(XmlNormalizationMode.DOM);
+    }
+
+    public XmlFormatAdapter(XmlNormalizationMode normalizationMode) {
+        this(normalizationMode, XmlElementIdentity.none());
+    }
+
+    /**
+     * @param identity how sibling elements are matched when both sides were normalized into a DOM
+     */
+    public XmlFormatAdapter(XmlNormalizationMode normalizationMode, XmlElementIdentity identity) {
+        this.normalizationMode = Objects.requireNonNull(normalizationMode, "normalizationMode");
+        this.identity = Objects.requireNonNull(identity, "identity");
+    }
+
     @Override
     public NormalizedContent normalize(FileDescriptor descriptor) throws IOException {
+        if (normalizationMode == XmlNormalizationMode.STREAMING) {
+            return NormalizedContent.builder(FormatType.XML)
+                    .pathValueRecords(StaxXmlFlattener.flatten(descriptor.getPath()))
+                    .nativeModel(new XmlSource(descriptor.getPath()))
+                    .encoding(descriptor.getEncoding())
+                    .build();
+        }
         Document document = parse(descriptor.getPath());
-        Map<String, String> flattened = new LinkedHashMap<>();
-        flatten(document.getDocumentElement(), "/" + document.getDocumentElement().getNodeName() + "[1]", flattened);
-        List<String> logical = flattened.entrySet().stream()
-                .map(e -> e.getKey() + " = " + e.getValue())
-                .toList();
         return NormalizedContent.builder(FormatType.XML)
-                .logicalRecords(logical)
+                .lazyPathValueRecords(() -> records(document))
                 .nativeModel(document)
                 .encoding(descriptor.getEncoding())
                 .build();
     }
 
+    /**
+     * Flattens the document into records; diffs align the trees directly, so this only runs when the records
+     * are read.
+     */
+    private static PathValueRecords records(Document document) {
+        PathValueRecords.Builder records = PathValueRecords.builder();
+        flatten(document.getDocumentElement(), "/" + document.getDocumentElement().getNodeName() + "[1]", records);
+        return records.build();
+    }
+
     private Document parse(Path path) throws IOException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        try {
-            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-        } catch (ParserConfigurationException ex) {
-            throw new XmlProcessingException("XML parser configuration error", ex);
-        }
         try (InputStream in = Files.newInputStream(path)) {
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            return builder.parse(in);
+            return XmlProcessors.documentBuilder().parse(in);
         } catch (ParserConfigurationException ex) {
             throw new XmlProcessingException("XML parser configuration error", ex);
         } catch (org.xml.sax.SAXParseException ex) {
@@ -88,7 +107,7 @@ public class XmlFormatAdapter implements FormatAdapter {
         }
     }
 
-    private void flatten(Node node, String path, Map<String, String> result) {
+    static void flatten(Node node, String path, PathValueRecords.Builder result) {
         if (node == null) {
             return;
         }
@@ -96,7 +115,7 @@ public class XmlFormatAdapter implements FormatAdapter {
             NamedNodeMap attrs = node.getAttributes();
             for (int i = 0; i < attrs.getLength(); i++) {
                 Attr attr = (Attr) attrs.item(i);
-                result.put(path + "/@" + attr.getName(), attr.getValue());
+                result.add(path + "/@" + attr.getName(), PathValueRecords.ValueType.ATTRIBUTE, attr.getValue());
             }
         }
         NodeList children = node.getChildNodes();
@@ -115,45 +134,67 @@ public class XmlFormatAdapter implements FormatAdapter {
         if (!hasElementChildren) {
             String text = node.getTextContent().trim();
             if (!text.isEmpty()) {
-                result.put(path + "/text()", text);
+                result.add(path + "/text()", PathValueRecords.ValueType.TEXT, text);
             }
         }
     }
 
+    /**
+     * Aligns the two trees structurally when both sides hold a DOM, and shows the records by the same pairing;
+     * streamed content only has its records and is compared path by path.
+     */
     @Override
     public DiffResult diff(NormalizedContent left, NormalizedContent right) {
         Instant start = Instant.now();
-        Map<String, String> leftMap = toMap(left);
-        Map<String, String> rightMap = toMap(right);
+        if (left.getNativeModel() instanceof Document leftDoc && right.getNativeModel() instanceof Document rightDoc) {
+            StructuralXmlDiff.Result result = StructuralXmlDiff.diff(leftDoc, rightDoc, identity);
+            return DiffResult.lazyAlignment(FormatType.XML, result.hunks(), Duration.between(start, Instant.now()),
+                    result, () -> result.alignment(records(left), records(right)));
+        }
+        PathValueRecords leftRecords = records(left);
+        PathValueRecords rightRecords = records(right);
         List<DiffHunk> hunks = new ArrayList<>();
-        for (String path : leftMap.keySet()) {
-            if (!rightMap.containsKey(path)) {
+        for (int id = 0; id < leftRecords.size(); id++) {
+            String path = leftRecords.path(id);
+            int other = rightRecords.indexOf(path);
+            if (other < 0) {
                 hunks.add(DiffHunk.of(
                         "xml-path-" + encode(path),
                         DiffType.DELETE,
                         path,
-                        List.of(new DiffFragment(DiffSide.LEFT, 0, 0, leftMap.get(path)))));
-            } else if (!leftMap.get(path).equals(rightMap.get(path))) {
+                        List.of(new DiffFragment(DiffSide.LEFT, 0, 0, leftRecords.value(id)))));
+            } else if (!leftRecords.value(id).equals(rightRecords.value(other))) {
                 hunks.add(DiffHunk.of(
                         "xml-path-" + encode(path),
                         DiffType.MODIFY,
                         path,
                         List.of(
-                                new DiffFragment(DiffSide.LEFT, 0, 0, leftMap.get(path)),
-                                new DiffFragment(DiffSide.RIGHT, 0, 0, rightMap.get(path))
+                                new DiffFragment(DiffSide.LEFT, 0, 0, leftRecords.value(id)),
+                                new DiffFragment(DiffSide.RIGHT, 0, 0, rightRecords.value(other))
                         )));
             }
         }
-        for (String path : rightMap.keySet()) {
-            if (!leftMap.containsKey(path)) {
+        for (int id = 0; id < rightRecords.size(); id++) {
+            String path = rightRecords.path(id);
+            if (leftRecords.indexOf(path) < 0) {
                 hunks.add(DiffHunk.of(
                         "xml-path-" + encode(path),
                         DiffType.INSERT,
                         path,
-                        List.of(new DiffFragment(DiffSide.RIGHT, 0, 0, rightMap.get(path)))));
+                        List.of(new DiffFragment(DiffSide.RIGHT, 0, 0, rightRecords.value(id)))));
             }
         }
-        return new DiffResult(FormatType.XML, hunks, Duration.between(start, Instant.now()));
+        return new DiffResult(FormatType.XML, hunks, Duration.between(start, Instant.now()), null,
+                leftRecords.alignWith(rightRecords));
+    }
+
+    /**
+     * Returns the typed records of the content, reading {@code "path = value"} lines only for content built
+     * without them.
+     */
+    private static PathValueRecords records(NormalizedContent content) {
+        PathValueRecords records = content.getPathValueRecords();
+        return records != null ? records : PathValueRecords.parse(content.getLogicalRecords());
     }
 
     private String encode(String path) {
@@ -164,15 +205,16 @@ public class XmlFormatAdapter implements FormatAdapter {
         return new String(java.util.Base64.getDecoder().decode(encoded));
     }
 
-    private Map<String, String> toMap(NormalizedContent content) {
-        Map<String, String> map = new LinkedHashMap<>();
-        for (String record : content.getLogicalRecords()) {
-            int sep = record.indexOf(" = ");
-            if (sep > 0) {
-                map.put(record.substring(0, sep), record.substring(sep + 3));
-            }
+    @Override
+    public MergeResult merge(NormalizedContent left,
+                             NormalizedContent right,
+                             DiffResult diffResult,
+                             List<MergeDecision> decisions,
+                             Path outputPath) throws IOException {
+        if (diffResult != null && diffResult.getNativeModel() instanceof StructuralXmlDiff.Result structural) {
+            return merge(left, right, decisions, outputPath, structural.edits()::get);
         }
-        return map;
+        return merge(left, right, decisions, outputPath);
     }
 
     @Override
@@ -180,78 +222,210 @@ public class XmlFormatAdapter implements FormatAdapter {
                              NormalizedContent right,
                              List<MergeDecision> decisions,
                              Path outputPath) throws IOException {
+        if (left.getNativeModel() instanceof Document leftDoc && right.getNativeModel() instanceof Document rightDoc) {
+            Map<String, StructuralXmlDiff.XmlEdit> edits = StructuralXmlDiff.diff(leftDoc, rightDoc, identity).edits();
+            return merge(left, right, decisions, outputPath, edits::get);
+        }
+        return merge(left, right, decisions, outputPath, this::pathEdit);
+    }
+
+    /**
+     * Applies the decisions to a copy of the left tree in one batch. The nodes of all decisions are resolved
+     * first through one {@link XmlNodeIndex} walk per document, then every change is applied, so inserts and
+     * deletes do not shift the paths of later decisions and each decision costs a map lookup.
+     */
+    private MergeResult merge(NormalizedContent left,
+                              NormalizedContent right,
+                              List<MergeDecision> decisions,
+                              Path outputPath,
+                              Function<String, StructuralXmlDiff.XmlEdit> edits) throws IOException {
         Instant start = Instant.now();
-        Document leftDoc = ((Document) left.getNativeModel());
-        Document merged = (Document) leftDoc.cloneNode(true);
-        Document rightDoc = ((Document) right.getNativeModel());
-        XPath xpath = XPathFactory.newInstance().newXPath();
+        List<MergeDecision> applied = new ArrayList<>();
+        List<StructuralXmlDiff.XmlEdit> appliedEdits = new ArrayList<>();
+        Set<String> leftPaths = new HashSet<>();
+        Set<String> rightPaths = new HashSet<>();
         for (MergeDecision decision : decisions) {
-            String encoded = decision.getHunkId().replace("xml-path-", "");
-            String path = decode(encoded);
-            switch (decision.getChoice()) {
-                case TAKE_LEFT -> {
-                    // no-op
-                }
-                case TAKE_RIGHT -> applyFromRight(merged, rightDoc, xpath, path);
-                case MANUAL -> {
-                    if (decision.getManualContent() != null) {
-                        applyManual(merged, xpath, path, decision.getManualContent());
-                    }
-                }
+            if (decision.getChoice() == MergeChoice.TAKE_LEFT
+                    || (decision.getChoice() == MergeChoice.MANUAL && decision.getManualContent() == null)) {
+                continue;
+            }
+            StructuralXmlDiff.XmlEdit edit = edits.apply(decision.getHunkId());
+            if (edit == null) {
+                log.debug("Ignoring decision for unknown XML hunk {}", decision.getHunkId());
+                continue;
+            }
+            applied.add(decision);
+            appliedEdits.add(edit);
+            addIfPresent(leftPaths, edit.leftPath());
+            addIfPresent(leftPaths, edit.before());
+            if (decision.getChoice() == MergeChoice.TAKE_RIGHT) {
+                addIfPresent(rightPaths, edit.rightPath());
             }
         }
+
+        Document merged = left.getNativeModel() instanceof XmlSource source
+                ? parse(source.getPath())
+                : (Document) ((Document) left.getNativeModel()).cloneNode(true);
+        Map<String, Element> leftNodes = XmlNodeIndex.resolve(merged, leftPaths);
+        Map<String, Element> rightNodes = rightPaths.isEmpty()
+                ? Map.of()
+                : XmlNodeIndex.resolve(document(right), rightPaths);
+        List<Runnable> changes = new ArrayList<>(applied.size());
+        for (int i = 0; i < applied.size(); i++) {
+            MergeDecision decision = applied.get(i);
+            StructuralXmlDiff.XmlEdit edit = appliedEdits.get(i);
+            Runnable change = decision.getChoice() == MergeChoice.TAKE_RIGHT
+                    ? takeRight(merged, leftNodes, rightNodes, edit)
+                    : manual(leftNodes, edit, decision.getManualContent());
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        changes.forEach(Runnable::run);
         if (outputPath != null) {
             Files.writeString(outputPath, serialize(merged), left.getEncoding());
         }
         return new MergeResult(FormatType.XML, outputPath, Duration.between(start, Instant.now()));
     }
 
-    private void applyFromRight(Document target, Document source, XPath xpath, String path) throws IOException {
-        try {
-            Node sourceNode = (Node) xpath.evaluate(path, source, XPathConstants.NODE);
-            if (sourceNode == null) {
-                return;
-            }
-            if (path.endsWith("/text()")) {
-                Node targetNode = (Node) xpath.evaluate(parentPath(path), target, XPathConstants.NODE);
-                if (targetNode != null) {
-                    targetNode.setTextContent(sourceNode.getNodeValue());
-                }
-            } else if (path.contains("/@")) {
-                Node targetNode = (Node) xpath.evaluate(path, target, XPathConstants.NODE);
-                if (targetNode != null && targetNode.getNodeType() == Node.ATTRIBUTE_NODE) {
-                    targetNode.setNodeValue(sourceNode.getNodeValue());
+    private static void addIfPresent(Set<String> paths, String path) {
+        if (path != null) {
+            paths.add(path);
+        }
+    }
+
+    /**
+     * Interprets a path hunk id from a record diff as an edit at the same path on both sides.
+     */
+    private StructuralXmlDiff.XmlEdit pathEdit(String hunkId) {
+        String path = decode(hunkId.replace("xml-path-", ""));
+        if (path.endsWith("/text()")) {
+            String owner = parentPath(path);
+            return new StructuralXmlDiff.XmlEdit(StructuralXmlDiff.XmlEdit.Kind.TEXT, DiffType.MODIFY, null,
+                    owner, owner, null);
+        }
+        int attribute = path.lastIndexOf("/@");
+        if (attribute > 0) {
+            String owner = path.substring(0, attribute);
+            return new StructuralXmlDiff.XmlEdit(StructuralXmlDiff.XmlEdit.Kind.ATTRIBUTE, DiffType.MODIFY,
+                    path.substring(attribute + 2), owner, owner, null);
+        }
+        return new StructuralXmlDiff.XmlEdit(StructuralXmlDiff.XmlEdit.Kind.ELEMENT, DiffType.MODIFY, null,
+                path, path, null);
+    }
+
+    private Runnable takeRight(Document target, Map<String, Element> leftNodes, Map<String, Element> rightNodes,
+                               StructuralXmlDiff.XmlEdit edit) {
+        Element targetNode = edit.leftPath() == null ? null : leftNodes.get(edit.leftPath());
+        Element sourceNode = edit.rightPath() == null ? null : rightNodes.get(edit.rightPath());
+        if (targetNode == null) {
+            return null;
+        }
+        switch (edit.kind()) {
+            case ATTRIBUTE -> {
+                Attr sourceAttr = sourceNode == null ? null : sourceNode.getAttributeNode(edit.attribute());
+                if (edit.type() == DiffType.DELETE || sourceAttr == null) {
+                    return () -> {
+                        Attr existing = targetNode.getAttributeNode(edit.attribute());
+                        if (existing != null) {
+                            targetNode.removeAttributeNode(existing);
+                        }
+                    };
                 }
+                return () -> setAttribute(targetNode, edit.attribute(), sourceAttr);
+            }
+            case TEXT -> {
+                String text = edit.type() == DiffType.DELETE || sourceNode == null ? null : leafText(sourceNode);
+                return () -> replaceText(targetNode, text);
+            }
+            default -> {
+                return switch (edit.type()) {
+                    case DELETE -> targetNode.getParentNode() == null
+                            ? null
+                            : () -> targetNode.getParentNode().removeChild(targetNode);
+                    case INSERT -> {
+                        if (sourceNode == null) {
+                            yield null;
+                        }
+                        Node before = edit.before() == null ? null : leftNodes.get(edit.before());
+                        Node imported = target.importNode(sourceNode, true);
+                        yield () -> targetNode.insertBefore(imported, before);
+                    }
+                    default -> sourceNode == null || targetNode.getParentNode() == null
+                            ? null
+                            : () -> targetNode.getParentNode().replaceChild(target.importNode(sourceNode, true), targetNode);
+                };
+            }
+        }
+    }
+
+    private Runnable manual(Map<String, Element> leftNodes, StructuralXmlDiff.XmlEdit edit, String value) {
+        if (edit.kind() == StructuralXmlDiff.XmlEdit.Kind.ELEMENT) {
+            return null;
+        }
+        Element owner = leftNodes.get(edit.leftPath());
+        if (owner == null) {
+            return null;
+        }
+        if (edit.kind() == StructuralXmlDiff.XmlEdit.Kind.TEXT) {
+            return () -> replaceText(owner, value);
+        }
+        return () -> {
+            Attr existing = owner.getAttributeNode(edit.attribute());
+            if (existing != null) {
+                existing.setValue(value);
             } else {
-                Node targetNode = (Node) xpath.evaluate(path, target, XPathConstants.NODE);
-                if (targetNode != null && targetNode.getParentNode() != null) {
-                    Node imported = target.importNode(sourceNode, true);
-                    targetNode.getParentNode().replaceChild(imported, targetNode);
-                }
+                owner.setAttribute(edit.attribute(), value);
             }
-        } catch (XPathExpressionException ex) {
-            log.debug("XPath evaluation failed for path '{}' during merge", path, ex);
-            throw new XmlProcessingException("Failed to apply XML merge for path " + path, ex);
+        };
+    }
+
+    private static void setAttribute(Element owner, String name, Attr source) {
+        Attr existing = owner.getAttributeNode(name);
+        if (existing != null) {
+            existing.setValue(source.getValue());
+        } else {
+            owner.setAttributeNodeNS((Attr) owner.getOwnerDocument().importNode(source, true));
         }
     }
 
-    private void applyManual(Document target, XPath xpath, String path, String value) throws IOException {
-        try {
-            if (path.endsWith("/text()")) {
-                Node node = (Node) xpath.evaluate(parentPath(path), target, XPathConstants.NODE);
-                if (node != null) {
-                    node.setTextContent(value);
-                }
-            } else if (path.contains("/@")) {
-                Node node = (Node) xpath.evaluate(path, target, XPathConstants.NODE);
-                if (node != null && node.getNodeType() == Node.ATTRIBUTE_NODE) {
-                    node.setNodeValue(value);
-                }
+    /**
+     * Returns the text of an element without element children, or {@code null} when it has child elements.
+     */
+    private static String leafText(Element element) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                return null;
             }
-        } catch (XPathExpressionException ex) {
-            log.debug("XPath evaluation failed for manual content at path '{}'", path, ex);
-            throw new XmlProcessingException("Failed to apply manual XML content for path " + path, ex);
         }
+        return element.getTextContent();
+    }
+
+    /**
+     * Replaces the text and CDATA children of an element, leaving its child elements and comments in place.
+     */
+    private static void replaceText(Element owner, String text) {
+        Node child = owner.getFirstChild();
+        while (child != null) {
+            Node next = child.getNextSibling();
+            if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                owner.removeChild(child);
+            }
+            child = next;
+        }
+        if (text != null && !text.isEmpty()) {
+            owner.appendChild(owner.getOwnerDocument().createTextNode(text));
+        }
+    }
+
+    /**
+     * Returns the DOM of normalized content, parsing it from the file when it was normalized by streaming.
+     */
+    private Document document(NormalizedContent content) throws IOException {
+        if (content.getNativeModel() instanceof XmlSource source) {
+            return parse(source.getPath());
+        }
+        return (Document) content.getNativeModel();
     }
 
     private String parentPath(String path) {
@@ -264,11 +438,8 @@ public class XmlFormatAdapter implements FormatAdapter {
 
     private String serialize(Document document) throws IOException {
         try {
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
             StringWriter writer = new StringWriter();
-            transformer.transform(new DOMSource(document), new StreamResult(writer));
+            XmlProcessors.indentingTransformer().transform(new DOMSource(document), new StreamResult(writer));
             return writer.toString();
         } catch (TransformerException ex) {
             throw new XmlProcessingException("Failed to serialize XML document", ex);
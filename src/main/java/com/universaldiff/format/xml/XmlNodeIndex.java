@@ -0,0 +1,106 @@
+package com.universaldiff.format.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves many positional element paths such as {@code /root[1]/item[3]} against a document in one walk.
+ * <p>
+ * The requested paths are merged into a trie of name and sibling index steps, and the walk only enters
+ * elements on a requested path, so resolving a batch costs one pass over the touched branches instead of one
+ * XPath evaluation over the whole document per path.
+ */
+final class XmlNodeIndex {
+
+    private XmlNodeIndex() {
+    }
+
+    /**
+     * Returns the elements found for the given paths; paths that match nothing are absent from the map.
+     */
+    static Map<String, Element> resolve(Document document, Collection<String> paths) {
+        Step root = new Step();
+        for (String path : paths) {
+            root.add(path);
+        }
+        Map<String, Element> found = new HashMap<>();
+        Element element = document.getDocumentElement();
+        if (element != null) {
+            Step step = root.child(element.getNodeName(), 1);
+            if (step != null) {
+                walk(element, step, found);
+            }
+        }
+        return found;
+    }
+
+    private static void walk(Element element, Step step, Map<String, Element> found) {
+        if (step.path != null) {
+            found.put(step.path, element);
+        }
+        if (step.children == null) {
+            return;
+        }
+        Map<String, Integer> counters = new HashMap<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            Map<Integer, Step> byIndex = step.children.get(child.getNodeName());
+            if (byIndex == null) {
+                continue;
+            }
+            Step next = byIndex.get(counters.merge(child.getNodeName(), 1, Integer::sum));
+            if (next != null) {
+                walk((Element) child, next, found);
+            }
+        }
+    }
+
+    private static final class Step {
+        private Map<String, Map<Integer, Step>> children;
+        private String path;
+
+        private void add(String path) {
+            Step current = this;
+            int start = 1;
+            while (start <= path.length()) {
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = path.length();
+                }
+                int open = path.lastIndexOf('[', end);
+                if (open < start || path.charAt(end - 1) != ']') {
+                    return;
+                }
+                String name = path.substring(start, open);
+                int index;
+                try {
+                    index = Integer.parseInt(path, open + 1, end - 1, 10);
+                } catch (NumberFormatException ex) {
+                    return;
+                }
+                if (current.children == null) {
+                    current.children = new HashMap<>();
+                }
+                current = current.children.computeIfAbsent(name, n -> new HashMap<>())
+                        .computeIfAbsent(index, i -> new Step());
+                start = end + 1;
+            }
+            current.path = path;
+        }
+
+        private Step child(String name, int index) {
+            if (children == null) {
+                return null;
+            }
+            Map<Integer, Step> byIndex = children.get(name);
+            return byIndex == null ? null : byIndex.get(index);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.universaldiff.format.xml;
+
+/**
+ * Controls how {@link XmlFormatAdapter} reads XML content during normalization.
+ */
+public enum XmlNormalizationMode {
+    /**
+     * Parses the whole file into a DOM that is kept as the native model, so diffs can align sibling elements.
+     */
+    DOM,
+    /**
+     * Reads the file with a StAX cursor and emits path/value records as elements close, without building a DOM.
+     * The native model is an {@link XmlSource}; a DOM is parsed from it only when a merge needs one. Without a
+     * tree, siblings are not aligned and records are compared by their positional paths.
+     */
+    STREAMING;
+}
@@ -0,0 +1,84 @@
+package com.universaldiff.format.xml;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * Per-thread cache of configured XML processors shared by detection, normalization and merging.
+ * <p>
+ * Looking up a JAXP factory scans the service loader, which dominates short XML compares. Each thread
+ * therefore creates its builder, transformer and StAX factory once and reuses them; none of these
+ * objects is thread-safe, so they are never shared across threads. A document builder is recreated when the
+ * {@code javax.xml.parsers.DocumentBuilderFactory} system property changes, so runtime overrides still apply.
+ */
+public final class XmlProcessors {
+
+    private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+    private static final String INDENT_AMOUNT = "{http://xml.apache.org/xslt}indent-amount";
+
+    private static final ThreadLocal<CachedBuilder> BUILDERS = new ThreadLocal<>();
+    private static final ThreadLocal<Transformer> TRANSFORMERS = new ThreadLocal<>();
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORIES = ThreadLocal.withInitial(XmlProcessors::newInputFactory);
+
+    private XmlProcessors() {
+    }
+
+    /**
+     * Returns this thread's namespace-aware builder, reset to its initial configuration; external DTDs are
+     * not loaded.
+     */
+    public static DocumentBuilder documentBuilder() throws ParserConfigurationException {
+        String factoryClass = System.getProperty(DocumentBuilderFactory.class.getName());
+        CachedBuilder cached = BUILDERS.get();
+        if (cached != null && Objects.equals(cached.factoryClass(), factoryClass)) {
+            cached.builder().reset();
+            return cached.builder();
+        }
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature(LOAD_EXTERNAL_DTD, false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        BUILDERS.set(new CachedBuilder(factoryClass, builder));
+        return builder;
+    }
+
+    /**
+     * Returns this thread's transformer, configured to indent its output by two spaces.
+     */
+    public static Transformer indentingTransformer() throws TransformerConfigurationException {
+        Transformer transformer = TRANSFORMERS.get();
+        if (transformer == null) {
+            transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty(INDENT_AMOUNT, "2");
+            TRANSFORMERS.set(transformer);
+        }
+        return transformer;
+    }
+
+    /**
+     * Returns this thread's namespace-aware StAX factory; external entities and DTDs resolve to empty input.
+     */
+    static XMLInputFactory inputFactory() {
+        return INPUT_FACTORIES.get();
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> InputStream.nullInputStream());
+        return factory;
+    }
+
+    private record CachedBuilder(String factoryClass, DocumentBuilder builder) {
+    }
+}
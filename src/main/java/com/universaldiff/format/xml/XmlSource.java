@@ -0,0 +1,19 @@
+package com.universaldiff.format.xml;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * An XML file that was normalized by streaming; its DOM is only built when a merge asks for it.
+ */
+public final class XmlSource {
+    private final Path path;
+
+    XmlSource(Path path) {
+        this.path = Objects.requireNonNull(path, "path");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
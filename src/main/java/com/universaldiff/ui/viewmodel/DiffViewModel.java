@@ -14,6 +14,8 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 import java.io.IOException;
@@ -24,6 +26,8 @@ import java.util.Optional;
 
 public class DiffViewModel {
 
+    private static final Logger log = LoggerFactory.getLogger(DiffViewModel.class);
+
     private ComparisonService comparisonService;
     private final ObjectProperty<Path> leftPath = new SimpleObjectProperty<>();
     private final ObjectProperty<Path> rightPath = new SimpleObjectProperty<>();
@@ -76,7 +80,7 @@ public class DiffViewModel {
     };
     task.setOnSucceeded(evt -> {
         busy.set(false);
-        currentSession = task.getValue();
+        replaceSession(task.getValue());
         if (currentSession != null) {
             DiffResult diffResult = currentSession.getDiffResult();
             hunks.setAll(diffResult.getHunks());
@@ -105,10 +109,10 @@ public class DiffViewModel {
         ensureExists(right);
 
         // 这里就是原来同步 compare 的老逻辑
-        currentSession = comparisonService.compare(
+        replaceSession(comparisonService.compare(
                 left,
                 right,
-                ComparisonOptions.builder().build());
+                ComparisonOptions.builder().build()));
         DiffResult diffResult = currentSession.getDiffResult();
         hunks.setAll(diffResult.getHunks());
     }
@@ -129,6 +133,21 @@ public class DiffViewModel {
         return Optional.ofNullable(currentSession);
     }
 
+    /**
+     * Makes {@code session} current and closes the one it replaces, releasing any files that session mapped.
+     */
+    private void replaceSession(ComparisonSession session) {
+        ComparisonSession previous = currentSession;
+        currentSession = session;
+        if (previous != null && previous != session) {
+            try {
+                previous.close();
+            } catch (IOException ex) {
+                log.warn("Could not release the previous comparison", ex);
+            }
+        }
+    }
+
     private void ensureExists(Path path) throws IOException {
         if (!Files.exists(path)) {
             throw new IOException("File not found: " + path);
@@ -0,0 +1,50 @@
+package com.universaldiff.core.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class OutputFilesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replacedOutputKeepsItsPermissionsAndLeavesNoTemporaryFile() throws Exception {
+        assumeTrue(Files.getFileAttributeView(tempDir, PosixFileAttributeView.class) != null);
+        Path output = Files.writeString(tempDir.resolve("out.txt"), "old");
+        Files.setPosixFilePermissions(output, PosixFilePermissions.fromString("rw-r--r--"));
+
+        OutputFiles.writeReplacing(output, file -> Files.writeString(file, "new"));
+
+        assertThat(output).hasContent("new");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(output))).isEqualTo("rw-r--r--");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(output);
+        }
+    }
+
+    @Test
+    void aSymbolicLinkIsFollowedAndKept() throws Exception {
+        Path real = Files.writeString(tempDir.resolve("real.txt"), "old");
+        Path link;
+        try {
+            link = Files.createSymbolicLink(tempDir.resolve("link.txt"), real);
+        } catch (UnsupportedOperationException | java.io.IOException ex) {
+            assumeTrue(false, "symbolic links are not available");
+            return;
+        }
+
+        OutputFiles.writeReplacing(link, file -> Files.writeString(file, "new"));
+
+        assertThat(Files.isSymbolicLink(link)).isTrue();
+        assertThat(real).hasContent("new");
+    }
+}
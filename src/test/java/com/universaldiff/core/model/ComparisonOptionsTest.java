@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.nio.charset.StandardCharsets;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ComparisonOptionsTest {
 
@@ -28,5 +29,40 @@ class ComparisonOptionsTest {
         assertThat(options.forcedFormat()).isEmpty();
         assertThat(options.leftEncodingOverride()).isEmpty();
         assertThat(options.rightEncodingOverride()).isEmpty();
+        assertThat(options.diffAlgorithm()).isEqualTo(DiffAlgorithm.MYERS);
+        assertThat(options.binaryDiffMode()).isEqualTo(BinaryDiffMode.POSITIONAL);
+        assertThat(options.parallelism()).isEqualTo(1);
+        assertThat(options.sortedKeyColumn()).isEmpty();
+        assertThat(options.keyColumns()).isEmpty();
+        assertThat(options.rowDiffGranularity()).isEqualTo(RowDiffGranularity.ROW);
+    }
+
+    @Test
+    void builderRejectsParallelismBelowOne() {
+        assertThatThrownBy(() -> ComparisonOptions.builder().parallelism(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void builderSetsSortedKeyColumn() {
+        assertThat(ComparisonOptions.builder().sortedByKeyColumn(2).build().sortedKeyColumn()).hasValue(2);
+        assertThatThrownBy(() -> ComparisonOptions.builder().sortedByKeyColumn(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void builderSetsKeyColumnsInOrder() {
+        assertThat(ComparisonOptions.builder().keyColumns(2, 0).build().keyColumns()).containsExactly(2, 0);
+        assertThatThrownBy(() -> ComparisonOptions.builder().keyColumns(1, -3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void builderSetsDiffAlgorithm() {
+        ComparisonOptions options = ComparisonOptions.builder()
+                .diffAlgorithm(DiffAlgorithm.HISTOGRAM)
+                .build();
+
+        assertThat(options.diffAlgorithm()).isEqualTo(DiffAlgorithm.HISTOGRAM);
     }
 }
@@ -38,6 +38,22 @@ class CoreModelValueObjectTest {
         assertThat(descriptor.getEncoding()).isEqualTo(StandardCharsets.UTF_8);
     }
 
+    @Test
+    void lazyPathValueRecordsAreComputedOnceOnFirstAccess() {
+        java.util.concurrent.atomic.AtomicInteger calls = new java.util.concurrent.atomic.AtomicInteger();
+        NormalizedContent content = NormalizedContent.builder(FormatType.JSON)
+                .lazyPathValueRecords(() -> {
+                    calls.incrementAndGet();
+                    return PathValueRecords.parse(List.of("/a = 1"));
+                })
+                .build();
+
+        assertThat(calls).hasValue(0);
+        assertThat(content.getLogicalRecords()).containsExactly("/a = 1");
+        assertThat(content.getLogicalRecords()).containsExactly("/a = 1");
+        assertThat(calls).hasValue(1);
+    }
+
     private static final class PathTestUtils {
         private static java.nio.file.Path somePath() {
             return java.nio.file.Paths.get("virtual.txt");
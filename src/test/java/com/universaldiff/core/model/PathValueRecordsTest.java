@@ -0,0 +1,64 @@
+package com.universaldiff.core.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathValueRecordsTest {
+
+    @Test
+    void looksUpPathsAndKeepsTypedValues() {
+        PathValueRecords.Builder builder = PathValueRecords.builder();
+        for (int i = 0; i < 1_000; i++) {
+            builder.add("/items/" + i, PathValueRecords.ValueType.NUMBER, String.valueOf(i % 3));
+        }
+        builder.add("/flag", PathValueRecords.ValueType.BOOLEAN, "true");
+        PathValueRecords records = builder.build();
+
+        assertThat(records.size()).isEqualTo(1_001);
+        assertThat(records.indexOf("/items/742")).isEqualTo(742);
+        assertThat(records.value(742)).isEqualTo("1");
+        assertThat(records.type(742)).isEqualTo(PathValueRecords.ValueType.NUMBER);
+        assertThat(records.path(1_000)).isEqualTo("/flag");
+        assertThat(records.type(1_000)).isEqualTo(PathValueRecords.ValueType.BOOLEAN);
+        assertThat(records.indexOf("/items/1000")).isEqualTo(-1);
+    }
+
+    @Test
+    void addingAPathAgainReplacesItsValueInPlace() {
+        PathValueRecords records = PathValueRecords.builder()
+                .add("/a", PathValueRecords.ValueType.NUMBER, "1")
+                .add("/b", PathValueRecords.ValueType.STRING, "x")
+                .add("/a", PathValueRecords.ValueType.NULL, "null")
+                .build();
+
+        assertThat(records.asLines()).containsExactly("/a = null", "/b = x");
+        assertThat(records.type(records.indexOf("/a"))).isEqualTo(PathValueRecords.ValueType.NULL);
+    }
+
+    @Test
+    void pathsAndValuesMayContainTheLineSeparator() {
+        PathValueRecords records = PathValueRecords.builder()
+                .add("/a = b", PathValueRecords.ValueType.STRING, "c = d")
+                .build();
+
+        assertThat(records.indexOf("/a")).isEqualTo(-1);
+        assertThat(records.value(records.indexOf("/a = b"))).isEqualTo("c = d");
+    }
+
+    @Test
+    void contentRendersItsTypedRecordsAsLogicalRecords() {
+        NormalizedContent content = NormalizedContent.builder(FormatType.JSON)
+                .lazyPathValueRecords(() -> PathValueRecords.parse(List.of("/a = 1", "no separator", "/b = x = y")))
+                .build();
+
+        PathValueRecords records = content.getPathValueRecords();
+        assertThat(content.getPathValueRecords()).isSameAs(records);
+        assertThat(records.value(records.indexOf("/b"))).isEqualTo("x = y");
+        assertThat(content.getLogicalRecords()).containsExactly("/a = 1", "/b = x = y");
+        assertThat(NormalizedContent.builder(FormatType.TXT).logicalRecords(List.of("a")).build()
+                .getPathValueRecords()).isNull();
+    }
+}
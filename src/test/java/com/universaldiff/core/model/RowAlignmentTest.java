@@ -0,0 +1,76 @@
+package com.universaldiff.core.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RowAlignmentTest {
+
+    @Test
+    void changedRunsPadTheShorterSide() {
+        RowAlignment alignment = RowAlignment.builder()
+                .equal(1)
+                .changed(1, 3)
+                .equal(2)
+                .changed(2, 0)
+                .build();
+
+        assertThat(alignment.getRowCount()).isEqualTo(8);
+        assertThat(rows(alignment)).containsExactly(
+                "0:0", "1:1", "-1:2", "-1:3", "2:4", "3:5", "4:-1", "5:-1");
+        assertThat(alignment.isChanged(0)).isFalse();
+        assertThat(alignment.isChanged(3)).isTrue();
+        assertThat(alignment.isChanged(4)).isFalse();
+        assertThat(alignment.isChanged(7)).isTrue();
+    }
+
+    @Test
+    void emptyRunsAreSkipped() {
+        RowAlignment alignment = RowAlignment.builder()
+                .equal(0)
+                .changed(0, 0)
+                .build();
+
+        assertThat(alignment.getRowCount()).isZero();
+        assertThatThrownBy(() -> alignment.leftIndex(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void matchesAreAlignedInRecordOrderOnBothSides() {
+        // left 0 matches right 1, left 1 has no match, left 2 would cross and left 3 matches right 3 with a change
+        int[] matches = {1, RowAlignment.NO_RECORD, 0, 3};
+        RowAlignment alignment = RowAlignment.fromMatches(4, 5, left -> matches[left], left -> left == 3);
+
+        assertThat(rows(alignment)).containsExactly("-1:0", "0:1", "1:2", "2:-1", "3:3", "-1:4");
+        assertThat(alignment.isChanged(0)).isTrue();
+        assertThat(alignment.isChanged(1)).isFalse();
+        assertThat(alignment.isChanged(2)).isTrue();
+        assertThat(alignment.isChanged(4)).isTrue();
+        assertThat(alignment.isChanged(5)).isTrue();
+    }
+
+    @Test
+    void oneToOneRunsOfTheSameKindAreJoined() {
+        RowAlignment.Builder builder = RowAlignment.builder();
+        for (int i = 0; i < 100_000; i++) {
+            builder.equal(1);
+        }
+        RowAlignment alignment = builder.changed(1, 1).changed(1, 1).changed(2, 0).build();
+
+        assertThat(alignment.getRowCount()).isEqualTo(100_004);
+        assertThat(alignment.leftIndex(99_999)).isEqualTo(99_999);
+        assertThat(alignment.rightIndex(100_001)).isEqualTo(100_001);
+        assertThat(alignment.rightIndex(100_003)).isEqualTo(RowAlignment.NO_RECORD);
+        assertThat(alignment.isChanged(99_999)).isFalse();
+        assertThat(alignment.isChanged(100_000)).isTrue();
+    }
+
+    private String[] rows(RowAlignment alignment) {
+        String[] rows = new String[alignment.getRowCount()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = alignment.leftIndex(row) + ":" + alignment.rightIndex(row);
+        }
+        return rows;
+    }
+}
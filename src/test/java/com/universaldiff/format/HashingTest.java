@@ -0,0 +1,24 @@
+package com.universaldiff.format;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashingTest {
+
+    @Test
+    void mixIsTheMurmur3Finalizer() {
+        // fmix64(1) as computed by the MurmurHash3 reference implementation
+        assertThat(Hashing.mix(1)).isEqualTo(0xb456bcfc34c2cb2cL);
+        assertThat(Hashing.mix(0)).isZero();
+    }
+
+    @Test
+    void combiningDependsOnTheOrderOfValues() {
+        long a = Hashing.hashString("a");
+        long b = Hashing.hashString("b");
+
+        assertThat(Hashing.hashString("")).isEqualTo(0xcbf29ce484222325L);
+        assertThat(Hashing.combine(Hashing.combine(0, a), b)).isNotEqualTo(Hashing.combine(Hashing.combine(0, b), a));
+    }
+}
@@ -0,0 +1,154 @@
+package com.universaldiff.format.bin;
+
+import com.universaldiff.core.model.BinaryDiffMode;
+import com.universaldiff.core.model.ComparisonOptions;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffResult;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.core.model.FileDescriptor;
+import com.universaldiff.core.model.FormatType;
+import com.universaldiff.core.model.MergeChoice;
+import com.universaldiff.core.model.MergeDecision;
+import com.universaldiff.core.model.NormalizedContent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class BlockHashByteDiffTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void insertedByteIsReportedAtItsOffsetOnly() {
+        byte[] left = randomBytes(100_000, 1);
+        byte[] right = insert(left, 10, new byte[]{42});
+
+        List<ByteEdit> edits = BlockHashByteDiff.forLength(left.length).diff(ByteSource.of(left), ByteSource.of(right));
+
+        assertThat(edits).containsExactly(new ByteEdit(10, 0, 10, 1));
+    }
+
+    @Test
+    void deletedRangeIsReportedAsSingleDelete() {
+        byte[] left = randomBytes(50_000, 2);
+        byte[] right = new byte[left.length - 300];
+        System.arraycopy(left, 0, right, 0, 20_000);
+        System.arraycopy(left, 20_300, right, 20_000, left.length - 20_300);
+
+        List<ByteEdit> edits = BlockHashByteDiff.forLength(left.length).diff(ByteSource.of(left), ByteSource.of(right));
+
+        assertThat(edits).containsExactly(new ByteEdit(20_000, 300, 20_000, 0));
+    }
+
+    @Test
+    void editsRebuildTheRightSideOnRandomInputs() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            byte[] left = randomBytes(random.nextInt(4_000), round);
+            byte[] right = left;
+            for (int change = random.nextInt(5); change > 0; change--) {
+                int at = right.length == 0 ? 0 : random.nextInt(right.length);
+                right = random.nextBoolean()
+                        ? insert(right, at, randomBytes(random.nextInt(50) + 1, round * 31 + change))
+                        : remove(right, at, Math.min(right.length - at, random.nextInt(50)));
+            }
+            BlockHashByteDiff diff = BlockHashByteDiff.withBlockSize(1 + random.nextInt(64));
+
+            List<ByteEdit> edits = diff.diff(ByteSource.of(left), ByteSource.of(right));
+
+            assertThat(apply(left, right, edits)).as("round %d", round).isEqualTo(right);
+        }
+    }
+
+    @Test
+    void repeatedBlocksBehindTheMatchedPrefixAreNotRescanned() {
+        int blockSize = 32;
+        byte[] tail = randomBytes(2 << 20, 4);
+        byte[] left = new byte[(4 << 20) + tail.length];
+        System.arraycopy(tail, 0, left, 4 << 20, tail.length);
+        byte[] right = left.clone();
+        for (int at = (4 << 20) + 40; at + blockSize <= right.length; at += 3 * blockSize) {
+            Arrays.fill(right, at, at + blockSize, (byte) 0);
+        }
+
+        List<ByteEdit> edits = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                BlockHashByteDiff.withBlockSize(blockSize).diff(ByteSource.of(left), ByteSource.of(right)));
+
+        assertThat(apply(left, right, edits)).isEqualTo(right);
+    }
+
+    @Test
+    void contentDefinedModeMergesShiftedContent() throws Exception {
+        byte[] leftBytes = randomBytes(20_000, 3);
+        byte[] rightBytes = remove(insert(leftBytes, 100, new byte[]{1, 2, 3}), 15_000, 40);
+        Path left = Files.write(tempDir.resolve("left.bin"), leftBytes);
+        Path right = Files.write(tempDir.resolve("right.bin"), rightBytes);
+        BinaryFormatAdapter adapter = new BinaryFormatAdapter(FormatType.BIN);
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.BIN, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.BIN, StandardCharsets.UTF_8));
+
+        DiffResult diff = adapter.diff(leftContent, rightContent,
+                ComparisonOptions.builder().binaryDiffMode(BinaryDiffMode.CONTENT_DEFINED).build());
+
+        assertThat(diff.getHunks())
+                .extracting(DiffHunk::getType, DiffHunk::getSummary)
+                .containsExactly(
+                        tuple(DiffType.INSERT, "Insert 3 bytes at 0x00000064"),
+                        tuple(DiffType.DELETE, "Delete 40 bytes at 0x00003A95"));
+
+        Path output = tempDir.resolve("merged.bin");
+        adapter.merge(leftContent, rightContent, diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList(), output);
+        assertThat(Files.readAllBytes(output)).isEqualTo(rightBytes);
+
+        adapter.merge(leftContent, rightContent, List.of(
+                new MergeDecision(diff.getHunks().get(0).getId(), MergeChoice.MANUAL, "FF")), output);
+        assertThat(Files.readAllBytes(output)).isEqualTo(insert(leftBytes, 100, new byte[]{(byte) 0xFF}));
+    }
+
+    private byte[] apply(byte[] left, byte[] right, List<ByteEdit> edits) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int cursor = 0;
+        for (ByteEdit edit : edits) {
+            out.write(left, cursor, (int) edit.leftOffset() - cursor);
+            out.write(right, (int) edit.rightOffset(), (int) edit.rightLength());
+            cursor = (int) (edit.leftOffset() + edit.leftLength());
+        }
+        out.write(left, cursor, left.length - cursor);
+        return out.toByteArray();
+    }
+
+    private byte[] insert(byte[] source, int at, byte[] inserted) {
+        byte[] result = new byte[source.length + inserted.length];
+        System.arraycopy(source, 0, result, 0, at);
+        System.arraycopy(inserted, 0, result, at, inserted.length);
+        System.arraycopy(source, at, result, at + inserted.length, source.length - at);
+        return result;
+    }
+
+    private byte[] remove(byte[] source, int at, int length) {
+        byte[] result = Arrays.copyOf(source, source.length - length);
+        System.arraycopy(source, at + length, result, at, source.length - at - length);
+        return result;
+    }
+
+    private byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,132 @@
+package com.universaldiff.format.bin;
+
+import com.universaldiff.core.model.BinaryDiffMode;
+import com.universaldiff.core.model.ComparisonOptions;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffResult;
+import com.universaldiff.core.model.FileDescriptor;
+import com.universaldiff.core.model.FormatType;
+import com.universaldiff.core.model.MergeChoice;
+import com.universaldiff.core.model.MergeDecision;
+import com.universaldiff.core.model.NormalizedContent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedByteSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void windowsSpanningSegmentsAreCopiedTogether() throws Exception {
+        byte[] bytes = new byte[100];
+        new Random(1).nextBytes(bytes);
+        Path file = Files.write(tempDir.resolve("data.bin"), bytes);
+
+        MappedByteSource source = MappedByteSource.open(file, 16);
+        ByteBuffer window = source.window(10, 40);
+
+        byte[] actual = new byte[40];
+        window.get(actual);
+        assertThat(source.length()).isEqualTo(100);
+        assertThat(actual).containsExactly(java.util.Arrays.copyOfRange(bytes, 10, 50));
+    }
+
+    @Test
+    void closedSourceGivesNoMoreWindows() throws Exception {
+        Path file = Files.write(tempDir.resolve("closed.bin"), new byte[]{1, 2, 3});
+        MappedByteSource source = MappedByteSource.open(file, 16);
+
+        source.close();
+
+        assertThat(source.length()).isEqualTo(3);
+        assertThatThrownBy(() -> source.window(0, 1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void windowedDiffMatchesWholeArrayDiff() throws Exception {
+        Random random = new Random(9);
+        for (int round = 0; round < 50; round++) {
+            byte[] left = new byte[random.nextInt(200)];
+            random.nextBytes(left);
+            byte[] right = java.util.Arrays.copyOf(left, random.nextInt(200));
+            for (int i = 0; i < right.length; i++) {
+                if (random.nextInt(10) == 0) {
+                    right[i] = (byte) random.nextInt();
+                }
+            }
+            MappedByteSource mappedLeft = MappedByteSource.open(Files.write(tempDir.resolve("l" + round), left), 32);
+            MappedByteSource mappedRight = MappedByteSource.open(Files.write(tempDir.resolve("r" + round), right), 32);
+
+            assertThat(PositionalByteDiff.diff(mappedLeft, mappedRight, 16))
+                    .as("round %d", round)
+                    .isEqualTo(PositionalByteDiff.diff(left, right));
+        }
+    }
+
+    @Test
+    void memoryMappedModeDiffsAndMergesLikeInMemoryMode() throws Exception {
+        Path left = Files.write(tempDir.resolve("left.bin"), new byte[]{1, 2, 3, 4, 5, 6});
+        Path right = Files.write(tempDir.resolve("right.bin"), new byte[]{1, 9, 3, 4, 8, 6, 7});
+        BinaryFormatAdapter mapped = new BinaryFormatAdapter(FormatType.BIN, BinaryNormalizationMode.MEMORY_MAPPED);
+        BinaryFormatAdapter inMemory = new BinaryFormatAdapter(FormatType.BIN);
+
+        NormalizedContent mappedLeft = mapped.normalize(new FileDescriptor(left, FormatType.BIN, StandardCharsets.UTF_8));
+        NormalizedContent mappedRight = mapped.normalize(new FileDescriptor(right, FormatType.BIN, StandardCharsets.UTF_8));
+        DiffResult mappedDiff = mapped.diff(mappedLeft, mappedRight);
+        DiffResult inMemoryDiff = inMemory.diff(
+                inMemory.normalize(new FileDescriptor(left, FormatType.BIN, StandardCharsets.UTF_8)),
+                inMemory.normalize(new FileDescriptor(right, FormatType.BIN, StandardCharsets.UTF_8)));
+
+        assertThat(mappedLeft.getBinary()).isNull();
+        assertThat(mappedDiff.getHunks()).extracting(DiffHunk::getId)
+                .containsExactlyElementsOf(inMemoryDiff.getHunks().stream().map(DiffHunk::getId).toList());
+        assertThat(mappedDiff.getHunks().get(0).getFragments().get(1).getContent()).isEqualTo("0x00000001 : 0x09");
+
+        List<MergeDecision> decisions = mappedDiff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList();
+        Path output = tempDir.resolve("merged.bin");
+        mapped.merge(mappedLeft, mappedRight, decisions, output);
+
+        assertThat(Files.readAllBytes(output)).containsExactly(Files.readAllBytes(right));
+    }
+
+    @Test
+    void memoryMappedMergeCanWriteIntoTheLeftFile() throws Exception {
+        byte[] leftBytes = new byte[300_000];
+        new Random(3).nextBytes(leftBytes);
+        byte[] rightBytes = leftBytes.clone();
+        rightBytes[10] ^= 1;
+        rightBytes[250_000] ^= 1;
+        Path right = Files.write(tempDir.resolve("right.bin"), rightBytes);
+        BinaryFormatAdapter mapped = new BinaryFormatAdapter(FormatType.BIN, BinaryNormalizationMode.MEMORY_MAPPED);
+
+        for (BinaryDiffMode mode : BinaryDiffMode.values()) {
+            Path left = Files.write(tempDir.resolve("left-" + mode + ".bin"), leftBytes);
+            NormalizedContent mappedLeft = mapped.normalize(new FileDescriptor(left, FormatType.BIN, StandardCharsets.UTF_8));
+            NormalizedContent mappedRight = mapped.normalize(new FileDescriptor(right, FormatType.BIN, StandardCharsets.UTF_8));
+            DiffResult diff = mapped.diff(mappedLeft, mappedRight, ComparisonOptions.builder().binaryDiffMode(mode).build());
+            List<MergeDecision> decisions = diff.getHunks().stream()
+                    .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                    .toList();
+
+            mapped.merge(mappedLeft, mappedRight, decisions, left);
+
+            assertThat(Files.readAllBytes(left)).as("%s", mode).containsExactly(rightBytes);
+            try (var files = Files.list(tempDir)) {
+                assertThat(files.map(p -> p.getFileName().toString())).noneMatch(name -> name.endsWith(".tmp"));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.universaldiff.format.bin;
+
+import com.universaldiff.core.model.ComparisonOptions;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.FormatType;
+import com.universaldiff.core.model.NormalizedContent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelPositionalByteDiffTest {
+
+    @Test
+    void parallelRangesMatchSequentialRangesAcrossSegmentBoundaries() {
+        Random random = new Random(17);
+        for (int round = 0; round < 100; round++) {
+            byte[] left = new byte[random.nextInt(600)];
+            random.nextBytes(left);
+            byte[] right = Arrays.copyOf(left, random.nextInt(600));
+            for (int run = random.nextInt(8); run > 0 && right.length > 0; run--) {
+                int at = random.nextInt(right.length);
+                int length = Math.min(right.length - at, random.nextInt(40));
+                for (int i = at; i < at + length; i++) {
+                    right[i] = (byte) ~right[i];
+                }
+            }
+            ByteSource leftSource = ByteSource.of(left);
+            ByteSource rightSource = ByteSource.of(right);
+
+            List<ByteRange> parallel = ParallelPositionalByteDiff.diff(leftSource, rightSource, 4, 8, 16);
+
+            assertThat(parallel).as("round %d", round).isEqualTo(PositionalByteDiff.diff(left, right));
+        }
+    }
+
+    @Test
+    void adapterUsesParallelismFromOptions() {
+        byte[] left = new byte[3 << 20];
+        byte[] right = left.clone();
+        right[(1 << 20) - 1] = 1;
+        right[1 << 20] = 1;
+        right[(3 << 20) - 1] = 1;
+        BinaryFormatAdapter adapter = new BinaryFormatAdapter(FormatType.BIN);
+        NormalizedContent leftContent = NormalizedContent.builder(FormatType.BIN).binary(left).build();
+        NormalizedContent rightContent = NormalizedContent.builder(FormatType.BIN).binary(right).build();
+
+        List<String> ids = adapter.diff(leftContent, rightContent, ComparisonOptions.builder().parallelism(4).build())
+                .getHunks().stream().map(DiffHunk::getId).toList();
+
+        assertThat(ids).containsExactly("bin-offset-0xfffff-len-2", "bin-offset-0x2fffff-len-1");
+    }
+}
@@ -0,0 +1,82 @@
+package com.universaldiff.format.bin;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PositionalByteDiffTest {
+
+    @Test
+    void differingRunThatReachesTheShorterEndAbsorbsTheTail() {
+        byte[] left = {1, 2};
+        byte[] right = {1, 3, 4};
+
+        assertThat(PositionalByteDiff.diff(left, right)).containsExactly(new ByteRange(1, 2));
+    }
+
+    @Test
+    void matchesByteByByteScanOnRandomInputs() {
+        Random random = new Random(3);
+        for (int round = 0; round < 500; round++) {
+            byte[] left = new byte[random.nextInt(80)];
+            byte[] right = new byte[random.nextInt(80)];
+            random.nextBytes(left);
+            for (int i = 0; i < right.length; i++) {
+                right[i] = i < left.length && random.nextInt(4) > 0 ? left[i] : (byte) random.nextInt(4);
+            }
+
+            assertThat(PositionalByteDiff.diff(left, right)).as("round %d", round).isEqualTo(scan(left, right));
+        }
+    }
+
+    @Test
+    void renderHexListsOneLinePerByte() {
+        String rendered = BinaryFormatAdapter.renderHex(new byte[]{0x00, (byte) 0xAB, 0x0F}, 1, 3);
+
+        assertThat(rendered.split(System.lineSeparator())).containsExactly("0x00000001 : 0xAB", "0x00000002 : 0x0F");
+    }
+
+    @Test
+    void renderHexCapsLargeRangesWithAMarker() {
+        ByteSource huge = new ByteSource() {
+            @Override
+            public long length() {
+                return 3L << 30;
+            }
+
+            @Override
+            public ByteBuffer window(long position, int windowLength) {
+                return ByteBuffer.allocate(windowLength);
+            }
+        };
+
+        String[] lines = BinaryFormatAdapter.renderHex(huge, 0, huge.length()).split(System.lineSeparator());
+
+        assertThat(lines).hasSize(BinaryFormatAdapter.MAX_RENDERED_BYTES + 1);
+        assertThat(lines[lines.length - 1])
+                .isEqualTo("... " + (huge.length() - BinaryFormatAdapter.MAX_RENDERED_BYTES) + " more bytes");
+        assertThat(BinaryFormatAdapter.renderHex(huge, 5, 7, 1).split(System.lineSeparator()))
+                .containsExactly("0x00000005 : 0x00", "... 1 more byte");
+    }
+
+    private List<ByteRange> scan(byte[] left, byte[] right) {
+        List<ByteRange> ranges = new ArrayList<>();
+        int max = Math.max(left.length, right.length);
+        int start = -1;
+        for (int i = 0; i <= max; i++) {
+            boolean differs = i < max && (i >= left.length || i >= right.length || left[i] != right[i]);
+            if (differs && start < 0) {
+                start = i;
+            } else if (!differs && start >= 0) {
+                ranges.add(new ByteRange(start, i - start));
+                start = -1;
+            }
+        }
+        return ranges;
+    }
+}
@@ -1,5 +1,6 @@
 package com.universaldiff.format.csv;
 
+import com.universaldiff.core.model.ComparisonOptions;
 import com.universaldiff.core.model.DiffHunk;
 import com.universaldiff.core.model.DiffResult;
 import com.universaldiff.core.model.DiffType;
@@ -9,6 +10,7 @@ import com.universaldiff.core.model.MergeChoice;
 import com.universaldiff.core.model.MergeDecision;
 import com.universaldiff.core.model.MergeResult;
 import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.RowAlignment;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -121,6 +123,180 @@ class CsvFormatAdapterTest {
                 .containsExactly("id,name,notes", "1,ManualOnly,");
     }
 
+    @Test
+    void normalize_streamsRecordsIntoTableAndExposesRowsLazily() throws Exception {
+        StringBuilder csv = new StringBuilder("id,status\n");
+        for (int i = 0; i < 5_000; i++) {
+            csv.append(i).append(',').append(i % 2 == 0 ? "open" : "closed").append('\n');
+        }
+        Path file = Files.writeString(tempDir.resolve("large.csv"), csv.toString(), StandardCharsets.UTF_8);
+
+        NormalizedContent content = new CsvFormatAdapter()
+                .normalize(new FileDescriptor(file, FormatType.CSV, StandardCharsets.UTF_8));
+
+        CsvTable table = (CsvTable) content.getNativeModel();
+        assertThat(table.size()).isEqualTo(5_000);
+        assertThat(table.getHeaders()).containsExactly("id", "status");
+        assertThat(content.getLogicalRecords()).hasSize(5_000);
+        assertThat(content.getLogicalRecords().get(4_999)).isEqualTo("id=4999 | status=closed");
+    }
+
+    @Test
+    void diff_alignsRowsByTheirKeyPairing() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.csv"), "id,color\n10,red\n20,blue\n30,green\n",
+                StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.csv"), "id,color\n10,red\n30,teal\n40,black\n",
+                StandardCharsets.UTF_8);
+
+        CsvFormatAdapter adapter = new CsvFormatAdapter();
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.CSV, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.CSV, StandardCharsets.UTF_8));
+
+        for (ComparisonOptions options : List.of(ComparisonOptions.builder().build(),
+                ComparisonOptions.builder().sortedByKeyColumn(0).build())) {
+            RowAlignment alignment = adapter.diff(leftContent, rightContent, options).getRowAlignment().orElseThrow();
+
+            assertThat(alignment.getRowCount()).isEqualTo(4);
+            assertThat(List.of(alignment.leftIndex(0), alignment.rightIndex(0), alignment.isChanged(0)))
+                    .containsExactly(0, 0, false);
+            assertThat(List.of(alignment.leftIndex(1), alignment.rightIndex(1))).containsExactly(1, RowAlignment.NO_RECORD);
+            assertThat(List.of(alignment.leftIndex(2), alignment.rightIndex(2), alignment.isChanged(2)))
+                    .containsExactly(2, 1, true);
+            assertThat(List.of(alignment.leftIndex(3), alignment.rightIndex(3))).containsExactly(RowAlignment.NO_RECORD, 2);
+        }
+    }
+
+    @Test
+    void onDiskMode_diffsAndMergesWithoutLoadingTables() throws Exception {
+        String leftCsv = "id,color\n10,red\n20,blue\n40,black\n";
+        String rightCsv = "id,color\n10,red\n20,green\n30,yellow\n40,black\n";
+        Path left = Files.writeString(tempDir.resolve("disk-left.csv"), leftCsv, StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("disk-right.csv"), rightCsv, StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("disk-merged.csv");
+
+        CsvFormatAdapter adapter = new CsvFormatAdapter(CsvNormalizationMode.ON_DISK);
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.CSV, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.CSV, StandardCharsets.UTF_8));
+        assertThat(leftContent.getNativeModel()).isInstanceOf(CsvSource.class);
+
+        DiffResult diff = adapter.diff(leftContent, rightContent,
+                ComparisonOptions.builder().parallelism(2).build());
+        assertThat(diff.getHunks())
+                .extracting(h -> decodeKey(h.getId()), DiffHunk::getType)
+                .containsExactly(tuple("20", DiffType.MODIFY), tuple("30", DiffType.INSERT));
+
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList();
+        adapter.merge(leftContent, rightContent, decisions, output);
+
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8))
+                .containsExactly("id,color", "10,red", "20,green", "40,black", "30,yellow");
+    }
+
+    @Test
+    void sortedKeyColumnMergeJoinsAndMergesByThatColumn() throws Exception {
+        String leftCsv = "label,sku\na,1\nb,2\nc,3\n";
+        String rightCsv = "label,sku\na,1\nz,3\nd,4\n";
+        Path left = Files.writeString(tempDir.resolve("sorted-left.csv"), leftCsv, StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("sorted-right.csv"), rightCsv, StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("sorted-merged.csv");
+
+        CsvFormatAdapter adapter = new CsvFormatAdapter(CsvNormalizationMode.ON_DISK);
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.CSV, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.CSV, StandardCharsets.UTF_8));
+        DiffResult diff = adapter.diff(leftContent, rightContent,
+                ComparisonOptions.builder().sortedByKeyColumn(1).build());
+
+        assertThat(diff.getHunks())
+                .extracting(h -> decodeKey(h.getId()), DiffHunk::getType)
+                .containsExactly(
+                        tuple("2", DiffType.DELETE),
+                        tuple("3", DiffType.MODIFY),
+                        tuple("4", DiffType.INSERT));
+
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .filter(h -> h.getType() != DiffType.DELETE)
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList();
+        adapter.merge(leftContent, rightContent, diff, decisions, output);
+
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8))
+                .containsExactly("label,sku", "a,1", "b,2", "z,3", "d,4");
+    }
+
+    @Test
+    void onDiskMergeCanWriteIntoTheLeftFile() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("in-place-left.csv"), "id,name\n1,a\n2,b\n3,c\n",
+                StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("in-place-right.csv"), "id,name\n1,a\n2,B\n3,c\n",
+                StandardCharsets.UTF_8);
+
+        CsvFormatAdapter adapter = new CsvFormatAdapter(CsvNormalizationMode.ON_DISK);
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.CSV, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.CSV, StandardCharsets.UTF_8));
+        DiffResult diff = adapter.diff(leftContent, rightContent);
+        assertThat(diff.getHunks()).hasSize(1);
+
+        adapter.merge(leftContent, rightContent, diff,
+                List.of(new MergeDecision(diff.getHunks().get(0).getId(), MergeChoice.TAKE_RIGHT, null)), left);
+
+        assertThat(Files.readAllLines(left, StandardCharsets.UTF_8)).containsExactly("id,name", "1,a", "2,B", "3,c");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.map(p -> p.getFileName().toString())).noneMatch(name -> name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void sortedKeyColumnMergeTakesRightRowsWhoseKeysDifferOnlyInText() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("padded-left.csv"), "id,v\n01,a\n2,b\n", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("padded-right.csv"), "id,v\n1,x\n2,b\n", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("padded-merged.csv");
+
+        CsvFormatAdapter adapter = new CsvFormatAdapter(CsvNormalizationMode.ON_DISK);
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.CSV, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.CSV, StandardCharsets.UTF_8));
+        DiffResult diff = adapter.diff(leftContent, rightContent,
+                ComparisonOptions.builder().sortedByKeyColumn(0).build());
+        assertThat(diff.getHunks())
+                .extracting(h -> decodeKey(h.getId()), DiffHunk::getType)
+                .containsExactly(tuple("01", DiffType.DELETE), tuple("1", DiffType.INSERT));
+
+        adapter.merge(leftContent, rightContent, diff, diff.getHunks().stream()
+                .filter(h -> h.getType() != DiffType.DELETE)
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList(), output);
+
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8))
+                .containsExactly("id,v", "01,a", "2,b", "1,x");
+    }
+
+    @Test
+    void explicitKeyColumnsReplaceTheHeaderHeuristicAndDriveTheMerge() throws Exception {
+        String leftCsv = "name,region,qty\nbolt,EU,5\nbolt,US,7\n";
+        String rightCsv = "name,region,qty\nbolt,EU,5\nbolt,US,9\n";
+        Path left = Files.writeString(tempDir.resolve("composite-left.csv"), leftCsv, StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("composite-right.csv"), rightCsv, StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("composite-merged.csv");
+
+        CsvFormatAdapter adapter = new CsvFormatAdapter();
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.CSV, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.CSV, StandardCharsets.UTF_8));
+        DiffResult diff = adapter.diff(leftContent, rightContent, ComparisonOptions.builder().keyColumns(0, 1).build());
+
+        assertThat(diff.getHunks())
+                .extracting(DiffHunk::getSummary, DiffHunk::getType)
+                .containsExactly(tuple("Row bolt, US", DiffType.MODIFY));
+
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList();
+        adapter.merge(leftContent, rightContent, diff, decisions, output);
+
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8))
+                .isEqualTo(Files.readAllLines(right, StandardCharsets.UTF_8));
+    }
+
     private String decodeKey(String hunkId) {
         String encoded = hunkId.replace("csv-row-", "");
         return new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
@@ -20,4 +20,59 @@ class CsvTableTest {
         CsvTable table = new CsvTable(List.of(), List.of(List.of("x", "y")));
         assertThat(table.formatRow(0)).isEqualTo("col1=x | col2=y");
     }
+
+    @Test
+    void builderStoresRowsColumnarAndPadsShortRows() {
+        CsvTable.Builder builder = CsvTable.builder(List.of("id", "name", "notes"), 3);
+        List<String> first = List.of("1", "Alpha", "x");
+        List<String> second = List.of("2", "Beta");
+        builder.addRow(first::get, first.size());
+        builder.addRow(second::get, second.size());
+        CsvTable table = builder.build();
+
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.get(1, 1)).isEqualTo("Beta");
+        assertThat(table.getRows()).containsExactly(List.of("1", "Alpha", "x"), List.of("2", "Beta", ""));
+        assertThat(table.formatRow(1)).isEqualTo("id=2 | name=Beta | notes=");
+    }
+
+    @Test
+    void repeatedValuesShareOneDictionaryCode() {
+        CsvTable table = new CsvTable(List.of("id", "status"), List.of(
+                List.of("1", "open"),
+                List.of("2", "closed"),
+                List.of("3", "open")));
+
+        assertThat(table.code(0, 1)).isEqualTo(table.code(2, 1));
+        assertThat(table.code(0, 1)).isNotEqualTo(table.code(1, 1));
+        assertThat(table.get(2, 1)).isEqualTo("open");
+    }
+
+    @Test
+    void codeMappingTranslatesCodesIntoTheOtherTable() {
+        CsvTable left = new CsvTable(List.of("status"), List.of(List.of("open"), List.of("closed")));
+        CsvTable right = new CsvTable(List.of("status"), List.of(List.of("closed"), List.of("pending")));
+
+        int[] mapping = left.codeMapping(0, right);
+
+        assertThat(mapping[left.code(1, 0)]).isEqualTo(right.code(0, 0));
+        assertThat(mapping[left.code(0, 0)]).isEqualTo(-1);
+    }
+
+    @Test
+    void fingerprintsMatchForEqualRowsAcrossTablesAndSurviveAppend() {
+        CsvTable left = new CsvTable(List.of("id", "status"), List.of(List.of("1", "open"), List.of("2", "closed")));
+        CsvTable right = new CsvTable(List.of("id", "status"), List.of(List.of("2", "closed"), List.of("1", "opened")));
+
+        assertThat(left.fingerprint(1)).isEqualTo(right.fingerprint(0));
+        assertThat(left.fingerprint(0)).isNotEqualTo(right.fingerprint(1));
+        assertThat(new CsvTable(List.of("a", "b"), List.of(List.of("x", "y"))).fingerprint(0))
+                .isNotEqualTo(new CsvTable(List.of("a", "b"), List.of(List.of("y", "x"))).fingerprint(0));
+
+        CsvTable appended = CsvTable.builder(List.of("id", "status"), 2).append(right).append(left).build();
+        assertThat(appended.getRows()).containsExactly(
+                List.of("2", "closed"), List.of("1", "opened"), List.of("1", "open"), List.of("2", "closed"));
+        assertThat(appended.fingerprint(3)).isEqualTo(left.fingerprint(1));
+        assertThat(appended.code(0, 1)).isEqualTo(appended.code(3, 1));
+    }
 }
@@ -0,0 +1,126 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.core.model.DiffFragment;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffSide;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.core.model.RowDiffGranularity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class KeyedTableDiffTest {
+
+    @Test
+    void duplicateKeysPairInFileOrderInsteadOfOverwriting() {
+        CsvTable left = new CsvTable(List.of("id", "value"), List.of(
+                List.of("1", "a"), List.of("1", "b"), List.of("2", "c")));
+        CsvTable right = new CsvTable(List.of("id", "value"), List.of(
+                List.of("1", "a"), List.of("1", "x"), List.of("1", "y"), List.of("2", "c")));
+
+        List<DiffHunk> hunks = KeyedTableDiff.diff(left, right, CsvKey.of(0));
+
+        assertThat(hunks)
+                .extracting(h -> KeyedTableDiff.rowOf(h.getId()), DiffHunk::getType)
+                .containsExactly(
+                        tuple(new KeyedTableDiff.RowRef("1", 1), DiffType.MODIFY),
+                        tuple(new KeyedTableDiff.RowRef("1", 2), DiffType.INSERT));
+        assertThat(hunks.get(0).getFragments().get(1).getContent()).isEqualTo("id=1 | value=x");
+    }
+
+    @Test
+    void occurrencesOfManyDuplicateKeysAreCountedPerKey() {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            rows.add(List.of(i % 2 == 0 ? "even" : "odd", String.valueOf(i)));
+        }
+        CsvTable left = new CsvTable(List.of("id", "value"), rows);
+        CsvTable right = new CsvTable(List.of("id", "value"), List.of(List.of("odd", "1")));
+
+        List<DiffHunk> hunks = KeyedTableDiff.diff(left, right, CsvKey.of(0));
+
+        assertThat(hunks).hasSize(49_999);
+        assertThat(hunks.subList(hunks.size() - 2, hunks.size()))
+                .extracting(h -> KeyedTableDiff.rowOf(h.getId()), DiffHunk::getType)
+                .containsExactly(
+                        tuple(new KeyedTableDiff.RowRef("even", 24_999), DiffType.DELETE),
+                        tuple(new KeyedTableDiff.RowRef("odd", 24_999), DiffType.DELETE));
+    }
+
+    @Test
+    void compositeKeysMatchOnEveryKeyColumn() {
+        CsvTable left = new CsvTable(List.of("region", "sku", "qty"), List.of(
+                List.of("EU", "1", "5"), List.of("US", "1", "7")));
+        CsvTable right = new CsvTable(List.of("region", "sku", "qty"), List.of(
+                List.of("US", "1", "8"), List.of("EU", "1", "5"), List.of("EU", "2", "1")));
+
+        assertThat(KeyedTableDiff.diff(left, right, CsvKey.of(0, 1)))
+                .extracting(DiffHunk::getSummary, DiffHunk::getType)
+                .containsExactly(
+                        tuple("Row US, 1", DiffType.MODIFY),
+                        tuple("Insert row EU, 2", DiffType.INSERT));
+    }
+
+    @Test
+    void cellGranularityRecordsOnlyTheChangedCells() {
+        CsvTable left = new CsvTable(List.of("id", "name", "qty", "price"), List.of(List.of("1", "bolt", "5", "2.00")));
+        CsvTable right = new CsvTable(List.of("id", "name", "qty", "price"), List.of(List.of("1", "bolt", "7", "2.50")));
+
+        DiffHunk hunk = KeyedTableDiff.diff(left, right, CsvKey.of(0), RowDiffGranularity.CELL).get(0);
+
+        assertThat(hunk.getType()).isEqualTo(DiffType.MODIFY);
+        assertThat(hunk.getId()).isEqualTo(KeyedTableDiff.hunkId("1", 0));
+        assertThat(hunk.getSummary()).isEqualTo("Row 1: 2 cells changed");
+        assertThat(hunk.getFragments())
+                .extracting(DiffFragment::getSide, DiffFragment::getStart, DiffFragment::getEnd, DiffFragment::getContent)
+                .containsExactly(
+                        tuple(DiffSide.LEFT, 2, 3, "qty=5 | price=2.00"),
+                        tuple(DiffSide.RIGHT, 2, 3, "qty=7 | price=2.50"));
+    }
+
+    @Test
+    void cellChangesOfStreamedRowsMatchTheTableComparison() {
+        CellChanges changes = CellChanges.between(List.of("a", "b", "c"),
+                new String[]{"1", "x", "3"}, new String[]{"1", "y", "4"});
+
+        assertThat(changes.changedCount()).isEqualTo(2);
+        assertThat(changes.firstColumn()).isEqualTo(1);
+        assertThat(changes.lastColumn()).isEqualTo(2);
+        assertThat(changes.render(DiffSide.RIGHT)).isEqualTo("b=y | c=4");
+    }
+
+    @Test
+    void keyColumnsOutsideTheTableAreRejected() {
+        CsvTable table = new CsvTable(List.of("id"), List.of(List.of("1")));
+
+        assertThatThrownBy(() -> KeyedTableDiff.diff(table, table, CsvKey.of(0, 3)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("key column 3");
+    }
+
+    @Test
+    void hunkIdsRoundTripKeyAndOccurrence() {
+        assertThat(KeyedTableDiff.rowOf(KeyedTableDiff.hunkId("a-b", 0)))
+                .isEqualTo(new KeyedTableDiff.RowRef("a-b", 0));
+        assertThat(KeyedTableDiff.rowOf(KeyedTableDiff.hunkId("a-b", 4)))
+                .isEqualTo(new KeyedTableDiff.RowRef("a-b", 4));
+    }
+
+    @Test
+    void rowIndexChainsEveryRowStoredUnderAHash() {
+        LongRowIndex index = new LongRowIndex(4);
+        assertThat(index.add(42L, 0)).isEqualTo(LongRowIndex.NO_ROW);
+        assertThat(index.add(7L, 1)).isEqualTo(LongRowIndex.NO_ROW);
+        assertThat(index.add(42L, 2)).isZero();
+
+        assertThat(index.first(42L)).isEqualTo(0);
+        assertThat(index.next(0)).isEqualTo(2);
+        assertThat(index.next(2)).isEqualTo(LongRowIndex.NO_ROW);
+        assertThat(index.first(99L)).isEqualTo(LongRowIndex.NO_ROW);
+    }
+}
@@ -0,0 +1,77 @@
+package com.universaldiff.format.csv;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelCsvParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelParseMatchesSequentialParse() throws Exception {
+        Random random = new Random(3);
+        for (int round = 0; round < 10; round++) {
+            boolean header = round % 2 == 0;
+            Path file = Files.writeString(tempDir.resolve("data-" + round + ".csv"), randomCsv(random, header),
+                    StandardCharsets.UTF_8);
+
+            CsvTable expected = sequential(file);
+            CsvTable actual = ParallelCsvParser.parse(file, StandardCharsets.UTF_8, 4, 64);
+
+            assertThat(actual.getHeaders()).as("round %d", round).isEqualTo(expected.getHeaders());
+            assertThat(actual.getRows()).as("round %d", round).isEqualTo(expected.getRows());
+        }
+    }
+
+    @Test
+    void boundariesNeverFallInsideQuotedFields() throws Exception {
+        String csv = "id,note\n1,\"a\nb\"\n2,\"say \"\"hi\"\"\nthere\"\n3,x\"y\n4,z\n";
+        Path file = Files.writeString(tempDir.resolve("quoted.csv"), csv, StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Long> boundaries = ParallelCsvParser.recordBoundaries(channel, channel.size(), 1);
+
+            assertThat(boundaries).containsExactly(0L,
+                    (long) csv.indexOf("1,"), (long) csv.indexOf("2,"), (long) csv.indexOf("3,"),
+                    (long) csv.indexOf("4,"), (long) csv.length());
+        }
+    }
+
+    private CsvTable sequential(Path file) throws Exception {
+        try (CsvRecordReader reader = CsvRecordReader.open(file, StandardCharsets.UTF_8)) {
+            CsvTable.Builder builder = CsvTable.builder(reader.headers(), reader.headers().size());
+            String[] row = new String[reader.headers().size()];
+            while (reader.next(row)) {
+                builder.addRow(column -> row[column], row.length);
+            }
+            return builder.build();
+        }
+    }
+
+    private String randomCsv(Random random, boolean header) {
+        StringBuilder csv = new StringBuilder(header ? "id,status,note\n" : "");
+        int rows = 20 + random.nextInt(200);
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(',').append(random.nextBoolean() ? "open" : "  closed ").append(',');
+            switch (random.nextInt(4)) {
+                case 0 -> csv.append("\"multi\nline, \"\"quoted\"\"\r\nvalue\"");
+                case 1 -> csv.append("ünïcödé");
+                case 2 -> csv.append(" \"spaced quote\" ");
+                default -> csv.append("plain");
+            }
+            csv.append(random.nextInt(5) == 0 ? "\r\n" : "\n");
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.core.model.DiffFragment;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.RowDiffGranularity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PartitionedCsvDiffTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void partitionedDiffMatchesInMemoryDiff() throws Exception {
+        Random random = new Random(5);
+        for (int round = 0; round < 20; round++) {
+            Path left = Files.writeString(tempDir.resolve("left-" + round + ".csv"), randomCsv(random), StandardCharsets.UTF_8);
+            Path right = Files.writeString(tempDir.resolve("right-" + round + ".csv"), randomCsv(random), StandardCharsets.UTF_8);
+
+            List<DiffHunk> expected = KeyedTableDiff.diff(table(left), table(right), CsvKey.of(0));
+            List<DiffHunk> actual = PartitionedCsvDiff.diff(
+                    CsvSource.open(left, StandardCharsets.UTF_8),
+                    CsvSource.open(right, StandardCharsets.UTF_8),
+                    CsvKey.of(0), 7, 3, RowDiffGranularity.ROW);
+
+            assertThat(actual).as("round %d", round)
+                    .extracting(DiffHunk::getId, DiffHunk::getType, this::content)
+                    .containsExactlyElementsOf(expected.stream()
+                            .map(h -> tuple(h.getId(), h.getType(), content(h)))
+                            .toList());
+        }
+    }
+
+    @Test
+    void partitionedDiffRemovesItsSpillFiles() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.csv"), "id,name\n1,a\n2,b\n", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.csv"), "id,name\n1,a\n2,c\n", StandardCharsets.UTF_8);
+        Path spillRoot = Path.of(System.getProperty("java.io.tmpdir"));
+        long before;
+        try (var files = Files.list(spillRoot)) {
+            before = files.filter(p -> p.getFileName().toString().startsWith("csv-diff-")).count();
+        }
+
+        PartitionedCsvDiff.diff(CsvSource.open(left, StandardCharsets.UTF_8),
+                CsvSource.open(right, StandardCharsets.UTF_8), CsvKey.of(0), 4, 2, RowDiffGranularity.ROW);
+
+        try (var files = Files.list(spillRoot)) {
+            assertThat(files.filter(p -> p.getFileName().toString().startsWith("csv-diff-")).count())
+                    .isEqualTo(before);
+        }
+    }
+
+    private CsvTable table(Path file) throws Exception {
+        try (CsvRecordReader reader = CsvRecordReader.open(file, StandardCharsets.UTF_8)) {
+            CsvTable.Builder builder = CsvTable.builder(reader.headers(), reader.headers().size());
+            String[] row = new String[reader.headers().size()];
+            while (reader.next(row)) {
+                builder.addRow(column -> row[column], row.length);
+            }
+            return builder.build();
+        }
+    }
+
+    private String content(DiffHunk hunk) {
+        return String.join("/", hunk.getFragments().stream().map(DiffFragment::getContent).toList());
+    }
+
+    private String randomCsv(Random random) {
+        StringBuilder csv = new StringBuilder("id,status,note\n");
+        int rows = random.nextInt(60);
+        for (int i = 0; i < rows; i++) {
+            csv.append(random.nextInt(40)).append(',')
+                    .append(random.nextBoolean() ? "open" : "closed").append(',')
+                    .append(random.nextInt(3) == 0 ? "\"a, \"\"quoted\"\"\nvalue\"" : "plain")
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+}
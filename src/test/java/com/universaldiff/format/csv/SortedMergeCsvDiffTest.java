@@ -0,0 +1,99 @@
+package com.universaldiff.format.csv;
+
+import com.universaldiff.core.model.DiffFragment;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SortedMergeCsvDiffTest {
+
+    private static final List<String> HEADERS = List.of("id", "status");
+
+    @Test
+    void mergeJoinFindsTheSameHunksAsTheHashedDiff() throws Exception {
+        Random random = new Random(17);
+        for (int round = 0; round < 100; round++) {
+            CsvTable left = sortedTable(random);
+            CsvTable right = sortedTable(random);
+
+            List<DiffHunk> expected = KeyedTableDiff.diff(left, right, CsvKey.of(0));
+            List<DiffHunk> actual = SortedMergeCsvDiff.diff(left.stream(), right.stream(), 0);
+
+            assertThat(actual).as("round %d", round)
+                    .extracting(DiffHunk::getId, DiffHunk::getType, this::content)
+                    .containsExactlyInAnyOrderElementsOf(expected.stream()
+                            .map(h -> tuple(h.getId(), h.getType(), content(h)))
+                            .toList());
+        }
+    }
+
+    @Test
+    void hunksFollowKeyOrderWithNumericKeys() throws Exception {
+        CsvTable left = new CsvTable(HEADERS, List.of(List.of("2", "a"), List.of("9", "b"), List.of("10", "c")));
+        CsvTable right = new CsvTable(HEADERS, List.of(List.of("9", "x"), List.of("10", "c"), List.of("11", "d")));
+
+        assertThat(SortedMergeCsvDiff.diff(left.stream(), right.stream(), 0))
+                .extracting(DiffHunk::getSummary, DiffHunk::getType)
+                .containsExactly(
+                        tuple("Delete row 2", DiffType.DELETE),
+                        tuple("Row 9", DiffType.MODIFY),
+                        tuple("Insert row 11", DiffType.INSERT));
+    }
+
+    @Test
+    void integerKeysWithDifferentTextAreNotPaired() throws Exception {
+        CsvTable left = new CsvTable(HEADERS, List.of(List.of("01", "a"), List.of("2", "b")));
+        CsvTable right = new CsvTable(HEADERS, List.of(List.of("1", "x"), List.of("+2", "b")));
+
+        assertThat(SortedMergeCsvDiff.diff(left.stream(), right.stream(), 0))
+                .extracting(DiffHunk::getSummary, DiffHunk::getType)
+                .containsExactly(
+                        tuple("Delete row 01", DiffType.DELETE),
+                        tuple("Insert row 1", DiffType.INSERT),
+                        tuple("Insert row +2", DiffType.INSERT),
+                        tuple("Delete row 2", DiffType.DELETE));
+    }
+
+    @Test
+    void unsortedInputIsRejected() {
+        CsvTable left = new CsvTable(HEADERS, List.of(List.of("2", "a"), List.of("1", "b")));
+        CsvTable right = new CsvTable(HEADERS, List.of());
+
+        assertThatThrownBy(() -> SortedMergeCsvDiff.diff(left.stream(), right.stream(), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not sorted");
+    }
+
+    @Test
+    void compareKeysOrdersIntegersNumericallyAndTextLexically() {
+        assertThat(SortedMergeCsvDiff.compareKeys("9", "10")).isNegative();
+        assertThat(SortedMergeCsvDiff.compareKeys("-10", "-9")).isNegative();
+        assertThat(SortedMergeCsvDiff.compareKeys("007", "7")).isNegative();
+        assertThat(SortedMergeCsvDiff.compareKeys("+7", "8")).isNegative();
+        assertThat(SortedMergeCsvDiff.compareKeys("7", "7")).isZero();
+        assertThat(SortedMergeCsvDiff.compareKeys("b", "a10")).isPositive();
+    }
+
+    private CsvTable sortedTable(Random random) {
+        List<List<String>> rows = new ArrayList<>();
+        for (int id = 0; id < 50; id++) {
+            int copies = random.nextInt(10) == 0 ? 2 : random.nextInt(4) == 0 ? 0 : 1;
+            for (int c = 0; c < copies; c++) {
+                rows.add(List.of(Integer.toString(id), random.nextBoolean() ? "open" : "closed"));
+            }
+        }
+        return new CsvTable(HEADERS, rows);
+    }
+
+    private String content(DiffHunk hunk) {
+        return String.join("/", hunk.getFragments().stream().map(DiffFragment::getContent).toList());
+    }
+}
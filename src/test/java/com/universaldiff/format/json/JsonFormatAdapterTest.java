@@ -11,6 +11,7 @@ import com.universaldiff.core.model.MergeChoice;
 import com.universaldiff.core.model.MergeDecision;
 import com.universaldiff.core.model.MergeResult;
 import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.RowAlignment;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -18,11 +19,13 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 class JsonFormatAdapterTest {
 
@@ -60,6 +63,27 @@ class JsonFormatAdapterTest {
         assertThat(hunk.getType()).isEqualTo(DiffType.MODIFY);
     }
 
+    @Test
+    void diff_alignsRecordsByPath() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.json"), "{\"a\":1,\"b\":2,\"c\":3}", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.json"), "{\"a\":1,\"c\":4,\"d\":5}", StandardCharsets.UTF_8);
+
+        for (JsonFormatAdapter adapter : List.of(new JsonFormatAdapter(true),
+                new JsonFormatAdapter(true, JsonNormalizationMode.STREAMING))) {
+            NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.JSON, StandardCharsets.UTF_8));
+            NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.JSON, StandardCharsets.UTF_8));
+
+            RowAlignment alignment = adapter.diff(leftContent, rightContent).getRowAlignment().orElseThrow();
+
+            List<String> rows = new ArrayList<>();
+            for (int row = 0; row < alignment.getRowCount(); row++) {
+                rows.add(record(leftContent, alignment.leftIndex(row)) + " | " + record(rightContent, alignment.rightIndex(row))
+                        + (alignment.isChanged(row) ? " *" : ""));
+            }
+            assertThat(rows).containsExactly("/a = 1 | /a = 1", "/b = 2 |  *", "/c = 3 | /c = 4 *", " | /d = 5 *");
+        }
+    }
+
     @Test
     void merge_takeRightAppliesChanges() throws Exception {
         Path left = Files.writeString(tempDir.resolve("left.json"), "{\"a\":1}", StandardCharsets.UTF_8);
@@ -92,4 +116,50 @@ class JsonFormatAdapterTest {
                 adapter.normalize(new FileDescriptor(invalid, FormatType.JSON, StandardCharsets.UTF_8)))
                 .isInstanceOf(IOException.class);
     }
+
+    @Test
+    void streaming_diffAndMergeMatchTreeMode() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.json"),
+                "{\"a\":1,\"list\":[1,2],\"keep\":{\"x\":true}}", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.json"),
+                "{\"keep\":{\"x\":true},\"a\":2,\"list\":[1,2,3]}", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("merged.json");
+
+        JsonFormatAdapter streaming = new JsonFormatAdapter(true, JsonNormalizationMode.STREAMING);
+        NormalizedContent leftContent = streaming.normalize(new FileDescriptor(left, FormatType.JSON, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = streaming.normalize(new FileDescriptor(right, FormatType.JSON, StandardCharsets.UTF_8));
+        DiffResult diff = streaming.diff(leftContent, rightContent);
+
+        JsonFormatAdapter tree = new JsonFormatAdapter(true);
+        DiffResult treeDiff = tree.diff(
+                tree.normalize(new FileDescriptor(left, FormatType.JSON, StandardCharsets.UTF_8)),
+                tree.normalize(new FileDescriptor(right, FormatType.JSON, StandardCharsets.UTF_8)));
+        assertThat(leftContent.getNativeModel()).isInstanceOf(JsonSource.class);
+        assertThat(diff.getHunks()).extracting(DiffHunk::getId, DiffHunk::getType)
+                .containsExactlyElementsOf(treeDiff.getHunks().stream()
+                        .map(h -> tuple(h.getId(), h.getType())).toList());
+
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .collect(Collectors.toList());
+        streaming.merge(leftContent, rightContent, decisions, output);
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.readTree(Files.readString(output, StandardCharsets.UTF_8)))
+                .isEqualTo(mapper.readTree(Files.readString(right, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void streaming_normalizeRejectsInvalidJson() throws Exception {
+        Path invalid = Files.writeString(tempDir.resolve("bad.json"), "{\"a\":[1,2}", StandardCharsets.UTF_8);
+        JsonFormatAdapter adapter = new JsonFormatAdapter(true, JsonNormalizationMode.STREAMING);
+
+        assertThatThrownBy(() ->
+                adapter.normalize(new FileDescriptor(invalid, FormatType.JSON, StandardCharsets.UTF_8)))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static String record(NormalizedContent content, int index) {
+        return index == RowAlignment.NO_RECORD ? "" : content.getLogicalRecords().get(index);
+    }
 }
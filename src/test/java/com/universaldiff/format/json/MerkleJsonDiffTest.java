@@ -0,0 +1,138 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.core.model.FormatType;
+import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.PathValueRecords;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MerkleJsonDiffTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void reportsOnlyTheChangedLeavesOfALargeDocument() throws Exception {
+        ObjectNode left = JsonNodeFactory.instance.objectNode();
+        for (int i = 0; i < 5_000; i++) {
+            left.putObject("service" + i).put("port", i).putArray("hosts").add("a").add("b");
+        }
+        ObjectNode right = left.deepCopy();
+        ((ObjectNode) right.get("service42")).put("port", 1);
+        ((ArrayNode) right.get("service7").get("hosts")).add("c");
+        right.remove("service9");
+
+        assertThat(MerkleJsonDiff.diff(MAPPER, left, right))
+                .extracting(MerkleJsonDiff.Change::type, MerkleJsonDiff.Change::path)
+                .containsExactly(
+                        tuple(DiffType.MODIFY, "/service42/port"),
+                        tuple(DiffType.DELETE, "/service9/hosts/0"),
+                        tuple(DiffType.DELETE, "/service9/hosts/1"),
+                        tuple(DiffType.DELETE, "/service9/port"),
+                        tuple(DiffType.INSERT, "/service7/hosts/2"));
+    }
+
+    @Test
+    void treeDiffMatchesTheFlattenedRecordDiffOnRandomDocuments() {
+        Random random = new Random(5);
+        PathAwareJsonDiffer differ = new PathAwareJsonDiffer(MAPPER);
+        for (int round = 0; round < 300; round++) {
+            JsonNode left = randomNode(random, 0);
+            JsonNode right = random.nextBoolean() ? mutate(random, left.deepCopy(), 0) : randomNode(random, 0);
+
+            List<DiffHunk> fromTrees = differ.diff(content(left, true), content(right, true)).getHunks();
+            List<DiffHunk> fromRecords = differ.diff(content(left, false), content(right, false)).getHunks();
+
+            assertThat(fromTrees).as("round %d", round)
+                    .extracting(DiffHunk::getId, DiffHunk::getType, h -> h.getFragments().stream()
+                            .map(f -> f.getSide() + ":" + f.getContent()).toList())
+                    .containsExactlyElementsOf(fromRecords.stream()
+                            .map(h -> tuple(h.getId(), h.getType(), h.getFragments().stream()
+                                    .map(f -> f.getSide() + ":" + f.getContent()).toList()))
+                            .toList());
+        }
+    }
+
+    @Test
+    void recordDiffKeepsPathsThatContainTheLineSeparator() {
+        PathAwareJsonDiffer differ = new PathAwareJsonDiffer(MAPPER);
+        NormalizedContent left = NormalizedContent.builder(FormatType.JSON)
+                .pathValueRecords(PathValueRecords.builder()
+                        .add("/a = b", PathValueRecords.ValueType.NUMBER, "1")
+                        .add("/a", PathValueRecords.ValueType.STRING, "b = 1")
+                        .build())
+                .build();
+        NormalizedContent right = NormalizedContent.builder(FormatType.JSON)
+                .pathValueRecords(PathValueRecords.builder()
+                        .add("/a = b", PathValueRecords.ValueType.NUMBER, "2")
+                        .add("/a", PathValueRecords.ValueType.STRING, "b = 1")
+                        .build())
+                .build();
+
+        assertThat(differ.diff(left, right).getHunks())
+                .extracting(DiffHunk::getType, DiffHunk::getSummary)
+                .containsExactly(tuple(DiffType.MODIFY, "/a = b"));
+    }
+
+    private NormalizedContent content(JsonNode root, boolean withTree) {
+        Map<String, String> flattened = new TreeMap<>();
+        JsonRecords.flatten(MAPPER, "", root, flattened, true);
+        return NormalizedContent.builder(FormatType.JSON)
+                .logicalRecords(flattened.entrySet().stream().map(e -> e.getKey() + " = " + e.getValue()).toList())
+                .nativeModel(withTree ? root : null)
+                .build();
+    }
+
+    private JsonNode randomNode(Random random, int depth) {
+        int kind = depth > 3 ? random.nextInt(3) : random.nextInt(5);
+        return switch (kind) {
+            case 0 -> JsonNodeFactory.instance.numberNode(random.nextInt(3));
+            case 1 -> JsonNodeFactory.instance.textNode(random.nextBoolean() ? "1" : "x");
+            case 2 -> random.nextBoolean() ? JsonNodeFactory.instance.nullNode() : JsonNodeFactory.instance.booleanNode(true);
+            case 3 -> {
+                ArrayNode array = JsonNodeFactory.instance.arrayNode();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    array.add(randomNode(random, depth + 1));
+                }
+                yield array;
+            }
+            default -> {
+                ObjectNode object = JsonNodeFactory.instance.objectNode();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    object.set("k" + random.nextInt(4), randomNode(random, depth + 1));
+                }
+                yield object;
+            }
+        };
+    }
+
+    private JsonNode mutate(Random random, JsonNode node, int depth) {
+        if (random.nextInt(4) == 0) {
+            return randomNode(random, depth);
+        }
+        if (node instanceof ObjectNode object) {
+            List<String> fields = List.copyOf(object.properties().stream().map(Map.Entry::getKey).toList());
+            for (String field : fields) {
+                object.set(field, mutate(random, object.get(field), depth + 1));
+            }
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, mutate(random, array.get(i), depth + 1));
+            }
+        }
+        return node;
+    }
+}
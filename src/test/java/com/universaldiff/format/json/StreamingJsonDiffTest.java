@@ -0,0 +1,139 @@
+package com.universaldiff.format.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.core.model.FileDescriptor;
+import com.universaldiff.core.model.FormatType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class StreamingJsonDiffTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void streamedRecordsMatchTheTreeRecords() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("doc.json"),
+                "{\"z\":[1.0e2,null,[true,\"a/b~c\"]],\"a\":{\"x/y\":\"q\\\"\\n\",\"e\":{},\"n\":-0.5},\"m\":12345678901234}",
+                StandardCharsets.UTF_8);
+        FileDescriptor descriptor = new FileDescriptor(file, FormatType.JSON, StandardCharsets.UTF_8);
+
+        List<String> streamed = new StreamingJsonNormalizer(MAPPER).normalize(descriptor).getLogicalRecords();
+        List<String> tree = new JacksonTreeJsonNormalizer(MAPPER, true).normalize(descriptor).getLogicalRecords();
+
+        assertThat(streamed).isNotEmpty().containsExactlyElementsOf(tree);
+    }
+
+    @Test
+    void duplicateKeysKeepTheLastValueAcrossSpilledRuns() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.json"), "{\"a\":1,\"b\":2,\"a\":3}", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.json"), "{\"a\":3,\"b\":4}", StandardCharsets.UTF_8);
+
+        List<MerkleJsonDiff.Change> changes = StreamingJsonDiff.diff(MAPPER,
+                new JsonSource(left, StandardCharsets.UTF_8), new JsonSource(right, StandardCharsets.UTF_8), 1);
+
+        assertThat(changes)
+                .extracting(MerkleJsonDiff.Change::type, MerkleJsonDiff.Change::path)
+                .containsExactly(tuple(DiffType.MODIFY, "/b"));
+    }
+
+    @Test
+    void aRepeatedObjectKeyReplacesEverythingBelowItLikeTheTree() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.json"),
+                "{\"a\":{\"x\":1,\"z\":[3]},\"b\":0,\"a\":{\"y\":2},\"c\":{\"d\":1},\"c\":5}",
+                StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.json"), "{\"a\":{\"x\":1},\"b\":0}",
+                StandardCharsets.UTF_8);
+        FileDescriptor descriptor = new FileDescriptor(left, FormatType.JSON, StandardCharsets.UTF_8);
+
+        assertThat(new StreamingJsonNormalizer(MAPPER).normalize(descriptor).getLogicalRecords())
+                .containsExactly("/a/y = 2", "/b = 0", "/c = 5")
+                .containsExactlyElementsOf(new JacksonTreeJsonNormalizer(MAPPER, true).normalize(descriptor).getLogicalRecords());
+        for (long runChars : new long[]{1, SortedJsonRecords.RUN_CHARS}) {
+            List<MerkleJsonDiff.Change> changes = StreamingJsonDiff.diff(MAPPER,
+                    new JsonSource(left, StandardCharsets.UTF_8), new JsonSource(right, StandardCharsets.UTF_8), runChars);
+
+            assertThat(changes).as("run chars %d", runChars)
+                    .extracting(MerkleJsonDiff.Change::type, MerkleJsonDiff.Change::path)
+                    .containsExactly(tuple(DiffType.DELETE, "/a/y"), tuple(DiffType.DELETE, "/c"),
+                            tuple(DiffType.INSERT, "/a/x"));
+            assertThat(changes).containsExactlyElementsOf(
+                    MerkleJsonDiff.diff(MAPPER, MAPPER.readTree(left.toFile()), MAPPER.readTree(right.toFile())));
+        }
+    }
+
+    @Test
+    void streamingDiffMatchesTheTreeDiffOnRandomDocuments() throws Exception {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            JsonNode left = randomNode(random, 0);
+            JsonNode right = random.nextBoolean() ? mutate(random, left.deepCopy()) : randomNode(random, 0);
+            Path leftFile = Files.writeString(tempDir.resolve("left.json"), MAPPER.writeValueAsString(left));
+            Path rightFile = Files.writeString(tempDir.resolve("right.json"), MAPPER.writeValueAsString(right));
+
+            List<MerkleJsonDiff.Change> streamed = StreamingJsonDiff.diff(MAPPER,
+                    new JsonSource(leftFile, StandardCharsets.UTF_8), new JsonSource(rightFile, StandardCharsets.UTF_8),
+                    1 + random.nextInt(32));
+
+            assertThat(streamed).as("round %d", round)
+                    .containsExactlyElementsOf(MerkleJsonDiff.diff(MAPPER, left, right));
+        }
+    }
+
+    private JsonNode randomNode(Random random, int depth) {
+        int kind = depth > 3 ? random.nextInt(3) : random.nextInt(5);
+        return switch (kind) {
+            case 0 -> random.nextBoolean()
+                    ? JsonNodeFactory.instance.numberNode(random.nextInt(12))
+                    : JsonNodeFactory.instance.numberNode(random.nextInt(3) / 2.0);
+            case 1 -> JsonNodeFactory.instance.textNode(random.nextBoolean() ? "1" : "x/~");
+            case 2 -> random.nextBoolean() ? JsonNodeFactory.instance.nullNode() : JsonNodeFactory.instance.booleanNode(true);
+            case 3 -> {
+                ArrayNode array = JsonNodeFactory.instance.arrayNode();
+                for (int i = random.nextInt(12); i > 0; i--) {
+                    array.add(randomNode(random, depth + 1));
+                }
+                yield array;
+            }
+            default -> {
+                ObjectNode object = JsonNodeFactory.instance.objectNode();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    object.set("k/" + random.nextInt(4), randomNode(random, depth + 1));
+                }
+                yield object;
+            }
+        };
+    }
+
+    private JsonNode mutate(Random random, JsonNode node) {
+        if (random.nextInt(4) == 0) {
+            return randomNode(random, 1);
+        }
+        if (node instanceof ObjectNode object) {
+            for (String field : object.properties().stream().map(e -> e.getKey()).toList()) {
+                object.set(field, mutate(random, object.get(field)));
+            }
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, mutate(random, array.get(i)));
+            }
+        }
+        return node;
+    }
+}
@@ -0,0 +1,194 @@
+package com.universaldiff.format.txt;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.patch.AbstractDelta;
+import com.universaldiff.core.model.DiffAlgorithm;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.format.txt.spi.LineEdit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class HashedLineDiffEngineTest {
+
+    @Test
+    void diffCoalescesAdjacentDeleteAndInsertIntoModify() {
+        List<LineEdit> edits = new HashedLineDiffEngine().diff(
+                List.of("a", "b", "c"),
+                List.of("a", "x", "c", "z"));
+
+        assertThat(edits)
+                .extracting(LineEdit::getType, LineEdit::getLeftStart, LineEdit::getLeftLength,
+                        LineEdit::getRightStart, LineEdit::getRightLength)
+                .containsExactly(
+                        tuple(DiffType.MODIFY, 1, 1, 1, 1),
+                        tuple(DiffType.INSERT, 3, 0, 3, 1));
+    }
+
+    @Test
+    void diffHandlesEmptySides() {
+        HashedLineDiffEngine engine = new HashedLineDiffEngine();
+
+        assertThat(engine.diff(List.of(), List.of())).isEmpty();
+        assertThat(engine.diff(List.of(), List.of("a", "b")))
+                .extracting(LineEdit::getType, LineEdit::getRightLength)
+                .containsExactly(tuple(DiffType.INSERT, 2));
+        assertThat(engine.diff(List.of("a"), List.of()))
+                .extracting(LineEdit::getType, LineEdit::getLeftLength)
+                .containsExactly(tuple(DiffType.DELETE, 1));
+    }
+
+    @Test
+    void plainMyersMatchesReferenceImplementationOnRandomInputs() {
+        Random random = new Random(42);
+        HashedLineDiffEngine engine = new HashedLineDiffEngine(new MyersTokenDiff());
+        for (int round = 0; round < 200; round++) {
+            List<String> left = randomLines(random);
+            List<String> right = randomLines(random);
+
+            List<int[]> expected = new ArrayList<>();
+            for (AbstractDelta<String> delta : DiffUtils.diff(left, right).getDeltas()) {
+                expected.add(new int[]{delta.getSource().getPosition(), delta.getSource().size(),
+                        delta.getTarget().getPosition(), delta.getTarget().size()});
+            }
+            List<int[]> actual = engine.diff(left, right).stream()
+                    .map(e -> new int[]{e.getLeftStart(), e.getLeftLength(), e.getRightStart(), e.getRightLength()})
+                    .toList();
+
+            assertThat(actual).as("round %d", round).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void anchoredEditsTransformLeftIntoRightOnRandomInputs() {
+        Random random = new Random(7);
+        HashedLineDiffEngine engine = new HashedLineDiffEngine();
+        for (int round = 0; round < 200; round++) {
+            List<String> left = randomLines(random);
+            List<String> right = randomLines(random);
+
+            assertThat(apply(left, right, engine.diff(left, right))).as("round %d", round).isEqualTo(right);
+        }
+    }
+
+    @Test
+    void everyAlgorithmTransformsLeftIntoRightOnRandomInputs() {
+        for (DiffAlgorithm algorithm : DiffAlgorithm.values()) {
+            Random random = new Random(11);
+            HashedLineDiffEngine engine = new HashedLineDiffEngine(algorithm);
+            for (int round = 0; round < 200; round++) {
+                List<String> left = randomLines(random);
+                List<String> right = randomLines(random);
+
+                assertThat(apply(left, right, engine.diff(left, right)))
+                        .as("%s round %d", algorithm, round)
+                        .isEqualTo(right);
+            }
+        }
+    }
+
+    @Test
+    void linearSpaceMyersFindsAMinimalEditScript() {
+        Random random = new Random(23);
+        HashedLineDiffEngine classic = new HashedLineDiffEngine(new MyersTokenDiff());
+        HashedLineDiffEngine linear = new HashedLineDiffEngine(new LinearSpaceMyersTokenDiff());
+        for (int round = 0; round < 200; round++) {
+            List<String> left = randomLines(random);
+            List<String> right = randomLines(random);
+
+            assertThat(editDistance(linear.diff(left, right)))
+                    .as("round %d", round)
+                    .isEqualTo(editDistance(classic.diff(left, right)));
+        }
+    }
+
+    @Test
+    void nearIdenticalInputsProduceOnlyTheChangedRegions() {
+        List<String> left = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            left.add("entry " + i);
+        }
+        List<String> right = new ArrayList<>(left);
+        right.set(1_000, "changed");
+        right.add(150_000, "inserted");
+
+        assertThat(new HashedLineDiffEngine().diff(left, right))
+                .extracting(LineEdit::getType, LineEdit::getLeftStart, LineEdit::getRightStart)
+                .containsExactly(
+                        tuple(DiffType.MODIFY, 1_000, 1_000),
+                        tuple(DiffType.INSERT, 150_000, 150_000));
+    }
+
+    @Test
+    void histogramLeavesTokensAboveTheChainLimitToTheFallback() {
+        for (int occurrences : new int[]{HistogramTokenDiff.MAX_CHAIN_LENGTH, HistogramTokenDiff.MAX_CHAIN_LENGTH + 1}) {
+            int[] left = new int[occurrences + 2];
+            left[0] = 1;
+            left[left.length - 1] = 2;
+            int[] right = left.clone();
+            right[0] = 3;
+            right[right.length - 1] = 4;
+            int[] largestFallbackRegion = {0};
+            TokenDiffAlgorithm fallback = (l, leftFrom, leftTo, r, rightFrom, rightTo, script) -> {
+                largestFallbackRegion[0] = Math.max(largestFallbackRegion[0], leftTo - leftFrom);
+                script.add(leftFrom, leftTo, rightFrom, rightTo);
+            };
+
+            new HistogramTokenDiff(fallback).diff(left, 0, left.length, right, 0, right.length, new EditScript());
+
+            assertThat(largestFallbackRegion[0])
+                    .as("%d occurrences", occurrences)
+                    .isEqualTo(occurrences > HistogramTokenDiff.MAX_CHAIN_LENGTH ? left.length : 1);
+        }
+    }
+
+    @Test
+    void uniqueAnchorsKeepTheLongestOrderedRun() {
+        int[] left = {1, 2, 3, 4, 9, 9};
+        int[] right = {3, 1, 2, 4, 9};
+
+        assertThat(AnchoredTokenDiff.uniqueAnchors(left, 0, left.length, right, 0, right.length))
+                .containsExactly(0, 1, 1, 2, 3, 3);
+    }
+
+    @Test
+    void tokenizerSharesTokensForEqualLinesAcrossSides() {
+        LineTokenizer tokenizer = new LineTokenizer(4);
+        int[] left = tokenizer.tokenize(List.of("same", "left-only"), 0);
+        int[] right = tokenizer.tokenize(List.of("right-only", "same"), 1);
+
+        assertThat(left[0]).isEqualTo(right[1]);
+        assertThat(left[1]).isNotEqualTo(right[0]);
+        assertThat(tokenizer.tokenCount()).isEqualTo(3);
+    }
+
+    private int editDistance(List<LineEdit> edits) {
+        return edits.stream().mapToInt(e -> e.getLeftLength() + e.getRightLength()).sum();
+    }
+
+    private List<String> apply(List<String> left, List<String> right, List<LineEdit> edits) {
+        List<String> result = new ArrayList<>();
+        int cursor = 0;
+        for (LineEdit edit : edits) {
+            result.addAll(left.subList(cursor, edit.getLeftStart()));
+            result.addAll(right.subList(edit.getRightStart(), edit.getRightStart() + edit.getRightLength()));
+            cursor = edit.getLeftStart() + edit.getLeftLength();
+        }
+        result.addAll(left.subList(cursor, left.size()));
+        return result;
+    }
+
+    private List<String> randomLines(Random random) {
+        int size = random.nextInt(30);
+        List<String> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lines.add("line-" + random.nextInt(6));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,78 @@
+package com.universaldiff.format.txt;
+
+import com.universaldiff.core.model.ComparisonSession;
+import com.universaldiff.core.model.FileDescriptor;
+import com.universaldiff.core.model.FormatType;
+import com.universaldiff.core.model.NormalizedContent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedTextLinesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void linesMatchBufferedReaderSemantics() throws Exception {
+        String content = "first\r\nsecond\rthird\n\nlast";
+        Path file = Files.writeString(tempDir.resolve("mixed.txt"), content, StandardCharsets.UTF_8);
+
+        MappedTextLines lines = MappedTextLines.open(file, StandardCharsets.UTF_8);
+
+        assertThat(lines).containsExactlyElementsOf(Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertThat(lines).containsExactly("first", "second", "third", "", "last");
+    }
+
+    @Test
+    void emptyFileHasNoLinesAndTrailingTerminatorAddsNone() throws Exception {
+        Path empty = Files.writeString(tempDir.resolve("empty.txt"), "", StandardCharsets.UTF_8);
+        Path trailing = Files.writeString(tempDir.resolve("trailing.txt"), "a\r\n", StandardCharsets.UTF_8);
+
+        assertThat(MappedTextLines.open(empty, StandardCharsets.UTF_8)).isEmpty();
+        assertThat(MappedTextLines.open(trailing, StandardCharsets.UTF_8)).containsExactly("a");
+    }
+
+    @Test
+    void linesSpanningSegmentsAreDecodedWhole() throws Exception {
+        String content = "héllo wörld\r\nsecond line\r\n中文\n";
+        Path file = Files.writeString(tempDir.resolve("segments.txt"), content, StandardCharsets.UTF_8);
+
+        MappedTextLines lines = MappedTextLines.open(file, StandardCharsets.UTF_8, 5);
+
+        assertThat(lines).containsExactly("héllo wörld", "second line", "中文");
+    }
+
+    @Test
+    void rejectsEncodingsWithoutByteScannableTerminators() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("utf16.txt"), "a\nb\n", StandardCharsets.UTF_16LE);
+
+        assertThat(MappedTextLines.supports(StandardCharsets.UTF_16LE)).isFalse();
+        assertThatThrownBy(() -> MappedTextLines.open(file, StandardCharsets.UTF_16LE))
+                .isInstanceOf(java.io.IOException.class);
+    }
+
+    @Test
+    void closingTheSessionReleasesTheMappedLines() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("closed.txt"), "a\nb\n", StandardCharsets.UTF_8);
+        FileDescriptor descriptor = new FileDescriptor(file, FormatType.TXT, StandardCharsets.UTF_8);
+        TxtFormatAdapter adapter = new TxtFormatAdapter(TxtNormalizationMode.MEMORY_MAPPED);
+        NormalizedContent left = adapter.normalize(descriptor);
+        NormalizedContent right = adapter.normalize(descriptor);
+        ComparisonSession session = new ComparisonSession(descriptor, descriptor, left, right,
+                adapter.diff(left, right), adapter);
+
+        assertThat(left.getNativeModel()).isInstanceOf(MappedTextLines.class);
+        session.close();
+
+        assertThat(left.getLogicalRecords()).hasSize(2);
+        assertThatThrownBy(() -> left.getLogicalRecords().get(0)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> right.getLogicalRecords().get(1)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -1,5 +1,7 @@
 package com.universaldiff.format.txt;
 
+import com.universaldiff.core.model.ComparisonOptions;
+import com.universaldiff.core.model.DiffAlgorithm;
 import com.universaldiff.core.model.DiffFragment;
 import com.universaldiff.core.model.DiffHunk;
 import com.universaldiff.core.model.DiffResult;
@@ -11,16 +13,23 @@ import com.universaldiff.core.model.MergeChoice;
 import com.universaldiff.core.model.MergeDecision;
 import com.universaldiff.core.model.MergeResult;
 import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.RowAlignment;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 class TxtFormatAdapterTest {
 
@@ -48,6 +57,28 @@ class TxtFormatAdapterTest {
                 .containsEntry("txt-line-4", DiffType.INSERT);
     }
 
+    @Test
+    void diff_everyAlgorithmReportsTheSameSimpleEdits() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.txt"), "a\nb\nc\n", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.txt"), "a\nx\nc\nz\n", StandardCharsets.UTF_8);
+
+        TxtFormatAdapter adapter = new TxtFormatAdapter();
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.TXT, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.TXT, StandardCharsets.UTF_8));
+
+        for (DiffAlgorithm algorithm : DiffAlgorithm.values()) {
+            DiffResult diff = adapter.diff(leftContent, rightContent,
+                    ComparisonOptions.builder().diffAlgorithm(algorithm).build());
+
+            assertThat(diff.getHunks())
+                    .as(algorithm.name())
+                    .extracting(DiffHunk::getId, DiffHunk::getType)
+                    .containsExactly(
+                            tuple("txt-line-2", DiffType.MODIFY),
+                            tuple("txt-line-4", DiffType.INSERT));
+        }
+    }
+
     @Test
     void merge_takeRightProducesRightFile() throws Exception {
         Path left = Files.writeString(tempDir.resolve("left.txt"), "a\nb\nc\n", StandardCharsets.UTF_8);
@@ -70,6 +101,129 @@ class TxtFormatAdapterTest {
                 .containsExactlyElementsOf(Files.readAllLines(right));
     }
 
+    @Test
+    void merge_reusesDeltasFromTheDiffResult() throws Exception {
+        AtomicInteger diffCalls = new AtomicInteger();
+        HashedLineDiffEngine delegate = new HashedLineDiffEngine();
+        TxtFormatAdapter adapter = new TxtFormatAdapter(TxtNormalizationMode.IN_MEMORY, (left, right) -> {
+            diffCalls.incrementAndGet();
+            return delegate.diff(left, right);
+        });
+        NormalizedContent left = NormalizedContent.builder(FormatType.TXT)
+                .logicalRecords(List.of("a", "b", "c"))
+                .encoding(StandardCharsets.UTF_8)
+                .build();
+        NormalizedContent right = NormalizedContent.builder(FormatType.TXT)
+                .logicalRecords(List.of("a", "x", "c", "z"))
+                .encoding(StandardCharsets.UTF_8)
+                .build();
+        DiffResult diff = adapter.diff(left, right);
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .collect(Collectors.toList());
+
+        Path output = tempDir.resolve("reused.txt");
+        adapter.merge(left, right, diff, decisions, output);
+
+        assertThat(diffCalls).hasValue(1);
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8)).containsExactly("a", "x", "c", "z");
+    }
+
+    @Test
+    void merge_recomputesDeltasWhenTheDiffResultBelongsToOtherContent() throws Exception {
+        TxtFormatAdapter adapter = new TxtFormatAdapter();
+        NormalizedContent left = NormalizedContent.builder(FormatType.TXT)
+                .logicalRecords(List.of("a", "b"))
+                .encoding(StandardCharsets.UTF_8)
+                .build();
+        NormalizedContent right = NormalizedContent.builder(FormatType.TXT)
+                .logicalRecords(List.of("a", "c"))
+                .encoding(StandardCharsets.UTF_8)
+                .build();
+        DiffResult unrelated = adapter.diff(right, left);
+
+        Path output = tempDir.resolve("recomputed.txt");
+        adapter.merge(left, right, unrelated,
+                List.of(new MergeDecision("txt-line-2", MergeChoice.TAKE_RIGHT, null)), output);
+
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8)).containsExactly("a", "c");
+    }
+
+    @Test
+    void merge_recomputesDeltasWithTheAlgorithmOfTheDiffResult() throws Exception {
+        TxtFormatAdapter adapter = new TxtFormatAdapter();
+        Random random = new Random(4);
+        Path reused = tempDir.resolve("reused.txt");
+        Path recomputed = tempDir.resolve("recomputed.txt");
+        for (int round = 0; round < 200; round++) {
+            NormalizedContent left = content(randomLines(random));
+            NormalizedContent right = content(randomLines(random));
+            for (DiffAlgorithm algorithm : DiffAlgorithm.values()) {
+                DiffResult diff = adapter.diff(left, right, ComparisonOptions.builder().diffAlgorithm(algorithm).build());
+                List<MergeDecision> decisions = diff.getHunks().stream()
+                        .map(h -> new MergeDecision(h.getId(),
+                                random.nextBoolean() ? MergeChoice.TAKE_RIGHT : MergeChoice.MANUAL, "m"))
+                        .toList();
+
+                adapter.merge(left, right, diff, decisions, reused);
+                adapter.merge(content(left.getLogicalRecords()), content(right.getLogicalRecords()), diff,
+                        decisions, recomputed);
+
+                assertThat(Files.readAllLines(recomputed, StandardCharsets.UTF_8))
+                        .as("round %d, %s", round, algorithm)
+                        .containsExactlyElementsOf(Files.readAllLines(reused, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void merge_rejectsDiffResultsOfOtherFormats() {
+        TxtFormatAdapter adapter = new TxtFormatAdapter();
+        DiffResult foreign = new DiffResult(FormatType.JSON, List.of(), Duration.ZERO);
+
+        assertThatThrownBy(() -> adapter.merge(content(List.of("a")), content(List.of("b")), foreign,
+                List.of(new MergeDecision("txt-line-1", MergeChoice.TAKE_RIGHT, null)), tempDir.resolve("out.txt")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static NormalizedContent content(List<String> lines) {
+        return NormalizedContent.builder(FormatType.TXT)
+                .logicalRecords(lines)
+                .encoding(StandardCharsets.UTF_8)
+                .build();
+    }
+
+    private static List<String> randomLines(Random random) {
+        List<String> lines = new ArrayList<>();
+        for (int i = random.nextInt(12); i > 0; i--) {
+            lines.add(String.valueOf((char) ('a' + random.nextInt(4))));
+        }
+        return lines;
+    }
+
+    @Test
+    void diff_exposesRowAlignmentOfTheSameEdits() {
+        TxtFormatAdapter adapter = new TxtFormatAdapter();
+        NormalizedContent left = NormalizedContent.builder(FormatType.TXT)
+                .logicalRecords(List.of("a", "b", "c"))
+                .build();
+        NormalizedContent right = NormalizedContent.builder(FormatType.TXT)
+                .logicalRecords(List.of("a", "x", "y", "c"))
+                .build();
+
+        RowAlignment alignment = adapter.diff(left, right).getRowAlignment().orElseThrow();
+
+        assertThat(alignment.getRowCount()).isEqualTo(4);
+        assertThat(alignment.leftIndex(1)).isEqualTo(1);
+        assertThat(alignment.rightIndex(1)).isEqualTo(1);
+        assertThat(alignment.leftIndex(2)).isEqualTo(RowAlignment.NO_RECORD);
+        assertThat(alignment.rightIndex(2)).isEqualTo(2);
+        assertThat(alignment.isChanged(2)).isTrue();
+        assertThat(alignment.leftIndex(3)).isEqualTo(2);
+        assertThat(alignment.rightIndex(3)).isEqualTo(3);
+        assertThat(alignment.isChanged(3)).isFalse();
+    }
+
     @Test
     void diff_reportsDeletesWhenRightIsShorter() {
         TxtFormatAdapter adapter = new TxtFormatAdapter();
@@ -64,4 +64,47 @@ class TxtNormalizationTest {
                 .extracting(h -> h.getId(), h -> h.getType())
                 .containsExactly(org.assertj.core.api.Assertions.tuple("txt-line-1", com.universaldiff.core.model.DiffType.INSERT));
     }
+
+    @Test
+    void memoryMappedModeProducesSameDiffAsInMemoryMode() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left.txt"), "a\r\nb\r\nc\r\n", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.txt"), "a\nx\nc\nz", StandardCharsets.UTF_8);
+
+        TxtFormatAdapter mapped = new TxtFormatAdapter(TxtNormalizationMode.MEMORY_MAPPED);
+        TxtFormatAdapter inMemory = new TxtFormatAdapter();
+        NormalizedContent mappedLeft = mapped.normalize(new FileDescriptor(left, FormatType.TXT, StandardCharsets.UTF_8));
+        NormalizedContent mappedRight = mapped.normalize(new FileDescriptor(right, FormatType.TXT, StandardCharsets.UTF_8));
+
+        assertThat(mappedLeft.getLogicalRecords()).containsExactly("a", "b", "c");
+        assertThat(mapped.diff(mappedLeft, mappedRight).getHunks())
+                .extracting(h -> h.getId(), h -> h.getType())
+                .containsExactlyElementsOf(inMemory.diff(
+                                inMemory.normalize(new FileDescriptor(left, FormatType.TXT, StandardCharsets.UTF_8)),
+                                inMemory.normalize(new FileDescriptor(right, FormatType.TXT, StandardCharsets.UTF_8)))
+                        .getHunks().stream()
+                        .map(h -> org.assertj.core.api.Assertions.tuple(h.getId(), h.getType()))
+                        .toList());
+    }
+
+    @Test
+    void memoryMappedMergeIntoTheLeftFileKeepsTheSessionReadable() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        Path left = Files.writeString(tempDir.resolve("left.txt"), text, StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right.txt"), "only\n", StandardCharsets.UTF_8);
+        TxtFormatAdapter mapped = new TxtFormatAdapter(TxtNormalizationMode.MEMORY_MAPPED);
+        NormalizedContent leftContent = mapped.normalize(new FileDescriptor(left, FormatType.TXT, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = mapped.normalize(new FileDescriptor(right, FormatType.TXT, StandardCharsets.UTF_8));
+        DiffResult diff = mapped.diff(leftContent, rightContent);
+
+        mapped.merge(leftContent, rightContent, diff, diff.getHunks().stream()
+                .map(h -> new com.universaldiff.core.model.MergeDecision(h.getId(),
+                        com.universaldiff.core.model.MergeChoice.TAKE_RIGHT, null))
+                .toList(), left);
+
+        assertThat(Files.readAllLines(left)).containsExactly("only");
+        assertThat(leftContent.getLogicalRecords().get(4_000)).isEqualTo("line 4000");
+    }
 }
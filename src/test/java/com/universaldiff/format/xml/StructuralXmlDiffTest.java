@@ -0,0 +1,141 @@
+package com.universaldiff.format.xml;
+
+import com.universaldiff.core.model.DiffHunk;
+import com.universaldiff.core.model.DiffResult;
+import com.universaldiff.core.model.DiffType;
+import com.universaldiff.core.model.FileDescriptor;
+import com.universaldiff.core.model.FormatType;
+import com.universaldiff.core.model.MergeChoice;
+import com.universaldiff.core.model.MergeDecision;
+import com.universaldiff.core.model.NormalizedContent;
+import com.universaldiff.core.model.RowAlignment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class StructuralXmlDiffTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void insertAtTheTopOfALongListYieldsOneHunk() throws Exception {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            items.append("<item>").append(i).append("</item>");
+        }
+        XmlFormatAdapter adapter = new XmlFormatAdapter();
+        NormalizedContent left = normalize(adapter, "left.xml", "<list>" + items + "</list>");
+        NormalizedContent right = normalize(adapter, "right.xml", "<list><item>new</item>" + items + "</list>");
+
+        DiffResult diff = adapter.diff(left, right);
+
+        assertThat(diff.getHunks())
+                .extracting(DiffHunk::getType, DiffHunk::getSummary)
+                .containsExactly(tuple(DiffType.INSERT, "/list[1]/item[1]"));
+        assertThat(diff.getHunks().get(0).getFragments().get(0).getContent())
+                .isEqualTo("/list[1]/item[1]/text() = new");
+        RowAlignment alignment = diff.getRowAlignment().orElseThrow();
+        assertThat(alignment.getRowCount()).isEqualTo(2_001);
+        assertThat(changedRows(alignment)).containsExactly("-1:0");
+        assertThat(alignment.rightIndex(2_000)).isEqualTo(2_000);
+        assertThat(alignment.leftIndex(2_000)).isEqualTo(1_999);
+    }
+
+    @Test
+    void changedElementsArePairedByNameInsideAChangedRun() throws Exception {
+        XmlFormatAdapter adapter = new XmlFormatAdapter();
+        NormalizedContent left = normalize(adapter, "left.xml",
+                "<root><a>1</a><b>2</b><c>3</c><d>4</d></root>");
+        NormalizedContent right = normalize(adapter, "right.xml",
+                "<root><a>1</a><x>new</x><b>two</b><d>4</d></root>");
+
+        DiffResult diff = adapter.diff(left, right);
+
+        assertThat(diff.getHunks())
+                .extracting(DiffHunk::getType, DiffHunk::getSummary)
+                .containsExactly(
+                        tuple(DiffType.INSERT, "/root[1]/x[1]"),
+                        tuple(DiffType.MODIFY, "/root[1]/b[1]/text()"),
+                        tuple(DiffType.DELETE, "/root[1]/c[1]"));
+        // a and d are shown as equal rows, b next to its new text, c deleted and x inserted
+        assertThat(changedRows(diff.getRowAlignment().orElseThrow())).containsExactly("-1:1", "1:2", "2:-1");
+    }
+
+    @Test
+    void recordsBelowAnUnchangedMovedSubtreeStayPaired() throws Exception {
+        XmlFormatAdapter adapter = new XmlFormatAdapter();
+        NormalizedContent left = normalize(adapter, "left.xml",
+                "<root><a k=\"1\"><p>1</p><q>2</q></a><b>x</b></root>");
+        NormalizedContent right = normalize(adapter, "right.xml",
+                "<root><a k=\"0\"/><a k=\"1\"><p>1</p><q>2</q></a><b>y</b></root>");
+
+        RowAlignment alignment = adapter.diff(left, right).getRowAlignment().orElseThrow();
+
+        assertThat(left.getLogicalRecords()).hasSize(4);
+        assertThat(changedRows(alignment)).containsExactly("-1:0", "3:4");
+    }
+
+    /**
+     * Lists the changed rows as {@code "left:right"} record indexes.
+     */
+    private static List<String> changedRows(RowAlignment alignment) {
+        List<String> rows = new java.util.ArrayList<>();
+        for (int row = 0; row < alignment.getRowCount(); row++) {
+            if (alignment.isChanged(row)) {
+                rows.add(alignment.leftIndex(row) + ":" + alignment.rightIndex(row));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void identityKeysMatchMovedElementsAndReportUnknownKeysAsInsertsAndDeletes() throws Exception {
+        XmlFormatAdapter adapter = new XmlFormatAdapter(XmlNormalizationMode.DOM, XmlElementIdentity.of("@id", "sku"));
+        NormalizedContent left = normalize(adapter, "left.xml",
+                "<root><item id=\"1\">a</item><item id=\"2\">b</item><item id=\"3\">c</item>"
+                        + "<product><sku>p1</sku><price>5</price></product></root>");
+        NormalizedContent right = normalize(adapter, "right.xml",
+                "<root><item id=\"3\">c</item><item id=\"1\">a2</item><item id=\"4\">d</item>"
+                        + "<product><sku>p1</sku><price>6</price></product></root>");
+
+        assertThat(adapter.diff(left, right).getHunks())
+                .extracting(DiffHunk::getType, DiffHunk::getSummary)
+                .containsExactly(
+                        tuple(DiffType.MODIFY, "/root[1]/item[1]/text()"),
+                        tuple(DiffType.DELETE, "/root[1]/item[2]"),
+                        tuple(DiffType.INSERT, "/root[1]/item[3]"),
+                        tuple(DiffType.MODIFY, "/root[1]/product[1]/price[1]/text()"));
+    }
+
+    @Test
+    void mergeAppliesInsertsDeletesAndShiftedModifiesTogether() throws Exception {
+        XmlFormatAdapter adapter = new XmlFormatAdapter();
+        NormalizedContent left = normalize(adapter, "left.xml",
+                "<root><item>gone</item><item>keep</item><item k=\"1\">old</item></root>");
+        NormalizedContent right = normalize(adapter, "right.xml",
+                "<root><item>keep</item><item>added</item><item k=\"2\">old</item></root>");
+        DiffResult diff = adapter.diff(left, right);
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList();
+        Path output = tempDir.resolve("merged.xml");
+
+        adapter.merge(left, right, diff, decisions, output);
+
+        NormalizedContent merged = normalize(adapter, "reread.xml", Files.readString(output, StandardCharsets.UTF_8));
+        assertThat(adapter.diff(merged, right).getHunks()).isEmpty();
+    }
+
+    private NormalizedContent normalize(XmlFormatAdapter adapter, String name, String xml) throws Exception {
+        Path path = Files.writeString(tempDir.resolve(name), xml, StandardCharsets.UTF_8);
+        return adapter.normalize(new FileDescriptor(path, FormatType.XML, StandardCharsets.UTF_8));
+    }
+}
@@ -116,4 +116,88 @@ class XmlFormatAdapterTest {
 
         assertThat(Files.readString(output, StandardCharsets.UTF_8)).contains("<value>custom</value>");
     }
+
+    @Test
+    void streamingNormalizationMatchesDomRecordsWithoutBuildingADocument() throws Exception {
+        Path xml = Files.writeString(tempDir.resolve("stream.xml"),
+                "<?xml version=\"1.0\"?>\n<!-- feed -->\n<cat:root xmlns:cat=\"urn:cat\" version=\"2\">\n"
+                        + "  <item sku=\"a\" id=\"1\">first</item>\n"
+                        + "  <item id=\"2\"><![CDATA[x < y]]> &amp; more</item>\n"
+                        + "  <group><item>nested</item><note/></group>\n"
+                        + "  <item id=\"3\">  <!-- gap -->  </item>\n"
+                        + "</cat:root>",
+                StandardCharsets.UTF_8);
+        FileDescriptor descriptor = new FileDescriptor(xml, FormatType.XML, StandardCharsets.UTF_8);
+
+        NormalizedContent dom = new XmlFormatAdapter().normalize(descriptor);
+        NormalizedContent streamed = new XmlFormatAdapter(XmlNormalizationMode.STREAMING).normalize(descriptor);
+
+        assertThat(streamed.getLogicalRecords()).containsExactlyElementsOf(dom.getLogicalRecords());
+        assertThat(streamed.getLogicalRecords()).contains(
+                "/cat:root[1]/@xmlns:cat = urn:cat",
+                "/cat:root[1]/item[2]/text() = x < y & more",
+                "/cat:root[1]/group[1]/item[1]/text() = nested");
+        assertThat(streamed.getNativeModel()).isInstanceOf(XmlSource.class);
+    }
+
+    @Test
+    void streamingNormalizationParsesTheDocumentOnlyForMerge() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left-stream.xml"),
+                "<root><a>1</a><b k=\"x\">2</b></root>", StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right-stream.xml"),
+                "<root><a>9</a><b k=\"y\">2</b></root>", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("stream-merged.xml");
+
+        XmlFormatAdapter adapter = new XmlFormatAdapter(XmlNormalizationMode.STREAMING);
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.XML, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.XML, StandardCharsets.UTF_8));
+        DiffResult diff = adapter.diff(leftContent, rightContent);
+
+        assertThat(diff.getHunks()).extracting(DiffHunk::getSummary)
+                .containsExactlyInAnyOrder("/root[1]/a[1]/text()", "/root[1]/b[1]/@k");
+
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList();
+        adapter.merge(leftContent, rightContent, decisions, output);
+
+        assertThat(Files.readString(output, StandardCharsets.UTF_8)).contains("<a>9</a>").contains("k=\"y\"");
+    }
+
+    @Test
+    void streamingNormalizationReportsMalformedXmlWithLocation() throws Exception {
+        Path invalid = Files.writeString(tempDir.resolve("bad-stream.xml"), "<root>\n<missing></root>",
+                StandardCharsets.UTF_8);
+        XmlFormatAdapter adapter = new XmlFormatAdapter(XmlNormalizationMode.STREAMING);
+
+        assertThatThrownBy(() ->
+                adapter.normalize(new FileDescriptor(invalid, FormatType.XML, StandardCharsets.UTF_8)))
+                .isInstanceOf(XmlProcessingException.class)
+                .hasMessageContaining("Malformed XML at line 2");
+    }
+
+    @Test
+    void streamingMergeResolvesPrefixedPathsWithoutXPath() throws Exception {
+        Path left = Files.writeString(tempDir.resolve("left-ns.xml"),
+                "<c:root xmlns:c=\"urn:c\"><c:item id=\"1\">a</c:item><c:item id=\"2\">b</c:item></c:root>",
+                StandardCharsets.UTF_8);
+        Path right = Files.writeString(tempDir.resolve("right-ns.xml"),
+                "<c:root xmlns:c=\"urn:c\"><c:item id=\"1\">a</c:item><c:item id=\"3\">z</c:item></c:root>",
+                StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("ns-merged.xml");
+
+        XmlFormatAdapter adapter = new XmlFormatAdapter(XmlNormalizationMode.STREAMING);
+        NormalizedContent leftContent = adapter.normalize(new FileDescriptor(left, FormatType.XML, StandardCharsets.UTF_8));
+        NormalizedContent rightContent = adapter.normalize(new FileDescriptor(right, FormatType.XML, StandardCharsets.UTF_8));
+        DiffResult diff = adapter.diff(leftContent, rightContent);
+
+        List<MergeDecision> decisions = diff.getHunks().stream()
+                .map(h -> new MergeDecision(h.getId(), MergeChoice.TAKE_RIGHT, null))
+                .toList();
+        adapter.merge(leftContent, rightContent, diff, decisions, output);
+
+        assertThat(Files.readString(output, StandardCharsets.UTF_8))
+                .contains("<c:item id=\"3\">z</c:item>")
+                .contains("<c:item id=\"1\">a</c:item>");
+    }
 }
@@ -0,0 +1,33 @@
+package com.universaldiff.format.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XmlNodeIndexTest {
+
+    @Test
+    void resolvesABatchOfPositionalPathsInOneWalk() throws Exception {
+        Document document = XmlProcessors.documentBuilder().parse(new ByteArrayInputStream((
+                "<p:root xmlns:p=\"urn:p\"><item>a</item><other/><item>b</item>"
+                        + "<group><item>c</item><item>d</item></group></p:root>").getBytes(StandardCharsets.UTF_8)));
+
+        Map<String, Element> nodes = XmlNodeIndex.resolve(document, List.of(
+                "/p:root[1]",
+                "/p:root[1]/item[2]",
+                "/p:root[1]/group[1]/item[2]",
+                "/p:root[1]/item[3]",
+                "/other[1]"));
+
+        assertThat(nodes).containsOnlyKeys("/p:root[1]", "/p:root[1]/item[2]", "/p:root[1]/group[1]/item[2]");
+        assertThat(nodes.get("/p:root[1]/item[2]").getTextContent()).isEqualTo("b");
+        assertThat(nodes.get("/p:root[1]/group[1]/item[2]").getTextContent()).isEqualTo("d");
+    }
+}
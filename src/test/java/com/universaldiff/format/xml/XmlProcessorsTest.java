@@ -0,0 +1,39 @@
+package com.universaldiff.format.xml;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.parsers.DocumentBuilder;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XmlProcessorsTest {
+
+    @Test
+    void processorsAreReusedWithinAThreadAndNotSharedAcrossThreads() throws Exception {
+        DocumentBuilder builder = XmlProcessors.documentBuilder();
+
+        assertThat(XmlProcessors.documentBuilder()).isSameAs(builder);
+        assertThat(XmlProcessors.indentingTransformer()).isSameAs(XmlProcessors.indentingTransformer());
+        assertThat(XmlProcessors.inputFactory()).isSameAs(XmlProcessors.inputFactory());
+        assertThat(CompletableFuture.supplyAsync(() -> {
+            try {
+                return XmlProcessors.documentBuilder();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }).get()).isNotSameAs(builder);
+    }
+
+    @Test
+    void reusedBuilderParsesIndependentDocuments() throws Exception {
+        DocumentBuilder builder = XmlProcessors.documentBuilder();
+        builder.parse(new ByteArrayInputStream("<first/>".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(XmlProcessors.documentBuilder()
+                .parse(new ByteArrayInputStream("<p:second xmlns:p=\"urn:p\"/>".getBytes(StandardCharsets.UTF_8)))
+                .getDocumentElement().getNamespaceURI()).isEqualTo("urn:p");
+    }
+}